@@ -2,8 +2,10 @@ package io.aegisops.agent;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AegisOpsApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,178 @@
+package io.aegisops.agent.alert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.IncidentTransitionedEvent;
+import io.aegisops.agent.metrics.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maps Alertmanager resends of a firing alert to the incident that is already
+ * open for it. Entries are keyed by the alert fingerprint and expire after a
+ * TTL; while the incident is still open each resend extends its entry, and
+ * once it is resolved or failed the next alert opens a new incident.
+ * Lookups only lock the hash bin of the key, so webhook threads never contend
+ * on a shared lock.
+ * <p>
+ * Whether an incident is open is not read from the {@link Incident}, which
+ * pipeline threads keep changing, but tracked in the entry itself and
+ * cleared from the {@link IncidentTransitionedEvent} that finishes it.
+ */
+@Component
+@Slf4j
+public class AlertDeduplicator {
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final MetricsService metricsService;
+    private final long ttlNanos;
+    private final int maxEntries;
+    
+    public AlertDeduplicator(MetricsService metricsService,
+                             @Value("${aegisops.dedup.ttl:15m}") Duration ttl,
+                             @Value("${aegisops.dedup.max-entries:10000}") int maxEntries) {
+        this.metricsService = metricsService;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        metricsService.registerGauge("aegisops.dedup.size", "Alert fingerprints held by the dedup cache", entries::size);
+    }
+    
+    /**
+     * Registers the incident under its fingerprint unless an unexpired entry
+     * already exists.
+     *
+     * @return the open incident this alert is a resend of, or {@code null} if
+     *         the incident was registered and should be processed
+     */
+    public Incident findOrRegister(Incident incident) {
+        String key = incident.getFingerprint();
+        if (key == null) {
+            metricsService.incrementDedupMisses();
+            return null;
+        }
+        
+        long now = System.nanoTime();
+        Entry fresh = new Entry(incident, new Liveness(), now + ttlNanos);
+        Entry current = entries.compute(key, (k, existing) -> {
+            if (existing == null || existing.isExpired(now) || !existing.liveness().open) {
+                return fresh;
+            }
+            return new Entry(existing.incident(), existing.liveness(), now + ttlNanos);
+        });
+        
+        if (current == fresh) {
+            metricsService.incrementDedupMisses();
+            if (entries.size() > maxEntries) {
+                evictOverflow();
+            }
+            return null;
+        }
+        
+        metricsService.incrementDedupHits();
+        return current.incident();
+    }
+    
+    /**
+     * Points an existing fingerprint entry at another incident, e.g. the
+     * parent an alert was coalesced into.
+     */
+    public void redirect(String fingerprint, Incident incident) {
+        if (fingerprint == null) {
+            return;
+        }
+        // share the parent's liveness, so finishing the parent frees its members too
+        Entry parent = incident.getFingerprint() != null ? entries.get(incident.getFingerprint()) : null;
+        Liveness liveness = parent != null && parent.incident() == incident ? parent.liveness() : new Liveness();
+        entries.computeIfPresent(fingerprint, 
+            (k, existing) -> new Entry(incident, liveness, existing.expiresAtNanos()));
+    }
+    
+    @EventListener
+    public void onTransition(IncidentTransitionedEvent event) {
+        Incident.IncidentStatus to = event.transition().getToStatus();
+        if (to != Incident.IncidentStatus.RESOLVED && to != Incident.IncidentStatus.FAILED) {
+            return;
+        }
+        Incident finished = event.incident();
+        if (finished.getFingerprint() == null) {
+            return;
+        }
+        Entry entry = entries.get(finished.getFingerprint());
+        if (entry != null && (entry.incident() == finished 
+                || finished.getId() != null && finished.getId().equals(entry.incident().getId()))) {
+            entry.liveness().open = false;
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${aegisops.dedup.sweep-interval:30s}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().isExpired(now) && entries.remove(e.getKey(), e.getValue())) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            metricsService.incrementDedupEvictions(evicted);
+            log.debug("Evicted {} expired alert fingerprints", evicted);
+        }
+    }
+    
+    private void evictOverflow() {
+        // One webhook thread trims; the others carry on instead of queueing behind it
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            evictExpired();
+            int excess = entries.size() - maxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            // Trim an extra tenth so the scan is not repeated on every insert
+            int toEvict = excess + maxEntries / 10;
+            List<Map.Entry<String, Entry>> oldest = new ArrayList<>(entries.entrySet());
+            oldest.sort(Comparator.comparingLong(e -> e.getValue().expiresAtNanos()));
+            int evicted = 0;
+            for (int i = 0; i < oldest.size() && evicted < toEvict; i++) {
+                Map.Entry<String, Entry> e = oldest.get(i);
+                if (entries.remove(e.getKey(), e.getValue())) {
+                    evicted++;
+                }
+            }
+            metricsService.incrementDedupEvictions(evicted);
+            log.warn("Dedup cache over capacity ({}), evicted {} oldest fingerprints", maxEntries, evicted);
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    /**
+     * Open until the incident, or the parent it was coalesced into, finishes.
+     * Shared by every entry that resolves to the same incident.
+     */
+    private static final class Liveness {
+        
+        volatile boolean open = true;
+    }
+    
+    private record Entry(Incident incident, Liveness liveness, long expiresAtNanos) {
+        
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
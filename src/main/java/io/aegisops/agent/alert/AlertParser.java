@@ -1,45 +1,194 @@
 package io.aegisops.agent.alert;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
 
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.aegisops.agent.incident.Incident;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Parses Alertmanager v4 webhook payloads with the Jackson streaming API.
+ * Alerts are read token by token straight into {@link Incident} builders, so
+ * a grouped payload is never materialized as a tree of generic maps.
+ */
 @Component
 @Slf4j
 public class AlertParser {
     
-    @SuppressWarnings("unchecked")
-    public List<Incident> parseAlertPayload(Map<String, Object> payload) {
-        List<Map<String, Object>> alerts = (List<Map<String, Object>>) payload.getOrDefault("alerts", List.of());
+    private final JsonFactory jsonFactory;
+    
+    public AlertParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+    
+    public List<Incident> parseAlertPayload(InputStream payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Alert payload must be a JSON object");
+            }
+            
+            List<Incident.IncidentBuilder> builders = new ArrayList<>();
+            String version = null;
+            String groupKey = null;
+            String status = null;
+            String receiver = null;
+            int truncatedAlerts = 0;
+            
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "alerts" -> readAlerts(parser, builders);
+                    case "version" -> version = parser.getValueAsString();
+                    case "groupKey" -> groupKey = parser.getValueAsString();
+                    case "status" -> status = parser.getValueAsString();
+                    case "receiver" -> receiver = parser.getValueAsString();
+                    case "truncatedAlerts" -> truncatedAlerts = parser.getValueAsInt();
+                    default -> parser.skipChildren();
+                }
+            }
+            
+            AlertmanagerGroup group = new AlertmanagerGroup(version, groupKey, status, receiver, truncatedAlerts);
+            if (group.truncatedAlerts() > 0) {
+                log.warn("Alertmanager truncated {} alerts from group {}", group.truncatedAlerts(), group.groupKey());
+            }
+            
+            List<Incident> incidents = new ArrayList<>(builders.size());
+            for (Incident.IncidentBuilder builder : builders) {
+                incidents.add(builder.groupKey(group.groupKey()).build());
+            }
+            return incidents;
+        }
+    }
+    
+    /**
+     * Parses a single alert object, as sent one per line by bulk sources.
+     * Alerts without a status are treated as firing.
+     *
+     * @return the incident, or {@code null} if the alert is not firing
+     */
+    public Incident parseAlert(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Alert must be a JSON object");
+            }
+            AlertmanagerAlert alert = readAlert(parser);
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after alert object");
+            }
+            if (alert.status() != null && !alert.isFiring()) {
+                return null;
+            }
+            return toIncident(alert).build();
+        }
+    }
+    
+    private void readAlerts(JsonParser parser, List<Incident.IncidentBuilder> builders) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        
+        int skipped = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input in alerts array");
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                skipped++;
+                continue;
+            }
+            AlertmanagerAlert alert = readAlert(parser);
+            if (alert.isFiring()) {
+                builders.add(toIncident(alert));
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Skipped {} non-object entries in alerts array", skipped);
+        }
+    }
+    
+    /**
+     * Reads one alert object. The parser must be positioned on its
+     * {@code START_OBJECT} token and is left on the matching {@code END_OBJECT}.
+     */
+    AlertmanagerAlert readAlert(JsonParser parser) throws IOException {
+        String status = null;
+        Map<String, String> labels = Map.of();
+        Map<String, String> annotations = Map.of();
+        Instant startsAt = null;
+        Instant endsAt = null;
+        String generatorURL = null;
+        String fingerprint = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "status" -> status = parser.getValueAsString();
+                case "labels" -> labels = readStringMap(parser);
+                case "annotations" -> annotations = readStringMap(parser);
+                case "startsAt" -> startsAt = parseTimestamp(parser.getValueAsString());
+                case "endsAt" -> endsAt = parseTimestamp(parser.getValueAsString());
+                case "generatorURL" -> generatorURL = parser.getValueAsString();
+                case "fingerprint" -> fingerprint = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
         
-        return alerts.stream()
-            .filter(this::isValidAlert)
-            .map(this::parseAlert)
-            .collect(Collectors.toList());
+        return new AlertmanagerAlert(status, labels, annotations, startsAt, endsAt, generatorURL, fingerprint);
     }
     
-    private boolean isValidAlert(Map<String, Object> alert) {
-        String status = (String) alert.get("status");
-        return "firing".equalsIgnoreCase(status);
+    private Map<String, String> readStringMap(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Map.of();
+        }
+        
+        Map<String, String> values = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            parser.nextToken();
+            if (parser.currentToken().isScalarValue()) {
+                values.put(key, parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
     }
     
-    @SuppressWarnings("unchecked")
-    private Incident parseAlert(Map<String, Object> alert) {
-        Map<String, String> labels = (Map<String, String>) alert.getOrDefault("labels", Map.of());
-        Map<String, String> annotations = (Map<String, String>) alert.getOrDefault("annotations", Map.of());
+    Incident.IncidentBuilder toIncident(AlertmanagerAlert alert) {
+        Map<String, String> labels = alert.labels();
         
         String alertName = labels.getOrDefault("alertname", "UnknownAlert");
         String namespace = labels.getOrDefault("namespace", "default");
         String podName = labels.getOrDefault("pod", labels.getOrDefault("pod_name", null));
         String deploymentName = extractDeploymentName(podName);
         String severity = labels.getOrDefault("severity", "warning");
-        String description = annotations.getOrDefault("description", annotations.getOrDefault("summary", ""));
+        String description = alert.annotation("description");
+        if (description == null) {
+            description = alert.annotations().getOrDefault("summary", "");
+        }
         
         Map<String, String> metrics = new HashMap<>();
         labels.forEach((k, v) -> {
@@ -56,8 +205,125 @@ public class AlertParser {
             .severity(severity)
             .description(description)
             .metrics(metrics)
-            .status(Incident.IncidentStatus.NEW)
-            .build();
+            .fingerprint(alert.fingerprint() != null ? alert.fingerprint() : labelFingerprint(labels))
+            .generatorUrl(alert.generatorURL())
+            .startsAt(alert.startsAt())
+            .status(Incident.IncidentStatus.NEW);
+    }
+    
+    /**
+     * Fallback for senders that do not supply a fingerprint: FNV-1a 64 over the
+     * sorted label set, the same scheme Alertmanager uses for its own.
+     */
+    static String labelFingerprint(Map<String, String> labels) {
+        long hash = 0xcbf29ce484222325L;
+        for (String key : new TreeSet<>(labels.keySet())) {
+            hash = fnv1a(hash, key);
+            hash = fnv1a(hash, "\u00ff");
+            hash = fnv1a(hash, labels.get(key));
+            hash = fnv1a(hash, "\u00ff");
+        }
+        return String.format("%016x", hash);
+    }
+    
+    private static long fnv1a(long hash, String value) {
+        if (value == null) {
+            return hash;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    /**
+     * Parses the RFC 3339 timestamps Alertmanager emits. The common
+     * {@code yyyy-MM-ddTHH:mm:ss[.fraction](Z|+hh:mm)} shape is decoded by hand
+     * because {@link OffsetDateTime#parse} dominates the cost of a large payload.
+     */
+    static Instant parseTimestamp(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            Instant instant = parseRfc3339(value);
+            if (instant == null) {
+                instant = OffsetDateTime.parse(value).toInstant();
+            }
+            // Alertmanager sends Go's zero time for unset endsAt
+            return instant.getEpochSecond() < 0 ? null : instant;
+        } catch (DateTimeException e) {
+            log.debug("Ignoring unparseable alert timestamp: {}", value);
+            return null;
+        }
+    }
+    
+    private static Instant parseRfc3339(String value) {
+        int length = value.length();
+        if (length < 20 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+                || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return null;
+        }
+        
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        int hour = digits(value, 11, 13);
+        int minute = digits(value, 14, 16);
+        int second = digits(value, 17, 19);
+        if ((year | month | day | hour | minute | second) < 0 || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+        
+        int pos = 19;
+        long nanos = 0;
+        if (value.charAt(pos) == '.') {
+            int start = ++pos;
+            while (pos < length && value.charAt(pos) >= '0' && value.charAt(pos) <= '9') {
+                if (pos - start < 9) {
+                    nanos = nanos * 10 + (value.charAt(pos) - '0');
+                }
+                pos++;
+            }
+            if (pos == start) {
+                return null;
+            }
+            for (int scale = Math.min(pos - start, 9); scale < 9; scale++) {
+                nanos *= 10;
+            }
+        }
+        
+        int offsetSeconds;
+        if (pos == length - 1 && (value.charAt(pos) == 'Z' || value.charAt(pos) == 'z')) {
+            offsetSeconds = 0;
+        } else if (pos == length - 6 && value.charAt(pos + 3) == ':'
+                && (value.charAt(pos) == '+' || value.charAt(pos) == '-')) {
+            int offsetHours = digits(value, pos + 1, pos + 3);
+            int offsetMinutes = digits(value, pos + 4, pos + 6);
+            if ((offsetHours | offsetMinutes) < 0) {
+                return null;
+            }
+            offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (value.charAt(pos) == '-' ? -1 : 1);
+        } else {
+            return null;
+        }
+        
+        long epochDay = LocalDate.of(year, month, day).toEpochDay();
+        long epochSecond = epochDay * 86_400 + hour * 3600 + minute * 60 + second - offsetSeconds;
+        return Instant.ofEpochSecond(epochSecond, nanos);
+    }
+    
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
     }
     
     private String extractDeploymentName(String podName) {
@@ -77,4 +343,3 @@ public class AlertParser {
         return podName;
     }
 }
-
@@ -0,0 +1,30 @@
+package io.aegisops.agent.alert;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Single alert entry of an Alertmanager v4 webhook payload.
+ */
+public record AlertmanagerAlert(
+    String status,
+    Map<String, String> labels,
+    Map<String, String> annotations,
+    Instant startsAt,
+    Instant endsAt,
+    String generatorURL,
+    String fingerprint
+) {
+    
+    public boolean isFiring() {
+        return "firing".equalsIgnoreCase(status);
+    }
+    
+    public String label(String name) {
+        return labels != null ? labels.get(name) : null;
+    }
+    
+    public String annotation(String name) {
+        return annotations != null ? annotations.get(name) : null;
+    }
+}
@@ -0,0 +1,15 @@
+package io.aegisops.agent.alert;
+
+/**
+ * Envelope fields of an Alertmanager v4 webhook payload. The alerts themselves
+ * are read one at a time straight into incident builders, which are collected
+ * in a list; no tree of generic maps is built for them.
+ */
+public record AlertmanagerGroup(
+    String version,
+    String groupKey,
+    String status,
+    String receiver,
+    int truncatedAlerts
+) {
+}
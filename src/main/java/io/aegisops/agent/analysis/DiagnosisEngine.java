@@ -23,8 +23,12 @@ public class DiagnosisEngine {
     public DiagnosisResult diagnose(Incident incident) {
         log.info("Starting diagnosis for incident: {}", incident.getId());
         
+        // Both analyzers read the collapsed template view, not the raw logs
+        LogTemplates logs = LogTemplates.mine(incident.getPodLogs());
+        log.debug("Mined {} log lines into {} templates", logs.lines(), logs.size());
+        
         // Try deterministic rules first
-        DiagnosisResult ruleResult = ruleBasedAnalyzer.analyze(incident);
+        DiagnosisResult ruleResult = ruleBasedAnalyzer.analyze(incident, logs);
         
         if (ruleResult != null && ruleResult.getConfidence() >= confidenceThreshold) {
             log.info("Rule-based diagnosis succeeded with confidence: {}", ruleResult.getConfidence());
@@ -34,7 +38,7 @@ public class DiagnosisEngine {
         
         // Fall back to LLM analysis
         log.info("Rule-based diagnosis inconclusive, using LLM");
-        DiagnosisResult llmResult = llmAnalyzer.analyze(incident);
+        DiagnosisResult llmResult = llmAnalyzer.analyze(incident, logs);
         llmResult.setSource("LLM");
         
         return applySafetyChecks(llmResult, incident);
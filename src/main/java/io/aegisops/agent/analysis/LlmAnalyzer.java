@@ -34,9 +34,9 @@ public class LlmAnalyzer {
     @Value("${aegisops.openai.temperature}")
     private double temperature;
     
-    public DiagnosisResult analyze(Incident incident) {
+    public DiagnosisResult analyze(Incident incident, LogTemplates logTemplates) {
         try {
-            String prompt = buildPrompt(incident);
+            String prompt = buildPrompt(incident, logTemplates);
             String response = callOpenAI(prompt);
             return parseResponse(response);
             
@@ -52,13 +52,17 @@ public class LlmAnalyzer {
         }
     }
     
-    private String buildPrompt(Incident incident) {
+    private String buildPrompt(Incident incident, LogTemplates logTemplates) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("You are an SRE assistant analyzing a Kubernetes incident.\n\n");
         
         prompt.append("Alert: ").append(incident.getAlertName()).append("\n");
         prompt.append("Namespace: ").append(incident.getNamespace()).append("\n");
         prompt.append("Pod: ").append(incident.getPodName()).append("\n");
+        if (incident.getAffectedPods() != null && incident.getAffectedPods().size() > 1) {
+            prompt.append("Affected pods (").append(incident.getAffectedPods().size()).append("): ")
+                .append(String.join(", ", incident.getAffectedPods())).append("\n");
+        }
         prompt.append("Severity: ").append(incident.getSeverity()).append("\n\n");
         
         if (incident.getDescription() != null) {
@@ -66,14 +70,22 @@ public class LlmAnalyzer {
         }
         
         if (incident.getPodLogs() != null) {
-            String truncatedLogs = truncate(incident.getPodLogs(), 1500);
-            prompt.append("Pod Logs (last lines):\n").append(truncatedLogs).append("\n\n");
+            prompt.append("Pod Logs (repeated lines collapsed: [Nx] = seen N times, <*> = varying value):\n")
+                .append(logTemplates.render(1500)).append("\n");
         }
         
         if (incident.getPodEvents() != null) {
             prompt.append("Pod Events:\n").append(incident.getPodEvents()).append("\n\n");
         }
         
+        if (incident.getPodStatus() != null) {
+            prompt.append("Pod Status:\n").append(incident.getPodStatus()).append("\n\n");
+        }
+        
+        if (incident.getEnrichmentGaps() != null) {
+            prompt.append("Unavailable (timed out or failed): ").append(incident.getEnrichmentGaps()).append("\n\n");
+        }
+        
         prompt.append("Analyze this incident and respond ONLY with valid JSON (no markdown, no backticks):\n");
         prompt.append("{\n");
         prompt.append("  \"rootCause\": \"brief root cause explanation\",\n");
@@ -152,11 +164,4 @@ public class LlmAnalyzer {
                 .build();
         }
     }
-    
-    private String truncate(String text, int maxLength) {
-        if (text == null || text.length() <= maxLength) {
-            return text;
-        }
-        return "..." + text.substring(text.length() - maxLength);
-    }
 }
@@ -0,0 +1,207 @@
+package io.aegisops.agent.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Drain-style summary of pod logs: lines that differ only in variable parts
+ * (numbers, ids, addresses) collapse into one template with a count, the
+ * varying tokens replaced by {@code <*>}. A crash loop that printed the
+ * same retry message four hundred times becomes one line, which is what
+ * the analyzers and the LLM prompt budget should be spent on.
+ * <p>
+ * Lines are routed through a fixed-depth tree by their token count and
+ * leading tokens, then matched against the templates in that leaf by the
+ * share of tokens they agree on; a line below {@link #SIMILARITY} starts a
+ * new template. Templates are kept in the order they first appeared, and
+ * the {@code --- container ---} headers of {@code PodLogs.format()} start a
+ * new section so different containers never merge.
+ */
+public final class LogTemplates {
+    
+    static final String WILDCARD = "<*>";
+    private static final int DEPTH = 2;
+    private static final double SIMILARITY = 0.5;
+    private static final int MAX_CHILDREN = 100;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    // numbers, hex ids, uuids, addresses: the whole token is a value
+    private static final Pattern VALUE = Pattern.compile("[-+]?[0-9a-fA-FxX:./-]*\\d[0-9a-fA-FxX:./-]*");
+    
+    private final List<Section> sections = new ArrayList<>();
+    private int lines;
+    
+    private LogTemplates() {
+    }
+    
+    public static LogTemplates mine(String logs) {
+        LogTemplates templates = new LogTemplates();
+        if (logs == null) {
+            return templates;
+        }
+        Section section = null;
+        for (String line : logs.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (line.startsWith("--- ") && line.endsWith(" ---")) {
+                section = new Section(line);
+                templates.sections.add(section);
+                continue;
+            }
+            if (section == null) {
+                section = new Section(null);
+                templates.sections.add(section);
+            }
+            section.add(line);
+            templates.lines++;
+        }
+        return templates;
+    }
+    
+    /** Lines read, not counting section headers. */
+    public int lines() {
+        return lines;
+    }
+    
+    public int size() {
+        return sections.stream().mapToInt(section -> section.templates.size()).sum();
+    }
+    
+    public String render() {
+        return render(Integer.MAX_VALUE);
+    }
+    
+    /**
+     * The templates, one per line as {@code [count x] template}, or the line
+     * itself for those seen once. Beyond {@code maxChars} the earliest are
+     * left out, since the end of a log is nearest the failure.
+     */
+    public String render(int maxChars) {
+        List<String> out = new ArrayList<>();
+        for (Section section : sections) {
+            if (section.header != null) {
+                out.add(section.header);
+            }
+            for (Template template : section.templates) {
+                out.add(template.render());
+            }
+        }
+        int length = 0;
+        int first = out.size();
+        while (first > 0 && length + out.get(first - 1).length() + 1 <= maxChars) {
+            length += out.get(--first).length() + 1;
+        }
+        StringBuilder text = new StringBuilder();
+        if (first > 0) {
+            text.append("[").append(first).append(" earlier lines omitted]\n");
+        }
+        for (int i = first; i < out.size(); i++) {
+            text.append(out.get(i)).append('\n');
+        }
+        return text.toString();
+    }
+    
+    static String[] tokenize(String line) {
+        String[] tokens = WHITESPACE.split(line.strip());
+        for (int i = 0; i < tokens.length; i++) {
+            if (VALUE.matcher(tokens[i]).matches()) {
+                tokens[i] = WILDCARD;
+            } else if (DIGITS.matcher(tokens[i]).find()) {
+                tokens[i] = DIGITS.matcher(tokens[i]).replaceAll(WILDCARD);
+            }
+        }
+        return tokens;
+    }
+    
+    private static final class Section {
+        
+        final String header;
+        final List<Template> templates = new ArrayList<>();
+        final Node root = new Node();
+        
+        Section(String header) {
+            this.header = header;
+        }
+        
+        void add(String line) {
+            String[] tokens = tokenize(line);
+            Node node = root.child(String.valueOf(tokens.length));
+            for (int i = 0; i < Math.min(DEPTH, tokens.length); i++) {
+                node = node.child(tokens[i]);
+            }
+            
+            Template best = null;
+            double bestSimilarity = -1;
+            for (Template template : node.templates) {
+                double similarity = template.similarity(tokens);
+                if (similarity > bestSimilarity) {
+                    best = template;
+                    bestSimilarity = similarity;
+                }
+            }
+            if (best != null && bestSimilarity >= SIMILARITY) {
+                best.merge(tokens, line);
+            } else {
+                Template template = new Template(tokens, line);
+                node.templates.add(template);
+                templates.add(template);
+            }
+        }
+    }
+    
+    private static final class Node {
+        
+        final Map<String, Node> children = new HashMap<>();
+        final List<Template> templates = new ArrayList<>();
+        
+        Node child(String token) {
+            Node child = children.get(token);
+            if (child != null) {
+                return child;
+            }
+            // past the fan-out limit, unseen tokens share the wildcard branch
+            String key = children.size() >= MAX_CHILDREN ? WILDCARD : token;
+            return children.computeIfAbsent(key, k -> new Node());
+        }
+    }
+    
+    private static final class Template {
+        
+        final String[] tokens;
+        String sample;
+        int count = 1;
+        
+        Template(String[] tokens, String line) {
+            this.tokens = tokens;
+            this.sample = line;
+        }
+        
+        double similarity(String[] line) {
+            int same = 0;
+            for (int i = 0; i < tokens.length; i++) {
+                if (tokens[i].equals(line[i])) {
+                    same++;
+                }
+            }
+            return (double) same / tokens.length;
+        }
+        
+        void merge(String[] line, String raw) {
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].equals(line[i])) {
+                    tokens[i] = WILDCARD;
+                }
+            }
+            sample = raw;
+            count++;
+        }
+        
+        String render() {
+            return count == 1 ? sample : "[" + count + "x] " + String.join(" ", tokens);
+        }
+    }
+}
@@ -9,12 +9,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class RuleBasedAnalyzer {
     
-    public DiagnosisResult analyze(Incident incident) {
+    public DiagnosisResult analyze(Incident incident, LogTemplates logTemplates) {
         log.debug("Applying rule-based analysis for: {}", incident.getAlertName());
         
         String alertName = incident.getAlertName().toLowerCase();
         String events = incident.getPodEvents() != null ? incident.getPodEvents().toLowerCase() : "";
-        String logs = incident.getPodLogs() != null ? incident.getPodLogs().toLowerCase() : "";
+        String logs = logTemplates.render().toLowerCase();
         
         // Rule 1: OOMKilled
         if (events.contains("oomkilled") || alertName.contains("oom")) {
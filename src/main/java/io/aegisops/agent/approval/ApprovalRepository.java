@@ -1,13 +1,32 @@
 package io.aegisops.agent.approval;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-@Repository
-public interface ApprovalRepository extends JpaRepository<ApprovalRequest, String> {
+public interface ApprovalRepository extends Repository<ApprovalRequest, String> {
+    <S extends ApprovalRequest> S save(S request);
+    Optional<ApprovalRequest> findById(String id);
     List<ApprovalRequest> findByStatus(ApprovalRequest.ApprovalStatus status);
-    Optional<ApprovalRequest> findByIncidentId(String incidentId);
+    
+    /**
+     * Answers the request only if it is still in {@code expected}.
+     *
+     * @return the number of requests updated, {@code 0} if another answer
+     *         got there first
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        update ApprovalRequest a set a.status = :status, a.approvedBy = :approvedBy, a.respondedAt = :respondedAt
+        where a.id = :id and a.status = :expected""")
+    int updateStatus(@Param("id") String id, @Param("expected") ApprovalRequest.ApprovalStatus expected,
+                     @Param("status") ApprovalRequest.ApprovalStatus status, @Param("approvedBy") String approvedBy,
+                     @Param("respondedAt") Instant respondedAt);
 }
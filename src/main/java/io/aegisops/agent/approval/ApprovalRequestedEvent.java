@@ -0,0 +1,9 @@
+package io.aegisops.agent.approval;
+
+import io.aegisops.agent.incident.Incident;
+
+/**
+ * Published once a new approval request has been committed.
+ */
+public record ApprovalRequestedEvent(ApprovalRequest request, Incident incident) {
+}
@@ -1,24 +1,67 @@
 package io.aegisops.agent.approval;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import io.aegisops.agent.analysis.DiagnosisResult;
 import io.aegisops.agent.incident.Incident;
 import io.aegisops.agent.metrics.MetricsService;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Creates and answers approval requests. Summaries of pending requests are
+ * also kept in memory, so listing them never touches the store; a new
+ * request only joins the in-memory set once the surrounding transaction has
+ * committed, and a periodic check repairs it if it ever disagrees with the
+ * store twice in a row. Answers are conditional updates of a pending
+ * request, so each request is answered exactly once.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ApprovalService {
     
     private final ApprovalRepository approvalRepository;
     private final MetricsService metricsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, ApprovalSummary> pending = new ConcurrentHashMap<>();
+    private volatile Set<String> suspects = Set.of();
+    
+    public ApprovalService(ApprovalRepository approvalRepository, MetricsService metricsService,
+                           ApplicationEventPublisher eventPublisher) {
+        this.approvalRepository = approvalRepository;
+        this.metricsService = metricsService;
+        this.eventPublisher = eventPublisher;
+        metricsService.registerGauge("aegisops.index.size", "Entries in an in-memory index", 
+            pending::size, "index", "pending-approvals");
+        metricsService.registerGauge("aegisops.index.memory", "Estimated heap used by an in-memory index, in bytes", 
+            this::estimatedBytes, "index", "pending-approvals");
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        approvalRepository.findByStatus(ApprovalRequest.ApprovalStatus.PENDING)
+            .forEach(request -> pending.put(request.getId(), ApprovalSummary.of(request)));
+        log.info("Indexed {} pending approvals", pending.size());
+    }
     
     @Transactional
     public ApprovalRequest requestApproval(Incident incident, DiagnosisResult diagnosis) {
@@ -30,20 +73,121 @@ public class ApprovalService {
             .status(ApprovalRequest.ApprovalStatus.PENDING)
             .build();
         
-        request = approvalRepository.save(request);
+        ApprovalRequest saved = approvalRepository.save(request);
+        afterCommit(() -> {
+            pending.put(saved.getId(), ApprovalSummary.of(saved));
+            eventPublisher.publishEvent(new ApprovalRequestedEvent(saved, incident));
+        });
         metricsService.incrementApprovalsPending();
         
         log.info("Approval requested for incident: {}, action: {}", 
             incident.getId(), diagnosis.getRecommendedAction());
         
+        return saved;
+    }
+    
+    /**
+     * Records the operator's answer if the request is still pending and
+     * takes it out of the pending set. Only one answer can win, so two
+     * operators responding at once cannot both act on it.
+     *
+     * @throws IllegalStateException if the request was already answered
+     */
+    public ApprovalRequest respond(ApprovalRequest request, ApprovalRequest.ApprovalStatus status, String approver) {
+        Instant respondedAt = Instant.now();
+        if (approvalRepository.updateStatus(request.getId(), ApprovalRequest.ApprovalStatus.PENDING, status, 
+                approver, respondedAt) == 0) {
+            throw new IllegalStateException("Approval " + request.getId() + " was already answered");
+        }
+        request.setStatus(status);
+        request.setApprovedBy(approver);
+        request.setRespondedAt(respondedAt);
+        pending.remove(request.getId());
+        metricsService.decrementApprovalsPending();
         return request;
     }
     
-    public List<ApprovalRequest> getPendingApprovals() {
-        return approvalRepository.findByStatus(ApprovalRequest.ApprovalStatus.PENDING);
+    /**
+     * Marks an answered request as expired, for when its incident moved on
+     * before the answer could be applied.
+     */
+    public void expire(ApprovalRequest request) {
+        if (approvalRepository.updateStatus(request.getId(), request.getStatus(), 
+                ApprovalRequest.ApprovalStatus.EXPIRED, request.getApprovedBy(), request.getRespondedAt()) > 0) {
+            request.setStatus(ApprovalRequest.ApprovalStatus.EXPIRED);
+        }
+    }
+    
+    /**
+     * Pending requests, oldest first, from memory.
+     */
+    public List<ApprovalSummary> getPendingApprovals() {
+        List<ApprovalSummary> requests = new ArrayList<>(pending.values());
+        requests.sort(Comparator.comparing(ApprovalSummary::requestedAt, 
+            Comparator.nullsLast(Comparator.naturalOrder())));
+        return requests;
     }
     
     public Optional<ApprovalRequest> findById(String id) {
         return approvalRepository.findById(id);
     }
-}
\ No newline at end of file
+    
+    @Scheduled(fixedDelayString = "${aegisops.index.verify-interval:5m}", 
+        initialDelayString = "${aegisops.index.verify-interval:5m}")
+    void verify() {
+        Map<String, ApprovalRequest> stored = new ConcurrentHashMap<>();
+        approvalRepository.findByStatus(ApprovalRequest.ApprovalStatus.PENDING)
+            .forEach(request -> stored.put(request.getId(), request));
+        
+        Set<String> differing = new HashSet<>(stored.keySet());
+        differing.removeAll(pending.keySet());
+        for (String id : pending.keySet()) {
+            if (!stored.containsKey(id)) {
+                differing.add(id);
+            }
+        }
+        
+        Set<String> drifted = new HashSet<>(differing);
+        drifted.retainAll(suspects);
+        suspects = differing;
+        if (drifted.isEmpty()) {
+            return;
+        }
+        
+        log.warn("Pending approval index drifted from the store for {} requests, repairing", drifted.size());
+        metricsService.incrementIndexDrift("pending-approvals", drifted.size());
+        for (String id : drifted) {
+            ApprovalRequest request = stored.get(id);
+            if (request != null) {
+                pending.put(id, ApprovalSummary.of(request));
+            } else {
+                pending.remove(id);
+            }
+        }
+    }
+    
+    private long estimatedBytes() {
+        long bytes = 0;
+        for (ApprovalSummary request : pending.values()) {
+            bytes += 120 + length(request.id()) + length(request.incidentId()) + length(request.recommendedAction());
+        }
+        return bytes;
+    }
+    
+    private static long length(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
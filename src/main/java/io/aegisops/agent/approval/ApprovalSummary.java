@@ -0,0 +1,21 @@
+package io.aegisops.agent.approval;
+
+import java.time.Instant;
+
+/**
+ * List view of a pending approval request, without the diagnosis
+ * reasoning. The full request is served by id.
+ */
+public record ApprovalSummary(
+    String id,
+    String incidentId,
+    String recommendedAction,
+    Double confidence,
+    Instant requestedAt
+) {
+    
+    static ApprovalSummary of(ApprovalRequest request) {
+        return new ApprovalSummary(request.getId(), request.getIncidentId(), request.getRecommendedAction(), 
+            request.getConfidence(), request.getRequestedAt());
+    }
+}
@@ -0,0 +1,82 @@
+package io.aegisops.agent.approval;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import io.aegisops.agent.store.LocalStore;
+
+/**
+ * {@link ApprovalRepository} over the {@link LocalStore}, with each
+ * request's status kept in memory for {@link #findByStatus}. Writes to a
+ * request run under its entry in that map, which makes
+ * {@link #updateStatus} a compare-and-set.
+ */
+@Repository
+@ConditionalOnProperty(name = "aegisops.storage.backend", havingValue = "local")
+class LocalApprovalRepository implements ApprovalRepository {
+    
+    static final String COLLECTION = "approvals";
+    
+    private final LocalStore store;
+    private final Map<String, ApprovalRequest.ApprovalStatus> statuses = new ConcurrentHashMap<>();
+    
+    LocalApprovalRepository(LocalStore store) {
+        this.store = store;
+        store.forEach(COLLECTION, ApprovalRequest.class, request -> statuses.put(request.getId(), request.getStatus()));
+    }
+    
+    @Override
+    public <S extends ApprovalRequest> S save(S request) {
+        if (request.getId() == null) {
+            request.setId(UUID.randomUUID().toString());
+            request.onCreate();
+        }
+        statuses.compute(request.getId(), (id, previous) -> {
+            store.put(COLLECTION, id, request);
+            return request.getStatus();
+        });
+        return request;
+    }
+    
+    @Override
+    public Optional<ApprovalRequest> findById(String id) {
+        return store.find(COLLECTION, id, ApprovalRequest.class);
+    }
+    
+    @Override
+    public List<ApprovalRequest> findByStatus(ApprovalRequest.ApprovalStatus status) {
+        return statuses.entrySet().stream()
+            .filter(entry -> entry.getValue() == status)
+            .flatMap(entry -> findById(entry.getKey()).stream())
+            .toList();
+    }
+    
+    @Override
+    public int updateStatus(String id, ApprovalRequest.ApprovalStatus expected, ApprovalRequest.ApprovalStatus status,
+                            String approvedBy, Instant respondedAt) {
+        int[] updated = {0};
+        statuses.computeIfPresent(id, (key, current) -> {
+            if (current != expected) {
+                return current;
+            }
+            ApprovalRequest request = findById(key).orElse(null);
+            if (request == null) {
+                return current;
+            }
+            request.setStatus(status);
+            request.setApprovedBy(approvedBy);
+            request.setRespondedAt(respondedAt);
+            store.put(COLLECTION, key, request);
+            updated[0] = 1;
+            return status;
+        });
+        return updated[0];
+    }
+}
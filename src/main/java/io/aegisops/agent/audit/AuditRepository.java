@@ -2,10 +2,9 @@ package io.aegisops.agent.audit;
 
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.Repository;
 
-@Repository
-interface AuditRepository extends JpaRepository<AuditLog, String> {
+interface AuditRepository extends Repository<AuditLog, String> {
+    <S extends AuditLog> S save(S entry);
     List<AuditLog> findByIncidentId(String incidentId);
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package io.aegisops.agent.audit;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import io.aegisops.agent.store.LocalStore;
+
+/**
+ * {@link AuditRepository} over the {@link LocalStore}, with entry ids
+ * indexed by incident.
+ */
+@Repository
+@ConditionalOnProperty(name = "aegisops.storage.backend", havingValue = "local")
+class LocalAuditRepository implements AuditRepository {
+    
+    static final String COLLECTION = "audit";
+    
+    private final LocalStore store;
+    private final Map<String, Set<String>> byIncident = new ConcurrentHashMap<>();
+    
+    LocalAuditRepository(LocalStore store) {
+        this.store = store;
+        store.forEach(COLLECTION, AuditLog.class, this::index);
+    }
+    
+    @Override
+    public <S extends AuditLog> S save(S entry) {
+        if (entry.getId() == null) {
+            entry.setId(UUID.randomUUID().toString());
+            entry.onCreate();
+        }
+        store.put(COLLECTION, entry.getId(), entry);
+        index(entry);
+        return entry;
+    }
+    
+    @Override
+    public List<AuditLog> findByIncidentId(String incidentId) {
+        return byIncident.getOrDefault(incidentId, Set.of()).stream()
+            .flatMap(id -> store.find(COLLECTION, id, AuditLog.class).stream())
+            .sorted(Comparator.comparing(AuditLog::getTimestamp))
+            .toList();
+    }
+    
+    private void index(AuditLog entry) {
+        byIncident.computeIfAbsent(entry.getIncidentId(), id -> ConcurrentHashMap.newKeySet()).add(entry.getId());
+    }
+}
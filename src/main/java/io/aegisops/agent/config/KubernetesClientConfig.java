@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import io.aegisops.agent.kubernetes.ApiRateLimiter;
 import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
@@ -18,7 +19,7 @@ public class KubernetesClientConfig {
     private boolean inCluster;
     
     @Bean
-    public KubernetesClient kubernetesClient() {
+    public KubernetesClient kubernetesClient(ApiRateLimiter rateLimiter) {
         Config config;
         
         if (inCluster) {
@@ -32,6 +33,7 @@ public class KubernetesClientConfig {
         
         KubernetesClient client = new KubernetesClientBuilder()
             .withConfig(config)
+            .withHttpClientBuilderConsumer(builder -> builder.addOrReplaceInterceptor("rate-limit", rateLimiter))
             .build();
         
         log.info("Kubernetes client initialized - namespace: {}", 
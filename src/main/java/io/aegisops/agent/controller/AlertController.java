@@ -1,21 +1,45 @@
 package io.aegisops.agent.controller;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
 
 import io.aegisops.agent.alert.AlertParser;
 import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.IncidentAggregate;
+import io.aegisops.agent.incident.IncidentCursor;
+import io.aegisops.agent.incident.IncidentPage;
+import io.aegisops.agent.incident.IncidentQuery;
 import io.aegisops.agent.incident.IncidentService;
+import io.aegisops.agent.incident.IncidentTimeline;
+import io.aegisops.agent.ingest.BulkIngestResult;
+import io.aegisops.agent.ingest.IngestResult;
+import io.aegisops.agent.ingest.IngestionService;
 import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.store.BlobStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,27 +50,45 @@ import lombok.extern.slf4j.Slf4j;
 public class AlertController {
     
     private final AlertParser alertParser;
+    private final IngestionService ingestionService;
     private final IncidentService incidentService;
     private final MetricsService metricsService;
+    private final BlobStore blobStore;
+    
+    @Value("${aegisops.api.incidents.max-page-size:500}")
+    private int maxPageSize;
     
-    @PostMapping("/alerts")
-    public ResponseEntity<Map<String, String>> receiveAlert(@RequestBody Map<String, Object> alertPayload) {
+    @PostMapping(value = "/alerts", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, String>> receiveAlert(InputStream alertPayload) {
         try {
-            log.info("Received alert webhook: {}", alertPayload);
             metricsService.incrementAlertsReceived();
             
             List<Incident> incidents = alertParser.parseAlertPayload(alertPayload);
+            log.info("Received alert webhook with {} firing alerts", incidents.size());
             
-            for (Incident incident : incidents) {
-                log.info("Processing incident: {} for pod: {}", incident.getAlertName(), incident.getPodName());
-                incidentService.processIncident(incident);
-            }
+            IngestResult result = ingestionService.ingest(incidents);
             
-            return ResponseEntity.ok(Map.of(
-                "status", "accepted",
-                "incidents_created", String.valueOf(incidents.size())
-            ));
+            return switch (result.status()) {
+                case PROCESSED -> ResponseEntity.ok(Map.of(
+                    "status", "accepted",
+                    "incidents_created", String.valueOf(result.accepted()),
+                    "duplicates", String.valueOf(result.duplicates())
+                ));
+                case QUEUED -> ResponseEntity.accepted().body(Map.of(
+                    "status", "queued",
+                    "alerts_queued", String.valueOf(result.accepted())
+                ));
+                case REJECTED -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.retryAfter().toSeconds()))
+                    .body(Map.of("status", "rejected", "message", "Ingestion queue is full"));
+            };
             
+        } catch (JsonProcessingException e) {
+            log.warn("Rejected malformed alert payload: {}", e.getOriginalMessage());
+            metricsService.incrementAlertsFailed();
+            return ResponseEntity.badRequest()
+                .body(Map.of("status", "error", "message", e.getOriginalMessage()));
+                
         } catch (Exception e) {
             log.error("Error processing alert", e);
             metricsService.incrementAlertsFailed();
@@ -55,19 +97,159 @@ public class AlertController {
         }
     }
     
+    @PostMapping(value = "/alerts/bulk", consumes = {"application/x-ndjson", "application/jsonl", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<Map<String, Object>> receiveBulkAlerts(InputStream alertLines) {
+        try {
+            metricsService.incrementAlertsReceived();
+            
+            BulkIngestResult result = ingestionService.ingestBulk(alertLines);
+            log.info("Bulk alert upload: {} lines, {} accepted, {} duplicates, {} resolved, {} rejected", 
+                result.lines(), result.accepted(), result.duplicates(), result.resolved(), result.rejected());
+            
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("status", result.isThrottled() ? "throttled" : "accepted");
+            body.put("lines", result.lines());
+            body.put("accepted", result.accepted());
+            body.put("duplicates", result.duplicates());
+            body.put("resolved", result.resolved());
+            body.put("rejected", result.rejected());
+            body.put("errors", result.errors());
+            
+            if (result.isThrottled()) {
+                body.put("resume_from_line", result.resumeFromLine());
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.retryAfter().toSeconds()))
+                    .body(body);
+            }
+            return ResponseEntity.ok(body);
+            
+        } catch (Exception e) {
+            log.error("Error processing bulk alerts", e);
+            metricsService.incrementAlertsFailed();
+            return ResponseEntity.internalServerError()
+                .body(Map.of("status", "error", "message", String.valueOf(e.getMessage())));
+        }
+    }
+    
+    /**
+     * Lists incident summaries newest first (or oldest first with
+     * {@code sort=asc}), one page at a time. Pass the returned
+     * {@code nextCursor} as {@code cursor} to get the next page. Pages are
+     * tagged with an ETag, and an unchanged page is answered with 304.
+     */
     @GetMapping("/incidents")
-    public ResponseEntity<List<Incident>> listIncidents(
+    public ResponseEntity<?> listIncidents(
             @RequestParam(required = false) String namespace,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) String alertName,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "desc") String sort,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
         
-        List<Incident> incidents = incidentService.findIncidents(namespace, status);
-        return ResponseEntity.ok(incidents);
+        IncidentQuery query;
+        try {
+            query = new IncidentQuery(
+                namespace,
+                status != null ? Incident.IncidentStatus.valueOf(status.toUpperCase()) : null,
+                severity,
+                alertName,
+                from,
+                to,
+                "asc".equalsIgnoreCase(sort),
+                Math.max(1, Math.min(limit, maxPageSize)),
+                cursor != null ? IncidentCursor.decode(cursor) : null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        }
+        
+        IncidentPage page = incidentService.findIncidentPage(query);
+        String etag = page.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+    
+    /**
+     * Non-terminal incidents, answered from memory. {@code workload} only
+     * applies together with {@code namespace}.
+     */
+    @GetMapping("/incidents/open")
+    public ResponseEntity<?> listOpenIncidents(
+            @RequestParam(required = false) String namespace,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String workload,
+            @RequestParam(required = false) String severity) {
+        
+        Incident.IncidentStatus incidentStatus;
+        try {
+            incidentStatus = status != null ? Incident.IncidentStatus.valueOf(status.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        }
+        return ResponseEntity.ok(incidentService.findOpenIncidents(namespace, incidentStatus, workload, severity));
+    }
+    
+    /**
+     * Daily counts of incidents old enough to have been removed by
+     * retention, for {@code from} to {@code to} inclusive (default: the last 365 days).
+     */
+    @GetMapping("/incidents/history")
+    public ResponseEntity<List<IncidentAggregate>> getIncidentHistory(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusDays(365);
+        return ResponseEntity.ok(incidentService.getHistory(start, end));
     }
     
     @GetMapping("/incidents/{id}")
     public ResponseEntity<Incident> getIncident(@PathVariable String id) {
-        return incidentService.findById(id)
+        return incidentService.findDetailsById(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * The incident's pod logs as plain text, streamed from the blob store.
+     * 204 if none were collected.
+     */
+    @GetMapping("/incidents/{id}/logs")
+    public ResponseEntity<StreamingResponseBody> getIncidentLogs(@PathVariable String id) {
+        return streamBlob(id, Incident::getPodLogsRef);
+    }
+    
+    /**
+     * The incident's pod events as plain text, streamed from the blob store.
+     * 204 if none were collected.
+     */
+    @GetMapping("/incidents/{id}/events")
+    public ResponseEntity<StreamingResponseBody> getIncidentEvents(@PathVariable String id) {
+        return streamBlob(id, Incident::getPodEventsRef);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> streamBlob(String id, Function<Incident, String> reference) {
+        Optional<Incident> incident = incidentService.findById(id);
+        if (incident.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String ref = reference.apply(incident.get());
+        if (ref == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .body(out -> blobStore.transferTo(ref, out));
+    }
+    
+    @GetMapping("/incidents/{id}/timeline")
+    public ResponseEntity<IncidentTimeline> getIncidentTimeline(@PathVariable String id) {
+        return incidentService.getTimeline(id)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+}
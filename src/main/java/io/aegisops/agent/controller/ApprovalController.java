@@ -1,12 +1,12 @@
 package io.aegisops.agent.controller;
 
-import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,13 +14,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import io.aegisops.agent.approval.ApprovalRepository;
 import io.aegisops.agent.approval.ApprovalRequest;
 import io.aegisops.agent.approval.ApprovalService;
+import io.aegisops.agent.approval.ApprovalSummary;
 import io.aegisops.agent.incident.Incident;
-import io.aegisops.agent.incident.IncidentRepository;
 import io.aegisops.agent.incident.IncidentService;
-import io.aegisops.agent.metrics.MetricsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,19 +29,22 @@ import lombok.extern.slf4j.Slf4j;
 class ApprovalController {
     
     private final ApprovalService approvalService;
-    private final ApprovalRepository approvalRepository;
-    private final IncidentRepository incidentRepository;
     private final IncidentService incidentService;
-    private final MetricsService metricsService;
     
     @GetMapping
-    public ResponseEntity<List<ApprovalRequest>> listPendingApprovals() {
-        List<ApprovalRequest> pending = approvalService.getPendingApprovals();
+    public ResponseEntity<List<ApprovalSummary>> listPendingApprovals() {
+        List<ApprovalSummary> pending = approvalService.getPendingApprovals();
         return ResponseEntity.ok(pending);
     }
     
+    @GetMapping("/{id}")
+    public ResponseEntity<ApprovalRequest> getApproval(@PathVariable String id) {
+        return approvalService.findById(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
     @PostMapping("/{id}/approve")
-    @Transactional
     public ResponseEntity<Map<String, String>> approve(
             @PathVariable String id,
             @RequestParam(required = false, defaultValue = "admin") String approver) {
@@ -53,20 +54,14 @@ class ApprovalController {
             return ResponseEntity.notFound().build();
         }
         
-        ApprovalRequest request = requestOpt.get();
-        request.setStatus(ApprovalRequest.ApprovalStatus.APPROVED);
-        request.setApprovedBy(approver);
-        request.setRespondedAt(Instant.now());
-        approvalRepository.save(request);
-        
-        metricsService.decrementApprovalsPending();
+        ApprovalRequest request = approvalService.respond(requestOpt.get(), 
+            ApprovalRequest.ApprovalStatus.APPROVED, approver);
         
         // Trigger remediation
-        Optional<Incident> incidentOpt = incidentRepository.findById(request.getIncidentId());
+        Optional<Incident> incidentOpt = incidentService.findById(request.getIncidentId());
         if (incidentOpt.isPresent()) {
             Incident incident = incidentOpt.get();
-            incident.setStatus(Incident.IncidentStatus.APPROVED);
-            incidentRepository.save(incident);
+            transition(request, incident, Incident.IncidentStatus.APPROVED, "Approved by " + approver);
             
             // Execute remediation
             var diagnosis = new io.aegisops.agent.analysis.DiagnosisResult();
@@ -87,7 +82,6 @@ class ApprovalController {
     }
     
     @PostMapping("/{id}/reject")
-    @Transactional
     public ResponseEntity<Map<String, String>> reject(
             @PathVariable String id,
             @RequestParam(required = false, defaultValue = "admin") String approver) {
@@ -97,19 +91,12 @@ class ApprovalController {
             return ResponseEntity.notFound().build();
         }
         
-        ApprovalRequest request = requestOpt.get();
-        request.setStatus(ApprovalRequest.ApprovalStatus.REJECTED);
-        request.setApprovedBy(approver);
-        request.setRespondedAt(Instant.now());
-        approvalRepository.save(request);
-        
-        metricsService.decrementApprovalsPending();
+        ApprovalRequest request = approvalService.respond(requestOpt.get(), 
+            ApprovalRequest.ApprovalStatus.REJECTED, approver);
         
         // Update incident status
-        incidentRepository.findById(request.getIncidentId()).ifPresent(incident -> {
-            incident.setStatus(Incident.IncidentStatus.FAILED);
-            incidentRepository.save(incident);
-        });
+        incidentService.findById(request.getIncidentId()).ifPresent(incident -> 
+            transition(request, incident, Incident.IncidentStatus.FAILED, "Rejected by " + approver));
         
         log.info("Approval {} rejected by {}", id, approver);
         
@@ -118,4 +105,25 @@ class ApprovalController {
             "approver", approver
         ));
     }
-}
\ No newline at end of file
+    
+    /**
+     * Applies the answer to the incident. If the incident already left
+     * {@code PENDING_APPROVAL}, the answer no longer applies and the request
+     * is marked expired instead of staying recorded as acted on.
+     */
+    private void transition(ApprovalRequest request, Incident incident, Incident.IncidentStatus to, String reason) {
+        try {
+            incidentService.transition(incident, to, reason);
+        } catch (IllegalStateException e) {
+            approvalService.expire(request);
+            throw e;
+        }
+    }
+    
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalTransition(IllegalStateException e) {
+        // the approval was already answered, or the incident already left PENDING_APPROVAL
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(Map.of("status", "error", "message", String.valueOf(e.getMessage())));
+    }
+}
@@ -0,0 +1,55 @@
+package io.aegisops.agent.controller;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.stream.ChangeStream;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+class StreamController {
+    
+    private final ChangeStream changeStream;
+    
+    @Value("${aegisops.stream.timeout:30m}")
+    private Duration timeout;
+    
+    /**
+     * Server-sent events for incident transitions and approval requests.
+     * Browsers resend {@code Last-Event-ID} on reconnect; other clients may
+     * pass it as {@code lastEventId}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @RequestParam(required = false) String namespace,
+            @RequestParam(required = false) Incident.IncidentStatus status,
+            @RequestParam(required = false) String lastEventId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
+        
+        SseEmitter emitter = changeStream.subscribe(namespace, status, 
+            lastEventIdHeader != null ? lastEventIdHeader : lastEventId, timeout);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .build();
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .header("X-Accel-Buffering", "no")
+            .body(emitter);
+    }
+}
@@ -6,15 +6,24 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import jakarta.persistence.*;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 
 @Entity
-@Table(name = "incidents")
+@Table(name = "incidents", indexes = {
+    @Index(columnList = "createdAt, id"),
+    @Index(columnList = "namespace, status")
+})
+@DynamicUpdate
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Incident {
@@ -33,18 +42,47 @@ public class Incident {
     
     private String deploymentName;
     
+    private String workloadKind;
+    
+    private String workloadName;
+    
+    @ElementCollection
+    @CollectionTable(name = "incident_affected_pods", joinColumns = @JoinColumn(name = "incident_id"))
+    @Column(name = "pod_name")
+    private Set<String> affectedPods;
+    
     @Column(nullable = false)
     private String severity;
     
     @Column(columnDefinition = "TEXT")
     private String description;
     
+    private String fingerprint;
+    
+    private String groupKey;
+    
     @Column(columnDefinition = "TEXT")
+    private String generatorUrl;
+    
+    private Instant startsAt;
+    
+    /** Loaded from the blob store by {@link #podLogsRef}; never stored on the incident itself. */
+    @Transient
     private String podLogs;
     
-    @Column(columnDefinition = "TEXT")
+    /** Loaded from the blob store by {@link #podEventsRef}; never stored on the incident itself. */
+    @Transient
     private String podEvents;
     
+    private String podLogsRef;
+    
+    private String podEventsRef;
+    
+    @Column(columnDefinition = "TEXT")
+    private String podStatus;
+    
+    private String enrichmentGaps;
+    
     @ElementCollection
     @CollectionTable(name = "incident_metrics", joinColumns = @JoinColumn(name = "incident_id"))
     @MapKeyColumn(name = "metric_name")
@@ -54,6 +92,12 @@ public class Incident {
     @Enumerated(EnumType.STRING)
     private IncidentStatus status;
     
+    /** When {@link #status} was entered. */
+    private Instant statusSince;
+    
+    /** Sequence number of the last {@link IncidentTransition} folded into this row. */
+    private long transitionSeq;
+    
     @Column(nullable = false)
     private Instant createdAt;
     
@@ -66,6 +110,25 @@ public class Incident {
     
     private String recommendedAction;
     
+    /**
+     * When the pod status was moved to the cold segment
+     * {@link #archiveSegment}; {@code null} while they are still inline.
+     */
+    private Instant archivedAt;
+    
+    private String archiveSegment;
+    
+    /**
+     * A copy sharing no mutable state with this incident, for handing to a
+     * thread other than the one moving it through the pipeline.
+     */
+    public Incident snapshot() {
+        return toBuilder()
+            .affectedPods(affectedPods != null ? new LinkedHashSet<>(affectedPods) : null)
+            .metrics(metrics != null ? new HashMap<>(metrics) : null)
+            .build();
+    }
+    
     @PrePersist
     protected void onCreate() {
         createdAt = Instant.now();
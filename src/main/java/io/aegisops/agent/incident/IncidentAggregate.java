@@ -0,0 +1,55 @@
+package io.aegisops.agent.incident;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Daily counts of incidents that have passed the retention horizon, per
+ * namespace, alert, severity and final status. What remains of an incident
+ * once its row is deleted.
+ */
+@Entity
+@Table(name = "incident_aggregates", indexes = @Index(columnList = "incident_day"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentAggregate {
+    
+    /** {@code day/namespace/alertName/severity/status}. */
+    @Id
+    private String id;
+    
+    @Column(name = "incident_day")
+    private LocalDate day;
+    
+    private String namespace;
+    
+    private String alertName;
+    
+    private String severity;
+    
+    @Enumerated(EnumType.STRING)
+    private Incident.IncidentStatus status;
+    
+    private long count;
+    
+    /** Sum over the resolved incidents counted here, for mean time to resolve. */
+    private long resolutionSeconds;
+    
+    static String key(LocalDate day, Incident incident) {
+        return String.join("/", day.toString(), incident.getNamespace(), incident.getAlertName(), 
+            incident.getSeverity(), incident.getStatus().name());
+    }
+}
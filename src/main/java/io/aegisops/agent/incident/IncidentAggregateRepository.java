@@ -0,0 +1,13 @@
+package io.aegisops.agent.incident;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.repository.Repository;
+
+interface IncidentAggregateRepository extends Repository<IncidentAggregate, String> {
+    <S extends IncidentAggregate> S save(S aggregate);
+    Optional<IncidentAggregate> findById(String id);
+    List<IncidentAggregate> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,140 @@
+package io.aegisops.agent.incident;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cold tier for incident pod status. Logs and events already live in the
+ * blob store. Each retention batch writes the pod status of its incidents
+ * into one new Deflate-compressed segment file; incidents from the same
+ * storm compress far better together than one by one. Segments are
+ * immutable and named after the newest incident they hold, so whole files
+ * are deleted once that incident falls behind the retention horizon.
+ */
+@Component
+@Slf4j
+class IncidentArchive {
+    
+    private static final String SUFFIX = ".cold";
+    private static final TypeReference<Map<String, ArchivedStatus>> SEGMENT = new TypeReference<>() {};
+    
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    
+    IncidentArchive(ObjectMapper objectMapper,
+                    @Value("${aegisops.retention.cold-directory:data/cold}") Path directory) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+    }
+    
+    /**
+     * Writes the incidents' pod status to a new segment and clears it from
+     * the incidents, which the caller then saves. The segment is on disk
+     * before this returns, so a crash can only leave a status archived twice.
+     */
+    void archive(List<Incident> incidents, Instant now) {
+        Map<String, ArchivedStatus> statuses = new LinkedHashMap<>();
+        for (Incident incident : incidents) {
+            statuses.put(incident.getId(), new ArchivedStatus(incident.getPodStatus()));
+        }
+        Instant newest = incidents.stream().map(Incident::getCreatedAt).max(Comparator.naturalOrder()).orElseThrow();
+        String segment = "%013d-%s%s".formatted(newest.toEpochMilli(), UUID.randomUUID(), SUFFIX);
+        
+        try {
+            Files.createDirectories(directory);
+            Path temp = directory.resolve(segment + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, 
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                DeflaterOutputStream out = new DeflaterOutputStream(Channels.newOutputStream(channel), 
+                    new Deflater(Deflater.DEFAULT_COMPRESSION), 8192);
+                objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, statuses);
+                out.finish();
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(segment), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cold segment " + segment, e);
+        }
+        
+        for (Incident incident : incidents) {
+            incident.setPodStatus(null);
+            incident.setArchivedAt(now);
+            incident.setArchiveSegment(segment);
+        }
+    }
+    
+    /**
+     * Puts an archived incident's pod status back on the instance for
+     * display. The incident is not saved; it stays archived.
+     */
+    Incident restore(Incident incident) {
+        if (incident.getArchiveSegment() == null) {
+            return incident;
+        }
+        Path file = directory.resolve(incident.getArchiveSegment());
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(file), new Inflater(), 8192)) {
+            ArchivedStatus archived = objectMapper.readValue(in, SEGMENT).get(incident.getId());
+            if (archived != null) {
+                incident.setPodStatus(archived.podStatus());
+            }
+        } catch (IOException e) {
+            log.warn("Cannot restore archived pod status of incident {} from {}: {}", 
+                incident.getId(), file, e.getMessage());
+        }
+        return incident;
+    }
+    
+    /**
+     * Deletes segments whose newest incident was created before {@code horizon}.
+     *
+     * @return the number of segments deleted
+     */
+    int expire(Instant horizon) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> segments = Files.list(directory)) {
+            for (Path segment : segments.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                long newest = Long.parseLong(segment.getFileName().toString().substring(0, 13));
+                if (newest < horizon.toEpochMilli()) {
+                    Files.deleteIfExists(segment);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot expire cold segments in " + directory, e);
+        }
+        return deleted;
+    }
+    
+    record ArchivedStatus(String podStatus) {
+    }
+}
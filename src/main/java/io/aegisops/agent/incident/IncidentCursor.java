@@ -0,0 +1,37 @@
+package io.aegisops.agent.incident;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in an incident listing: the {@code (createdAt, id)} of the
+ * last row on the previous page. Sent to clients as an opaque URL-safe token.
+ */
+public record IncidentCursor(Instant createdAt, String id) {
+    
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static IncidentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int dot = raw.indexOf('.');
+            int colon = raw.indexOf(':', dot + 1);
+            if (dot < 0 || colon < 0 || colon == raw.length() - 1) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            Instant createdAt = Instant.ofEpochSecond(
+                Long.parseLong(raw.substring(0, dot)), Long.parseLong(raw.substring(dot + 1, colon)));
+            return new IncidentCursor(createdAt, raw.substring(colon + 1));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
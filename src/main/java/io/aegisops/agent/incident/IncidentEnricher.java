@@ -0,0 +1,149 @@
+package io.aegisops.agent.incident;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.aegisops.agent.kubernetes.EventService;
+import io.aegisops.agent.kubernetes.LogLimits;
+import io.aegisops.agent.kubernetes.LogService;
+import io.aegisops.agent.kubernetes.PodService;
+import io.aegisops.agent.metrics.MetricsService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fetches the diagnostic context for an incident. All sources are requested
+ * at once on virtual threads under a single per-incident deadline. Whatever
+ * has arrived by then is attached; sources that timed out or failed are
+ * listed in {@link Incident#getEnrichmentGaps()} so diagnosis knows what it
+ * is missing, and their threads are interrupted so slow calls to the API
+ * server do not pile up behind the deadline.
+ */
+@Component
+@Slf4j
+class IncidentEnricher {
+    
+    static final String LOGS = "logs";
+    static final String EVENTS = "events";
+    static final String POD_STATUS = "podStatus";
+    
+    private final LogService logService;
+    private final EventService eventService;
+    private final PodService podService;
+    private final MetricsService metricsService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    @Value("${aegisops.enrichment.deadline:5s}")
+    private Duration deadline;
+    
+    @Value("${aegisops.enrichment.log-lines:100}")
+    private int logLines;
+    
+    @Value("${aegisops.enrichment.log-bytes:64KB}")
+    private DataSize logBytes;
+    
+    @Value("${aegisops.enrichment.log-line-bytes:4KB}")
+    private DataSize logLineBytes;
+    
+    @Value("${aegisops.enrichment.previous-logs:true}")
+    private boolean previousLogs;
+    
+    IncidentEnricher(LogService logService, EventService eventService, PodService podService,
+                     MetricsService metricsService) {
+        this.logService = logService;
+        this.eventService = eventService;
+        this.podService = podService;
+        this.metricsService = metricsService;
+    }
+    
+    void enrich(Incident incident) {
+        if (incident.getPodName() == null) {
+            return;
+        }
+        String namespace = incident.getNamespace();
+        String podName = incident.getPodName();
+        
+        LogLimits limits = new LogLimits(logLines, Math.toIntExact(logBytes.toBytes()), 
+            Math.toIntExact(logLineBytes.toBytes()), previousLogs);
+        
+        Map<String, Source> sources = new LinkedHashMap<>();
+        sources.put(LOGS, start(LOGS, () -> logService.readPodLogs(namespace, podName, limits).format(), 
+            Incident::setPodLogs));
+        sources.put(EVENTS, start(EVENTS, () -> eventService.getPodEvents(namespace, podName), Incident::setPodEvents));
+        sources.put(POD_STATUS, start(POD_STATUS, () -> podService.describePodStatus(namespace, podName), 
+            Incident::setPodStatus));
+        
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        List<String> gaps = new ArrayList<>();
+        for (Map.Entry<String, Source> entry : sources.entrySet()) {
+            Source source = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+                String value = source.future().get(remaining, TimeUnit.NANOSECONDS);
+                source.apply().accept(incident, value);
+            } catch (TimeoutException e) {
+                source.timedOut().set(true);
+                source.future().cancel(true);
+                metricsService.recordEnrichmentLatency(entry.getKey(), "timeout", System.nanoTime() - source.startedAt());
+                gaps.add(entry.getKey());
+            } catch (ExecutionException e) {
+                log.warn("Enrichment source {} failed for pod {}/{}: {}", 
+                    entry.getKey(), namespace, podName, e.getCause().getMessage());
+                gaps.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                gaps.add(entry.getKey());
+            }
+        }
+        
+        if (!gaps.isEmpty()) {
+            incident.setEnrichmentGaps(String.join(",", gaps));
+            log.warn("Incident {} enrichment incomplete after {}: missing {}", incident.getId(), deadline, gaps);
+        }
+    }
+    
+    private Source start(String name, Supplier<String> fetch, BiConsumer<Incident, String> apply) {
+        long startedAt = System.nanoTime();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        // submit() rather than CompletableFuture, whose cancel does not interrupt the task
+        Future<String> future = executor.submit(() -> {
+            String outcome = "error";
+            try {
+                String value = fetch.get();
+                outcome = "ok";
+                return value;
+            } finally {
+                // a source cut off at the deadline was already recorded as a timeout
+                if (!timedOut.get()) {
+                    metricsService.recordEnrichmentLatency(name, outcome, System.nanoTime() - startedAt);
+                }
+            }
+        });
+        return new Source(future, apply, startedAt, timedOut);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private record Source(Future<String> future, BiConsumer<Incident, String> apply, long startedAt, 
+                          AtomicBoolean timedOut) {
+    }
+}
@@ -0,0 +1,53 @@
+package io.aegisops.agent.incident;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.aegisops.agent.incident.Incident.IncidentStatus;
+
+/**
+ * The incident state machine. Every status change goes through
+ * {@link #requireAllowed}; anything not listed here is rejected.
+ *
+ * <pre>
+ * NEW -> ANALYZING -> PENDING_APPROVAL -> APPROVED -> REMEDIATING -> RESOLVED
+ *                  \------------------------------/
+ * any non-terminal state -> FAILED
+ * </pre>
+ */
+final class IncidentLifecycle {
+    
+    static final Set<IncidentStatus> TERMINAL = EnumSet.of(IncidentStatus.RESOLVED, IncidentStatus.FAILED);
+    
+    private static final Map<IncidentStatus, Set<IncidentStatus>> ALLOWED = new EnumMap<>(IncidentStatus.class);
+    
+    static {
+        ALLOWED.put(IncidentStatus.NEW, EnumSet.of(IncidentStatus.ANALYZING, IncidentStatus.FAILED));
+        ALLOWED.put(IncidentStatus.ANALYZING, EnumSet.of(
+            IncidentStatus.PENDING_APPROVAL, IncidentStatus.REMEDIATING, IncidentStatus.FAILED));
+        ALLOWED.put(IncidentStatus.PENDING_APPROVAL, EnumSet.of(IncidentStatus.APPROVED, IncidentStatus.FAILED));
+        ALLOWED.put(IncidentStatus.APPROVED, EnumSet.of(IncidentStatus.REMEDIATING, IncidentStatus.FAILED));
+        ALLOWED.put(IncidentStatus.REMEDIATING, EnumSet.of(IncidentStatus.RESOLVED, IncidentStatus.FAILED));
+        ALLOWED.put(IncidentStatus.RESOLVED, EnumSet.noneOf(IncidentStatus.class));
+        ALLOWED.put(IncidentStatus.FAILED, EnumSet.noneOf(IncidentStatus.class));
+    }
+    
+    private IncidentLifecycle() {
+    }
+    
+    static boolean isAllowed(IncidentStatus from, IncidentStatus to) {
+        return from != null && ALLOWED.get(from).contains(to);
+    }
+    
+    static void requireAllowed(IncidentStatus from, IncidentStatus to) {
+        if (!isAllowed(from, to)) {
+            throw new IllegalStateException("Illegal incident transition " + from + " -> " + to);
+        }
+    }
+    
+    static boolean isTerminal(IncidentStatus status) {
+        return TERMINAL.contains(status);
+    }
+}
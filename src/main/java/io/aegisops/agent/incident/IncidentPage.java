@@ -0,0 +1,66 @@
+package io.aegisops.agent.incident;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * One page of an incident listing. {@code nextCursor} is {@code null} on the
+ * last page.
+ */
+public record IncidentPage(List<IncidentSummary> items, String nextCursor) {
+    
+    /**
+     * Weak validator over the page content, cheap enough to compute on every
+     * poll so unchanged pages can be answered with 304. It is a SHA-256 over
+     * a text encoding of every row and the cursor, so it is the same on
+     * every replica and across restarts.
+     */
+    public String etag() {
+        MessageDigest digest = sha256();
+        for (IncidentSummary item : items) {
+            update(digest, item.id());
+            update(digest, item.alertName());
+            update(digest, item.namespace());
+            update(digest, item.podName());
+            update(digest, item.workloadKind());
+            update(digest, item.workloadName());
+            update(digest, item.severity());
+            update(digest, item.status() != null ? item.status().name() : null);
+            update(digest, item.statusSince());
+            update(digest, item.createdAt());
+            update(digest, item.resolvedAt());
+            update(digest, item.diagnosisConfidence());
+            update(digest, item.recommendedAction());
+        }
+        update(digest, nextCursor);
+        return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+    
+    /**
+     * Length-prefixed, so adjacent fields cannot run into each other, and
+     * {@code null} is told apart from an empty value.
+     */
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(new byte[] {
+            (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16), (byte) (bytes.length >>> 8), (byte) bytes.length
+        });
+        digest.update(bytes);
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.aegisops.agent.incident;
+
+import java.time.Instant;
+
+/**
+ * Filters and paging for an incident listing. Every filter is optional;
+ * {@code from} is inclusive and {@code to} exclusive, both on
+ * {@code createdAt}.
+ */
+public record IncidentQuery(
+    String namespace,
+    Incident.IncidentStatus status,
+    String severity,
+    String alertName,
+    Instant from,
+    Instant to,
+    boolean ascending,
+    int limit,
+    IncidentCursor after
+) {
+}
@@ -0,0 +1,65 @@
+package io.aegisops.agent.incident;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.alert.AlertDeduplicator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks up incidents a previous instance left unfinished. On startup every
+ * non-terminal incident is registered with the deduplicator again, so
+ * resends of its alert do not open a second incident, and all but those
+ * waiting for approval are handed back to the pipeline at the stage their
+ * persisted status points to. It runs ahead of the other startup listeners,
+ * in particular before the alert journal is replayed, so a journaled resend
+ * of an open incident's alert finds it registered.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class IncidentRecovery {
+    
+    private final IncidentRepository incidentRepository;
+    private final IncidentService incidentService;
+    private final AlertDeduplicator alertDeduplicator;
+    
+    @Value("${aegisops.recovery.enabled:true}")
+    private boolean enabled;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        
+        List<Incident> open = incidentRepository.findByStatusIn(OpenIncidentIndex.OPEN);
+        int resumed = 0;
+        for (Incident incident : open) {
+            if (incident.getFingerprint() != null) {
+                alertDeduplicator.findOrRegister(incident);
+            }
+            if (incident.getStatus() == Incident.IncidentStatus.PENDING_APPROVAL) {
+                continue;
+            }
+            try {
+                incidentService.resume(incident);
+                resumed++;
+            } catch (Exception e) {
+                log.error("Failed to resume incident {} from {}", incident.getId(), incident.getStatus(), e);
+            }
+        }
+        
+        if (!open.isEmpty()) {
+            log.info("Recovered {} open incidents, resumed {} in the pipeline", open.size(), resumed);
+        }
+    }
+}
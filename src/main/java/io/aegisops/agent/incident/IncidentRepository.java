@@ -1,13 +1,109 @@
 package io.aegisops.agent.incident;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
-@Repository
-public interface IncidentRepository extends JpaRepository<Incident, String> {
-    List<Incident> findByNamespace(String namespace);
-    List<Incident> findByStatus(Incident.IncidentStatus status);
-    List<Incident> findByNamespaceAndStatus(String namespace, Incident.IncidentStatus status);
+/**
+ * Incident persistence. Spring Data implements it over JPA; with
+ * {@code aegisops.storage.backend=local}, {@link LocalIncidentRepository}
+ * does instead, so only operations both can serve belong here.
+ */
+public interface IncidentRepository extends Repository<Incident, String> {
+    <S extends Incident> S save(S incident);
+    <S extends Incident> List<S> saveAll(Iterable<S> incidents);
+    Optional<Incident> findById(String id);
+    void deleteById(String id);
+    
+    @EntityGraph(attributePaths = {"affectedPods", "metrics"})
+    List<Incident> findByStatusIn(Collection<Incident.IncidentStatus> statuses);
+    
+    /**
+     * Oldest-first page of summaries after the keyset {@code (afterCreatedAt, afterId)};
+     * pass {@code null} for both to start from the beginning.
+     */
+    @Query(SUMMARY_SELECT + SUMMARY_FILTER + """
+        and (:afterCreatedAt is null or i.createdAt > :afterCreatedAt
+             or (i.createdAt = :afterCreatedAt and i.id > :afterId))
+        order by i.createdAt asc, i.id asc
+        """)
+    List<IncidentSummary> findSummariesAscending(
+        @Param("namespace") String namespace,
+        @Param("status") Incident.IncidentStatus status,
+        @Param("severity") String severity,
+        @Param("alertName") String alertName,
+        @Param("from") Instant from,
+        @Param("to") Instant to,
+        @Param("afterCreatedAt") Instant afterCreatedAt,
+        @Param("afterId") String afterId,
+        Limit limit);
+    
+    /**
+     * Newest-first counterpart of {@link #findSummariesAscending}.
+     */
+    @Query(SUMMARY_SELECT + SUMMARY_FILTER + """
+        and (:afterCreatedAt is null or i.createdAt < :afterCreatedAt
+             or (i.createdAt = :afterCreatedAt and i.id < :afterId))
+        order by i.createdAt desc, i.id desc
+        """)
+    List<IncidentSummary> findSummariesDescending(
+        @Param("namespace") String namespace,
+        @Param("status") Incident.IncidentStatus status,
+        @Param("severity") String severity,
+        @Param("alertName") String alertName,
+        @Param("from") Instant from,
+        @Param("to") Instant to,
+        @Param("afterCreatedAt") Instant afterCreatedAt,
+        @Param("afterId") String afterId,
+        Limit limit);
+    
+    /**
+     * Oldest incidents in {@code statuses} created before {@code before}
+     * whose blobs are still inline.
+     */
+    @Query("""
+        select i from Incident i
+        where i.status in :statuses and i.createdAt < :before and i.archivedAt is null
+        order by i.createdAt asc
+        """)
+    List<Incident> findArchiveCandidates(
+        @Param("statuses") Collection<Incident.IncidentStatus> statuses,
+        @Param("before") Instant before,
+        Limit limit);
+    
+    /**
+     * Oldest incidents in {@code statuses} created before {@code before}.
+     */
+    @Query("""
+        select i from Incident i
+        where i.status in :statuses and i.createdAt < :before
+        order by i.createdAt asc
+        """)
+    List<Incident> findExpired(
+        @Param("statuses") Collection<Incident.IncidentStatus> statuses,
+        @Param("before") Instant before,
+        Limit limit);
+    
+    String SUMMARY_SELECT = """
+        select new io.aegisops.agent.incident.IncidentSummary(
+            i.id, i.alertName, i.namespace, i.podName, i.workloadKind, i.workloadName, i.severity,
+            i.status, i.statusSince, i.createdAt, i.resolvedAt, i.diagnosisConfidence, i.recommendedAction)
+        from Incident i
+        """;
+    
+    String SUMMARY_FILTER = """
+        where (:namespace is null or i.namespace = :namespace)
+        and (:status is null or i.status = :status)
+        and (:severity is null or i.severity = :severity)
+        and (:alertName is null or i.alertName = :alertName)
+        and (:from is null or i.createdAt >= :from)
+        and (:to is null or i.createdAt < :to)
+        """;
 }
@@ -0,0 +1,151 @@
+package io.aegisops.agent.incident;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.pipeline.IncidentPipeline;
+import io.aegisops.agent.store.BlobStore;
+import io.aegisops.agent.store.LocalStore;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves finished incidents through three retention tiers:
+ * <ul>
+ * <li>younger than {@code aegisops.retention.cold-after}: untouched;</li>
+ * <li>older: pod status goes to the {@link IncidentArchive}, metadata,
+ * root cause and action stay on the incident;</li>
+ * <li>older than {@code aegisops.retention.horizon}: counted into an
+ * {@link IncidentAggregate} and deleted with their transitions. Logs and
+ * events nobody has stored since then leave the {@link BlobStore}. Audit
+ * entries are kept.</li>
+ * </ul>
+ * Each tick handles at most one batch per tier and a bounded slice of
+ * local store compaction, and is skipped entirely while the pipeline has
+ * queued work, so retention only ever uses idle time. A crash between
+ * counting and deleting an expired batch counts it twice; the aggregates
+ * are for trends, not accounting.
+ */
+@Component
+@Slf4j
+class IncidentRetention {
+    
+    private final IncidentRepository incidentRepository;
+    private final IncidentTransitionRepository transitionRepository;
+    private final IncidentAggregateRepository aggregateRepository;
+    private final IncidentArchive archive;
+    private final BlobStore blobStore;
+    private final IncidentPipeline pipeline;
+    private final ObjectProvider<LocalStore> localStore;
+    private final MetricsService metricsService;
+    
+    @Value("${aegisops.retention.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${aegisops.retention.cold-after:7d}")
+    private Duration coldAfter;
+    
+    @Value("${aegisops.retention.horizon:90d}")
+    private Duration horizon;
+    
+    @Value("${aegisops.retention.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${aegisops.retention.max-pipeline-backlog:0}")
+    private int maxPipelineBacklog;
+    
+    IncidentRetention(IncidentRepository incidentRepository, IncidentTransitionRepository transitionRepository,
+                      IncidentAggregateRepository aggregateRepository, IncidentArchive archive, 
+                      BlobStore blobStore, IncidentPipeline pipeline, ObjectProvider<LocalStore> localStore, MetricsService metricsService) {
+        this.incidentRepository = incidentRepository;
+        this.transitionRepository = transitionRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.archive = archive;
+        this.blobStore = blobStore;
+        this.pipeline = pipeline;
+        this.localStore = localStore;
+        this.metricsService = metricsService;
+    }
+    
+    @Scheduled(fixedDelayString = "${aegisops.retention.interval:10s}", 
+               initialDelayString = "${aegisops.retention.interval:10s}")
+    void run() {
+        if (!enabled || pipeline.backlog() > maxPipelineBacklog) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            archive(now);
+            expire(now);
+            localStore.ifAvailable(store -> store.compact(batchSize * 20));
+        } catch (RuntimeException e) {
+            log.warn("Retention pass failed", e);
+        }
+    }
+    
+    void archive(Instant now) {
+        List<Incident> incidents = incidentRepository.findArchiveCandidates(IncidentLifecycle.TERMINAL, 
+            now.minus(coldAfter), Limit.of(batchSize));
+        if (incidents.isEmpty()) {
+            return;
+        }
+        archive.archive(incidents, now);
+        incidentRepository.saveAll(incidents);
+        metricsService.incrementRetention("cold", incidents.size());
+        log.debug("Archived pod status of {} incidents", incidents.size());
+    }
+    
+    void expire(Instant now) {
+        Instant before = now.minus(horizon);
+        List<Incident> incidents = incidentRepository.findExpired(IncidentLifecycle.TERMINAL, before, 
+            Limit.of(batchSize));
+        if (!incidents.isEmpty()) {
+            Map<String, IncidentAggregate> aggregates = new LinkedHashMap<>();
+            for (Incident incident : incidents) {
+                LocalDate day = incident.getCreatedAt().atZone(ZoneOffset.UTC).toLocalDate();
+                IncidentAggregate aggregate = aggregates.computeIfAbsent(IncidentAggregate.key(day, incident), id -> 
+                    aggregateRepository.findById(id).orElseGet(() -> newAggregate(id, day, incident)));
+                aggregate.setCount(aggregate.getCount() + 1);
+                if (incident.getResolvedAt() != null) {
+                    aggregate.setResolutionSeconds(aggregate.getResolutionSeconds() 
+                        + Duration.between(incident.getCreatedAt(), incident.getResolvedAt()).toSeconds());
+                }
+            }
+            aggregates.values().forEach(aggregateRepository::save);
+            
+            for (Incident incident : incidents) {
+                transitionRepository.deleteByIncidentId(incident.getId());
+                incidentRepository.deleteById(incident.getId());
+            }
+            metricsService.incrementRetention("expired", incidents.size());
+            log.debug("Rolled {} expired incidents into {} aggregates", incidents.size(), aggregates.size());
+        }
+        archive.expire(before);
+        int blobs = blobStore.expire(before);
+        if (blobs > 0) {
+            metricsService.incrementRetention("blobs", blobs);
+        }
+    }
+    
+    private static IncidentAggregate newAggregate(String id, LocalDate day, Incident incident) {
+        return IncidentAggregate.builder()
+            .id(id)
+            .day(day)
+            .namespace(incident.getNamespace())
+            .alertName(incident.getAlertName())
+            .severity(incident.getSeverity())
+            .status(incident.getStatus())
+            .build();
+    }
+}
@@ -1,23 +1,30 @@
 package io.aegisops.agent.incident;
 
+import java.io.InterruptedIOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import io.aegisops.agent.analysis.DiagnosisEngine;
 import io.aegisops.agent.analysis.DiagnosisResult;
 import io.aegisops.agent.approval.ApprovalService;
 import io.aegisops.agent.audit.AuditService;
-import io.aegisops.agent.kubernetes.EventService;
-import io.aegisops.agent.kubernetes.LogService;
 import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.pipeline.IncidentPipeline;
 import io.aegisops.agent.remediation.ActionExecutor;
 import io.aegisops.agent.remediation.RemediationResult;
+import io.aegisops.agent.store.BlobStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,13 +34,20 @@ import lombok.extern.slf4j.Slf4j;
 public class IncidentService {
     
     private final IncidentRepository incidentRepository;
-    private final LogService logService;
-    private final EventService eventService;
+    private final IncidentWriter incidentWriter;
+    private final IncidentTransitionRepository transitionRepository;
+    private final IncidentAggregateRepository aggregateRepository;
+    private final IncidentArchive incidentArchive;
+    private final BlobStore blobStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OpenIncidentIndex openIncidentIndex;
+    private final IncidentEnricher incidentEnricher;
     private final DiagnosisEngine diagnosisEngine;
     private final ApprovalService approvalService;
     private final ActionExecutor actionExecutor;
     private final AuditService auditService;
     private final MetricsService metricsService;
+    private final IncidentPipeline pipeline;
     
     @Value("${aegisops.safety.require-approval}")
     private boolean requireApproval;
@@ -41,124 +55,337 @@ public class IncidentService {
     @Value("${aegisops.safety.dry-run}")
     private boolean dryRun;
     
-    @Async
-    @Transactional
+    /**
+     * Hands a new incident to the pipeline. Blocks only while the ingest
+     * stage's queue is full.
+     */
     public void processIncident(Incident incident) {
+        processIncident(incident, () -> { });
+    }
+    
+    /**
+     * Like {@link #processIncident(Incident)}, running {@code onPersisted}
+     * once the incident row has been created. It never runs if the create
+     * fails or the pipeline rejects the incident.
+     */
+    public void processIncident(Incident incident, Runnable onPersisted) {
+        pipeline.getIngest().submit(() -> ingest(incident, onPersisted));
+    }
+    
+    private void ingest(Incident incident, Runnable onPersisted) {
         try {
             // Save initial incident
-            incident = incidentRepository.save(incident);
-            log.info("Created incident: {}", incident.getId());
-            
+            Instant now = Instant.now();
+            incident.setStatus(Incident.IncidentStatus.NEW);
+            incident.setStatusSince(now);
+            incident.setTransitionSeq(1);
+            Incident saved = incidentWriter.create(incident);
+            onPersisted.run();
+            IncidentTransition created = IncidentTransition.builder()
+                .incidentId(saved.getId())
+                .sequence(1)
+                .toStatus(Incident.IncidentStatus.NEW)
+                .occurredAt(now)
+                .reason(saved.getAlertName())
+                .build();
+            incidentWriter.append(created);
+            eventPublisher.publishEvent(new IncidentTransitionedEvent(saved, created));
+            log.info("Created incident: {}", saved.getId());
+            pipeline.getEnrich().submit(() -> enrich(saved));
+        } catch (Exception e) {
+            fail(incident, e);
+        }
+    }
+    
+    private void enrich(Incident incident) {
+        try {
             // Enrich with K8s data
-            enrichIncidentData(incident);
-            incident.setStatus(Incident.IncidentStatus.ANALYZING);
-            incident = incidentRepository.save(incident);
-            
-            // Diagnose
+            incidentEnricher.enrich(incident);
+            incident.setPodLogsRef(blobStore.put(incident.getPodLogs()));
+            incident.setPodEventsRef(blobStore.put(incident.getPodEvents()));
+            transition(incident, Incident.IncidentStatus.ANALYZING, enrichmentReason(incident));
+            pipeline.getDiagnose().submit(() -> diagnose(incident));
+        } catch (Exception e) {
+            fail(incident, e);
+        }
+    }
+    
+    private void diagnose(Incident incident) {
+        try {
             DiagnosisResult diagnosis = diagnosisEngine.diagnose(incident);
             incident.setRootCause(diagnosis.getRootCause());
             incident.setDiagnosisConfidence(diagnosis.getConfidence());
             incident.setRecommendedAction(diagnosis.getRecommendedAction());
-            incident = incidentRepository.save(incident);
+            incidentWriter.update(incident);
             
             log.info("Diagnosis complete - Confidence: {}, Action: {}", 
                 diagnosis.getConfidence(), diagnosis.getRecommendedAction());
             
+            pipeline.getDecide().submit(() -> decide(incident, diagnosis));
+        } catch (Exception e) {
+            fail(incident, e);
+        }
+    }
+    
+    private void decide(Incident incident, DiagnosisResult diagnosis) {
+        try {
             // Safety check
             if (!diagnosis.isSafe()) {
                 log.warn("Unsafe diagnosis, manual intervention required");
-                incident.setStatus(Incident.IncidentStatus.FAILED);
-                incidentRepository.save(incident);
+                transition(incident, Incident.IncidentStatus.FAILED, "Unsafe diagnosis, manual intervention required");
                 return;
             }
             
             // Handle approval workflow
             if (requireApproval && !dryRun) {
-                incident.setStatus(Incident.IncidentStatus.PENDING_APPROVAL);
-                incident = incidentRepository.save(incident);
+                transition(incident, Incident.IncidentStatus.PENDING_APPROVAL, diagnosis.getRecommendedAction());
                 
                 approvalService.requestApproval(incident, diagnosis);
                 log.info("Approval requested for incident: {}", incident.getId());
                 return;
             }
             
-            // Execute remediation
             executeRemediation(incident, diagnosis);
+        } catch (Exception e) {
+            fail(incident, e);
+        }
+    }
+    
+    /**
+     * Queues the incident for remediation, either straight from the decide
+     * stage or after an operator approved it. Remediations on the same
+     * workload run one after another so they never act on each other's
+     * half-applied changes. One left queued behind a remediation the stage
+     * refused is failed like any other error.
+     */
+    public void executeRemediation(Incident incident, DiagnosisResult diagnosis) {
+        pipeline.getRemediateByWorkload().submit(workloadKey(incident), () -> remediate(incident, diagnosis), 
+            e -> fail(incident, e));
+    }
+    
+    private static String workloadKey(Incident incident) {
+        String workload = incident.getWorkloadName() != null ? incident.getWorkloadName() : incident.getPodName();
+        return incident.getNamespace() + "/" + workload;
+    }
+    
+    private void remediate(Incident incident, DiagnosisResult diagnosis) {
+        try {
+            if (incident.getStatus() != Incident.IncidentStatus.REMEDIATING) {
+                transition(incident, Incident.IncidentStatus.REMEDIATING, diagnosis.getRecommendedAction());
+            } else {
+                // resumed after a restart; ActionExecutor skips the action if it already landed
+                log.info("Resuming remediation of incident {}", incident.getId());
+            }
+            
+            long startTime = System.currentTimeMillis();
+            
+            RemediationResult result = actionExecutor.executeAction(
+                incident, 
+                diagnosis.getRecommendedAction(),
+                dryRun
+            );
             
+            pipeline.getVerify().submit(() -> verify(incident, diagnosis, result, startTime));
         } catch (Exception e) {
-            log.error("Error processing incident: {}", incident.getId(), e);
-            incident.setStatus(Incident.IncidentStatus.FAILED);
-            incidentRepository.save(incident);
-            metricsService.incrementActionsFailed();
+            fail(incident, e);
         }
     }
     
-    private void enrichIncidentData(Incident incident) {
-        if (incident.getPodName() != null) {
-            try {
-                String logs = logService.getPodLogs(incident.getNamespace(), incident.getPodName(), 100);
-                incident.setPodLogs(logs);
-                
-                String events = eventService.getPodEvents(incident.getNamespace(), incident.getPodName());
-                incident.setPodEvents(events);
-                
-                log.debug("Enriched incident {} with {} log lines", incident.getId(), 
-                    logs != null ? logs.split("\n").length : 0);
-            } catch (Exception e) {
-                log.warn("Failed to enrich incident data: {}", e.getMessage());
+    private void verify(Incident incident, DiagnosisResult diagnosis, RemediationResult result, long startTime) {
+        try {
+            long mttr = System.currentTimeMillis() - startTime;
+            
+            if (result.isSuccess()) {
+                incident.setResolvedAt(Instant.now());
+                transition(incident, Incident.IncidentStatus.RESOLVED, result.getMessage());
+                metricsService.recordMTTR(mttr);
+                metricsService.incrementActionsSuccess();
+                log.info("Incident {} resolved in {}ms", incident.getId(), mttr);
+            } else {
+                transition(incident, Incident.IncidentStatus.FAILED, result.getErrorMessage());
+                metricsService.incrementActionsFailed();
+                log.error("Failed to remediate incident {}: {}", incident.getId(), result.getErrorMessage());
             }
+            
+            auditService.logAction(incident, diagnosis, result);
+        } catch (Exception e) {
+            fail(incident, e);
         }
     }
     
-    @Transactional
-    public void executeRemediation(Incident incident, DiagnosisResult diagnosis) {
-        incident.setStatus(Incident.IncidentStatus.REMEDIATING);
-        incident = incidentRepository.save(incident);
-        
-        long startTime = System.currentTimeMillis();
-        
-        RemediationResult result = actionExecutor.executeAction(
-            incident, 
-            diagnosis.getRecommendedAction(),
-            dryRun
-        );
+    /**
+     * Moves the incident to {@code FAILED} unless the error only means the
+     * pipeline is shutting down: the stage was interrupted after missing the
+     * drain deadline, or the next stage refused the incident. Those
+     * incidents keep their last status and recovery resumes them on the
+     * next start.
+     */
+    private void fail(Incident incident, Exception e) {
+        if (stoppedByShutdown(e)) {
+            log.info("Incident {} stopped by shutdown in {}, leaving it for recovery", 
+                incident.getId(), incident.getStatus());
+            return;
+        }
+        log.error("Error processing incident: {}", incident.getId(), e);
+        try {
+            if (!IncidentLifecycle.isTerminal(incident.getStatus())) {
+                transition(incident, Incident.IncidentStatus.FAILED, e.getMessage());
+            }
+        } catch (Exception saveError) {
+            log.error("Failed to mark incident {} as failed", incident.getId(), saveError);
+        }
+        metricsService.incrementActionsFailed();
+    }
+    
+    private boolean stoppedByShutdown(Exception e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return e instanceof RejectedExecutionException && !pipeline.isAccepting();
+    }
+    
+    /**
+     * Re-enters an incident loaded after a restart at the stage its persisted
+     * status says it reached. Incidents waiting for approval stay where they
+     * are.
+     */
+    void resume(Incident incident) {
+        switch (incident.getStatus()) {
+            case NEW -> pipeline.getEnrich().submit(() -> enrich(incident));
+            case ANALYZING -> pipeline.getDiagnose().submit(() -> diagnose(loadBlobs(incident)));
+            case APPROVED, REMEDIATING -> {
+                if (incident.getRecommendedAction() == null) {
+                    transition(incident, Incident.IncidentStatus.FAILED, "No recorded action to resume");
+                    return;
+                }
+                executeRemediation(incident, DiagnosisResult.builder()
+                    .rootCause(incident.getRootCause())
+                    .confidence(incident.getDiagnosisConfidence())
+                    .recommendedAction(incident.getRecommendedAction())
+                    .reasoning("Resumed after restart")
+                    .safe(true)
+                    .source("RECOVERY")
+                    .build());
+            }
+            default -> log.debug("Incident {} in {} needs no recovery", incident.getId(), incident.getStatus());
+        }
+    }
+    
+    /**
+     * Moves the incident to {@code to} if the lifecycle allows it, appends
+     * the transition and publishes an {@link IncidentTransitionedEvent}.
+     *
+     * @throws IllegalStateException if the transition is not allowed
+     */
+    public void transition(Incident incident, Incident.IncidentStatus to, String reason) {
+        Incident.IncidentStatus from = incident.getStatus();
+        IncidentLifecycle.requireAllowed(from, to);
         
-        long mttr = System.currentTimeMillis() - startTime;
+        Instant now = Instant.now();
+        IncidentTransition transition = IncidentTransition.builder()
+            .incidentId(incident.getId())
+            .sequence(incident.getTransitionSeq() + 1)
+            .fromStatus(from)
+            .toStatus(to)
+            .occurredAt(now)
+            .reason(reason)
+            .build();
+        if (incident.getStatusSince() != null) {
+            metricsService.recordStateDwell(from.name(), Duration.between(incident.getStatusSince(), now));
+        }
         
-        if (result.isSuccess()) {
-            incident.setStatus(Incident.IncidentStatus.RESOLVED);
-            incident.setResolvedAt(Instant.now());
-            metricsService.recordMTTR(mttr);
-            metricsService.incrementActionsSuccess();
-            log.info("Incident {} resolved in {}ms", incident.getId(), mttr);
-        } else {
-            incident.setStatus(Incident.IncidentStatus.FAILED);
-            metricsService.incrementActionsFailed();
-            log.error("Failed to remediate incident {}: {}", incident.getId(), result.getErrorMessage());
+        incident.setStatus(to);
+        incident.setStatusSince(now);
+        incident.setTransitionSeq(transition.getSequence());
+        incidentWriter.transition(incident, transition);
+        eventPublisher.publishEvent(new IncidentTransitionedEvent(incident, transition));
+    }
+    
+    public Optional<IncidentTimeline> getTimeline(String id) {
+        Map<Long, IncidentTransition> bySequence = new TreeMap<>();
+        transitionRepository.findByIncidentIdOrderBySequenceAsc(id)
+            .forEach(transition -> bySequence.put(transition.getSequence(), transition));
+        incidentWriter.pendingTransitions(id)
+            .forEach(transition -> bySequence.put(transition.getSequence(), transition));
+        if (bySequence.isEmpty()) {
+            return Optional.empty();
         }
+        return Optional.of(IncidentTimeline.of(id, new ArrayList<>(bySequence.values()), Instant.now()));
+    }
+    
+    private static String enrichmentReason(Incident incident) {
+        return incident.getEnrichmentGaps() != null ? "Enrichment incomplete: " + incident.getEnrichmentGaps() : null;
+    }
+    
+    /**
+     * One page of incident summaries, filtered and ordered in the store by
+     * {@code (createdAt, id)}. Reads one row past the limit to know whether
+     * another page follows.
+     */
+    public IncidentPage findIncidentPage(IncidentQuery query) {
+        Instant afterCreatedAt = query.after() != null ? query.after().createdAt() : null;
+        String afterId = query.after() != null ? query.after().id() : null;
+        Limit limit = Limit.of(query.limit() + 1);
         
-        incidentRepository.save(incident);
+        List<IncidentSummary> rows = query.ascending()
+            ? incidentRepository.findSummariesAscending(query.namespace(), query.status(), query.severity(),
+                query.alertName(), query.from(), query.to(), afterCreatedAt, afterId, limit)
+            : incidentRepository.findSummariesDescending(query.namespace(), query.status(), query.severity(),
+                query.alertName(), query.from(), query.to(), afterCreatedAt, afterId, limit);
         
-        auditService.logAction(incident, diagnosis, result);
+        if (rows.size() <= query.limit()) {
+            return new IncidentPage(rows, null);
+        }
+        List<IncidentSummary> items = rows.subList(0, query.limit());
+        IncidentSummary last = items.get(items.size() - 1);
+        return new IncidentPage(items, new IncidentCursor(last.createdAt(), last.id()).encode());
     }
     
-    public List<Incident> findIncidents(String namespace, String status) {
-        if (namespace != null && status != null) {
-            return incidentRepository.findByNamespaceAndStatus(
-                namespace, 
-                Incident.IncidentStatus.valueOf(status.toUpperCase())
-            );
-        } else if (namespace != null) {
-            return incidentRepository.findByNamespace(namespace);
-        } else if (status != null) {
-            return incidentRepository.findByStatus(
-                Incident.IncidentStatus.valueOf(status.toUpperCase())
-            );
-        }
-        return incidentRepository.findAll();
+    /**
+     * Open incidents matching every non-null filter, served from the
+     * in-memory index without touching the store.
+     */
+    public List<IncidentSummary> findOpenIncidents(String namespace, Incident.IncidentStatus status, 
+                                                   String workload, String severity) {
+        return openIncidentIndex.find(namespace, status, workload, severity);
     }
     
+    /**
+     * The incident as stored: logs and events are only referenced, and the
+     * pod status is missing once retention has archived it.
+     */
     public Optional<Incident> findById(String id) {
-        return incidentRepository.findById(id);
+        Optional<Incident> pending = incidentWriter.pending(id);
+        return pending.isPresent() ? pending : incidentRepository.findById(id);
+    }
+    
+    /**
+     * The incident with its logs and events, and its pod status read back
+     * from the cold tier if retention has archived it.
+     */
+    public Optional<Incident> findDetailsById(String id) {
+        return findById(id).map(incidentArchive::restore).map(this::loadBlobs);
+    }
+    
+    private Incident loadBlobs(Incident incident) {
+        if (incident.getPodLogs() == null && incident.getPodLogsRef() != null) {
+            blobStore.get(incident.getPodLogsRef()).ifPresent(incident::setPodLogs);
+        }
+        if (incident.getPodEvents() == null && incident.getPodEventsRef() != null) {
+            blobStore.get(incident.getPodEventsRef()).ifPresent(incident::setPodEvents);
+        }
+        return incident;
+    }
+    
+    /**
+     * Daily counts of incidents that have passed the retention horizon.
+     */
+    public List<IncidentAggregate> getHistory(LocalDate from, LocalDate to) {
+        return aggregateRepository.findByDayBetweenOrderByDayAsc(from, to);
     }
 }
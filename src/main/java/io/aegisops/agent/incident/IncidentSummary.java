@@ -0,0 +1,32 @@
+package io.aegisops.agent.incident;
+
+import java.time.Instant;
+
+/**
+ * List view of an incident: everything a dashboard shows, nothing of the
+ * pod logs, events or status text. Loaded with a constructor projection so
+ * the large columns are never read.
+ */
+public record IncidentSummary(
+    String id,
+    String alertName,
+    String namespace,
+    String podName,
+    String workloadKind,
+    String workloadName,
+    String severity,
+    Incident.IncidentStatus status,
+    Instant statusSince,
+    Instant createdAt,
+    Instant resolvedAt,
+    Double diagnosisConfidence,
+    String recommendedAction
+) {
+    
+    static IncidentSummary of(Incident incident) {
+        return new IncidentSummary(incident.getId(), incident.getAlertName(), incident.getNamespace(), 
+            incident.getPodName(), incident.getWorkloadKind(), incident.getWorkloadName(), incident.getSeverity(), 
+            incident.getStatus(), incident.getStatusSince(), incident.getCreatedAt(), incident.getResolvedAt(), 
+            incident.getDiagnosisConfidence(), incident.getRecommendedAction());
+    }
+}
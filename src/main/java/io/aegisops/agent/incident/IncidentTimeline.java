@@ -0,0 +1,33 @@
+package io.aegisops.agent.incident;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An incident's transitions in order, with the total time spent in each
+ * status. The current status counts up to {@code now} unless it is terminal.
+ */
+public record IncidentTimeline(String incidentId, List<IncidentTransition> transitions,
+                               Map<Incident.IncidentStatus, Duration> dwell) {
+    
+    static IncidentTimeline of(String incidentId, List<IncidentTransition> transitions, Instant now) {
+        Map<Incident.IncidentStatus, Duration> dwell = new EnumMap<>(Incident.IncidentStatus.class);
+        for (int i = 0; i < transitions.size(); i++) {
+            IncidentTransition transition = transitions.get(i);
+            Incident.IncidentStatus status = transition.getToStatus();
+            Instant until;
+            if (i + 1 < transitions.size()) {
+                until = transitions.get(i + 1).getOccurredAt();
+            } else if (IncidentLifecycle.isTerminal(status)) {
+                continue;
+            } else {
+                until = now;
+            }
+            dwell.merge(status, Duration.between(transition.getOccurredAt(), until), Duration::plus);
+        }
+        return new IncidentTimeline(incidentId, transitions, dwell);
+    }
+}
@@ -0,0 +1,57 @@
+package io.aegisops.agent.incident;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One status change of an incident. Rows are only ever inserted; the
+ * incident's history is the ordered sequence of its transitions, and the
+ * {@link Incident} row is the latest snapshot of that history.
+ */
+@Entity
+@Table(name = "incident_transitions",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"incidentId", "sequence"}),
+    indexes = @Index(columnList = "incidentId"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentTransition {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+    
+    @Column(nullable = false)
+    private String incidentId;
+    
+    @Column(nullable = false)
+    private long sequence;
+    
+    @Enumerated(EnumType.STRING)
+    private Incident.IncidentStatus fromStatus;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Incident.IncidentStatus toStatus;
+    
+    @Column(nullable = false)
+    private Instant occurredAt;
+    
+    @Column(columnDefinition = "TEXT")
+    private String reason;
+}
@@ -0,0 +1,14 @@
+package io.aegisops.agent.incident;
+
+import java.util.List;
+
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+interface IncidentTransitionRepository extends Repository<IncidentTransition, String> {
+    <S extends IncidentTransition> List<S> saveAll(Iterable<S> transitions);
+    List<IncidentTransition> findByIncidentIdOrderBySequenceAsc(String incidentId);
+    
+    @Transactional
+    void deleteByIncidentId(String incidentId);
+}
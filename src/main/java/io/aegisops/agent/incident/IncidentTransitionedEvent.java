@@ -0,0 +1,9 @@
+package io.aegisops.agent.incident;
+
+/**
+ * Published after an incident's status changed and the change was handed to
+ * persistence, and once on creation with a transition that has no
+ * {@code fromStatus}. Listeners run on the thread that made the transition.
+ */
+public record IncidentTransitionedEvent(Incident incident, IncidentTransition transition) {
+}
@@ -0,0 +1,240 @@
+package io.aegisops.agent.incident;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.metrics.MetricsService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind persistence for incidents moving through the pipeline.
+ * Intermediate updates only mark the incident dirty; repeated updates to the
+ * same incident collapse into one write on the next flush, which goes out as
+ * a single {@code saveAll} batch. Resting states (terminal, or waiting for an
+ * operator) and the states that gate a remediation are written synchronously
+ * and the caller sees the failure if the write does not succeed, so those
+ * statuses are never left only in memory.
+ * Transitions are appended alongside, and every write of the incident row is
+ * preceded by the transitions it reflects.
+ * <p>
+ * Queued updates are {@link Incident#snapshot() snapshots} taken on the
+ * pipeline thread, so the flusher never serializes an incident that is
+ * still being changed. A snapshot only replaces a queued one with the same
+ * or a lower {@code transitionSeq}, and a synchronous write drops queued
+ * snapshots it supersedes.
+ */
+@Component
+@Slf4j
+class IncidentWriter {
+    
+    private static final Set<Incident.IncidentStatus> SYNCHRONOUS = EnumSet.of(
+        Incident.IncidentStatus.PENDING_APPROVAL,
+        Incident.IncidentStatus.APPROVED,
+        // durable before the action runs, so recovery knows it may have been applied
+        Incident.IncidentStatus.REMEDIATING,
+        Incident.IncidentStatus.RESOLVED,
+        Incident.IncidentStatus.FAILED
+    );
+    
+    private final IncidentRepository incidentRepository;
+    private final IncidentTransitionRepository transitionRepository;
+    private final MetricsService metricsService;
+    private final int maxBatch;
+    private final Map<String, Incident> dirty = new ConcurrentHashMap<>();
+    private final Queue<IncidentTransition> transitions = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    IncidentWriter(IncidentRepository incidentRepository, IncidentTransitionRepository transitionRepository,
+                   MetricsService metricsService, @Value("${aegisops.persistence.max-batch:200}") int maxBatch) {
+        this.incidentRepository = incidentRepository;
+        this.transitionRepository = transitionRepository;
+        this.metricsService = metricsService;
+        this.maxBatch = maxBatch;
+        metricsService.registerGauge("aegisops.persistence.dirty", 
+            "Incidents with updates not yet written", dirty::size);
+    }
+    
+    /**
+     * Inserts a new incident synchronously so it has an id before it enters
+     * the rest of the pipeline.
+     */
+    Incident create(Incident incident) {
+        metricsService.incrementPersistenceUpdates();
+        Incident saved = incidentRepository.save(incident);
+        metricsService.incrementPersistenceWrites(1);
+        return saved;
+    }
+    
+    /**
+     * Records that the incident changed. Synchronous states are written
+     * before this returns; anything else is written on the next flush.
+     */
+    void update(Incident incident) {
+        metricsService.incrementPersistenceUpdates();
+        if (incident.getId() == null || SYNCHRONOUS.contains(incident.getStatus())) {
+            writeNow(incident);
+            return;
+        }
+        enqueue(incident.snapshot());
+    }
+    
+    private void enqueue(Incident snapshot) {
+        dirty.merge(snapshot.getId(), snapshot, 
+            (queued, next) -> next.getTransitionSeq() >= queued.getTransitionSeq() ? next : queued);
+    }
+    
+    /**
+     * Records a status change together with the incident snapshot that
+     * results from it.
+     */
+    void transition(Incident incident, IncidentTransition transition) {
+        transitions.add(transition);
+        update(incident);
+    }
+    
+    /**
+     * Appends a transition without touching the incident row, for the
+     * initial transition of an incident that was just created.
+     */
+    void append(IncidentTransition transition) {
+        transitions.add(transition);
+    }
+    
+    /**
+     * Transitions of an incident that have not been written yet.
+     */
+    List<IncidentTransition> pendingTransitions(String incidentId) {
+        List<IncidentTransition> pending = new ArrayList<>();
+        for (IncidentTransition transition : transitions) {
+            if (transition.getIncidentId().equals(incidentId)) {
+                pending.add(transition);
+            }
+        }
+        return pending;
+    }
+    
+    /**
+     * The latest in-memory version of an incident that has not been flushed
+     * yet, so readers are not served a stale row.
+     */
+    Optional<Incident> pending(String id) {
+        return Optional.ofNullable(dirty.get(id)).map(Incident::snapshot);
+    }
+    
+    private void writeNow(Incident incident) {
+        flushLock.lock();
+        try {
+            if (incident.getId() != null) {
+                dirty.computeIfPresent(incident.getId(), 
+                    (id, queued) -> queued.getTransitionSeq() <= incident.getTransitionSeq() ? null : queued);
+            }
+            writeTransitions();
+            incidentRepository.save(incident);
+            metricsService.incrementPersistenceWrites(1);
+        } catch (RuntimeException e) {
+            if (incident.getId() != null) {
+                // keep it for the flusher to retry; the caller still sees the failure
+                enqueue(incident.snapshot());
+            }
+            throw e;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${aegisops.persistence.flush-interval:250ms}")
+    void flush() {
+        if (dirty.isEmpty() && transitions.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            try {
+                writeTransitions();
+            } catch (RuntimeException e) {
+                // snapshots must not get ahead of their transitions
+                log.error("Failed to append incident transitions, will retry", e);
+                return;
+            }
+            List<Incident> batch = new ArrayList<>(Math.min(dirty.size(), maxBatch));
+            for (Map.Entry<String, Incident> entry : dirty.entrySet()) {
+                if (dirty.remove(entry.getKey(), entry.getValue())) {
+                    batch.add(entry.getValue());
+                    if (batch.size() == maxBatch) {
+                        write(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            write(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * Appends all queued transitions. On failure they stay queued, in order,
+     * except for a transition whose sequence is already taken: that one can
+     * never be written and would hold up every transition behind it.
+     * Callers hold {@link #flushLock}.
+     */
+    private void writeTransitions() {
+        List<IncidentTransition> batch = new ArrayList<>(transitions);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transitionRepository.saveAll(batch);
+        } catch (DataIntegrityViolationException e) {
+            for (IncidentTransition transition : batch) {
+                try {
+                    transitionRepository.saveAll(List.of(transition));
+                } catch (DataIntegrityViolationException duplicate) {
+                    log.error("Dropping transition {} of incident {}, its sequence is already written", 
+                        transition.getSequence(), transition.getIncidentId(), duplicate);
+                }
+            }
+        }
+        // only this method removes, so the head of the queue is exactly the batch
+        for (int i = 0; i < batch.size(); i++) {
+            transitions.poll();
+        }
+    }
+    
+    private void write(List<Incident> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            incidentRepository.saveAll(batch);
+            metricsService.incrementPersistenceWrites(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} incident updates, will retry", batch.size(), e);
+            // a newer update that arrived meanwhile wins over the failed one
+            batch.forEach(incident -> dirty.putIfAbsent(incident.getId(), incident));
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        flush();
+        if (!dirty.isEmpty() || !transitions.isEmpty()) {
+            log.error("{} incident updates and {} transitions could not be written before shutdown", 
+                dirty.size(), transitions.size());
+        }
+    }
+}
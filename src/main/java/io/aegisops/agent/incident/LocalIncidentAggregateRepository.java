@@ -0,0 +1,55 @@
+package io.aegisops.agent.incident;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import io.aegisops.agent.store.LocalStore;
+
+/**
+ * {@link IncidentAggregateRepository} over the {@link LocalStore}, with
+ * each aggregate's day kept in memory for range queries.
+ */
+@Repository
+@ConditionalOnProperty(name = "aegisops.storage.backend", havingValue = "local")
+class LocalIncidentAggregateRepository implements IncidentAggregateRepository {
+    
+    static final String COLLECTION = "incident-aggregates";
+    
+    private final LocalStore store;
+    private final Map<String, LocalDate> days = new ConcurrentHashMap<>();
+    
+    LocalIncidentAggregateRepository(LocalStore store) {
+        this.store = store;
+        store.forEach(COLLECTION, IncidentAggregate.class, aggregate -> days.put(aggregate.getId(), aggregate.getDay()));
+    }
+    
+    @Override
+    public <S extends IncidentAggregate> S save(S aggregate) {
+        days.compute(aggregate.getId(), (id, previous) -> {
+            store.put(COLLECTION, id, aggregate);
+            return aggregate.getDay();
+        });
+        return aggregate;
+    }
+    
+    @Override
+    public Optional<IncidentAggregate> findById(String id) {
+        return store.find(COLLECTION, id, IncidentAggregate.class);
+    }
+    
+    @Override
+    public List<IncidentAggregate> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to) {
+        return days.entrySet().stream()
+            .filter(entry -> !entry.getValue().isBefore(from) && !entry.getValue().isAfter(to))
+            .flatMap(entry -> findById(entry.getKey()).stream())
+            .sorted(Comparator.comparing(IncidentAggregate::getDay))
+            .toList();
+    }
+}
@@ -0,0 +1,293 @@
+package io.aegisops.agent.incident;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import io.aegisops.agent.store.LocalStore;
+
+/**
+ * {@link IncidentRepository} over the {@link LocalStore}. Summaries of all
+ * incidents are kept in memory for the list and status queries; only the
+ * incidents a query returns in full are decoded from the log.
+ * <p>
+ * Summaries are also kept sorted by {@code (createdAt, id)}, once overall
+ * and once per namespace, status, severity and alert name. A page query
+ * picks the index of one of its filters, seeks to the cursor and the time
+ * range, and walks forward until the page is full, so it costs the rows it
+ * skips over rather than the whole history.
+ */
+@Repository
+@ConditionalOnProperty(name = "aegisops.storage.backend", havingValue = "local")
+class LocalIncidentRepository implements IncidentRepository {
+    
+    static final String COLLECTION = "incidents";
+    
+    private final LocalStore store;
+    private final Map<String, IncidentSummary> summaries = new ConcurrentHashMap<>();
+    private final NavigableMap<Key, IncidentSummary> byCreated = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<Key, IncidentSummary>> byFilter = new ConcurrentHashMap<>();
+    private final Set<String> archived = ConcurrentHashMap.newKeySet();
+    
+    LocalIncidentRepository(LocalStore store) {
+        this.store = store;
+        store.forEach(COLLECTION, Incident.class, incident -> {
+            IncidentSummary summary = IncidentSummary.of(incident);
+            IncidentSummary previous = summaries.put(incident.getId(), summary);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(summary);
+            if (incident.getArchivedAt() != null) {
+                archived.add(incident.getId());
+            } else {
+                archived.remove(incident.getId());
+            }
+        });
+    }
+    
+    @Override
+    public <S extends Incident> S save(S incident) {
+        if (incident.getId() == null) {
+            incident.setId(UUID.randomUUID().toString());
+            incident.onCreate();
+        }
+        summaries.compute(incident.getId(), (id, previous) -> {
+            store.put(COLLECTION, id, incident);
+            if (incident.getArchivedAt() != null) {
+                archived.add(id);
+            } else {
+                archived.remove(id);
+            }
+            IncidentSummary summary = IncidentSummary.of(incident);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(summary);
+            return summary;
+        });
+        return incident;
+    }
+    
+    @Override
+    public void deleteById(String id) {
+        summaries.compute(id, (key, previous) -> {
+            store.delete(COLLECTION, key);
+            archived.remove(key);
+            if (previous != null) {
+                unindex(previous);
+            }
+            return null;
+        });
+    }
+    
+    @Override
+    public <S extends Incident> List<S> saveAll(Iterable<S> incidents) {
+        List<S> saved = new ArrayList<>();
+        incidents.forEach(incident -> saved.add(save(incident)));
+        return saved;
+    }
+    
+    @Override
+    public Optional<Incident> findById(String id) {
+        return store.find(COLLECTION, id, Incident.class);
+    }
+    
+    @Override
+    public List<Incident> findByStatusIn(Collection<Incident.IncidentStatus> statuses) {
+        return summaries.values().stream()
+            .filter(summary -> statuses.contains(summary.status()))
+            .flatMap(summary -> findById(summary.id()).stream())
+            .toList();
+    }
+    
+    @Override
+    public List<Incident> findArchiveCandidates(Collection<Incident.IncidentStatus> statuses, Instant before, 
+                                                Limit limit) {
+        return findOldest(statuses, before, limit, summary -> !archived.contains(summary.id()));
+    }
+    
+    @Override
+    public List<Incident> findExpired(Collection<Incident.IncidentStatus> statuses, Instant before, Limit limit) {
+        return findOldest(statuses, before, limit, summary -> true);
+    }
+    
+    private List<Incident> findOldest(Collection<Incident.IncidentStatus> statuses, Instant before, Limit limit, 
+                                      Predicate<IncidentSummary> filter) {
+        List<IncidentSummary> oldest = collect(byCreated.headMap(Key.start(before), false), limit, 
+            summary -> statuses.contains(summary.status()) && filter.test(summary));
+        return oldest.stream()
+            .flatMap(summary -> findById(summary.id()).stream())
+            .toList();
+    }
+    
+    @Override
+    public List<IncidentSummary> findSummariesAscending(String namespace, Incident.IncidentStatus status, 
+                                                        String severity, String alertName, Instant from, Instant to, 
+                                                        Instant afterCreatedAt, String afterId, Limit limit) {
+        NavigableMap<Key, IncidentSummary> range = range(namespace, status, severity, alertName, from, to);
+        if (afterCreatedAt != null) {
+            range = range.tailMap(new Key(afterCreatedAt, afterId), false);
+        }
+        return collect(range, limit, matching(namespace, status, severity, alertName));
+    }
+    
+    @Override
+    public List<IncidentSummary> findSummariesDescending(String namespace, Incident.IncidentStatus status, 
+                                                         String severity, String alertName, Instant from, Instant to, 
+                                                         Instant afterCreatedAt, String afterId, Limit limit) {
+        NavigableMap<Key, IncidentSummary> range = range(namespace, status, severity, alertName, from, to);
+        if (afterCreatedAt != null) {
+            range = range.headMap(new Key(afterCreatedAt, afterId), false);
+        }
+        return collect(range.descendingMap(), limit, matching(namespace, status, severity, alertName));
+    }
+    
+    /**
+     * The index of the first filter that is set, narrowed to
+     * {@code [from, to)}. The other filters still have to be checked.
+     */
+    private NavigableMap<Key, IncidentSummary> range(String namespace, Incident.IncidentStatus status, 
+                                                     String severity, String alertName, Instant from, Instant to) {
+        NavigableMap<Key, IncidentSummary> index = byCreated;
+        if (namespace != null) {
+            index = byFilter.get(namespaceKey(namespace));
+        } else if (alertName != null) {
+            index = byFilter.get(alertNameKey(alertName));
+        } else if (status != null) {
+            index = byFilter.get(statusKey(status));
+        } else if (severity != null) {
+            index = byFilter.get(severityKey(severity));
+        }
+        if (index == null) {
+            return new ConcurrentSkipListMap<>();
+        }
+        if (from != null) {
+            index = index.tailMap(Key.start(from), true);
+        }
+        if (to != null) {
+            index = index.headMap(Key.start(to), false);
+        }
+        return index;
+    }
+    
+    private static Predicate<IncidentSummary> matching(String namespace, Incident.IncidentStatus status, 
+                                                       String severity, String alertName) {
+        return summary -> (namespace == null || namespace.equals(summary.namespace()))
+            && (status == null || status == summary.status())
+            && (severity == null || severity.equals(summary.severity()))
+            && (alertName == null || alertName.equals(summary.alertName()));
+    }
+    
+    private static List<IncidentSummary> collect(NavigableMap<Key, IncidentSummary> range, Limit limit, 
+                                                 Predicate<IncidentSummary> filter) {
+        List<IncidentSummary> page = new ArrayList<>();
+        for (IncidentSummary summary : range.values()) {
+            if (limit.isLimited() && page.size() == limit.max()) {
+                break;
+            }
+            if (filter.test(summary)) {
+                page.add(summary);
+            }
+        }
+        return page;
+    }
+    
+    /**
+     * Callers hold the incident's entry in {@link #summaries}, so the
+     * indexes of one incident change one update at a time.
+     */
+    private void index(IncidentSummary summary) {
+        Key key = Key.of(summary);
+        byCreated.put(key, summary);
+        for (String filter : filterKeys(summary)) {
+            byFilter.compute(filter, (name, index) -> {
+                NavigableMap<Key, IncidentSummary> indexed = index != null ? index : new ConcurrentSkipListMap<>();
+                indexed.put(key, summary);
+                return indexed;
+            });
+        }
+    }
+    
+    private void unindex(IncidentSummary summary) {
+        Key key = Key.of(summary);
+        byCreated.remove(key);
+        for (String filter : filterKeys(summary)) {
+            byFilter.computeIfPresent(filter, (name, index) -> {
+                index.remove(key);
+                return index.isEmpty() ? null : index;
+            });
+        }
+    }
+    
+    private static List<String> filterKeys(IncidentSummary summary) {
+        List<String> keys = new ArrayList<>(4);
+        if (summary.namespace() != null) {
+            keys.add(namespaceKey(summary.namespace()));
+        }
+        if (summary.alertName() != null) {
+            keys.add(alertNameKey(summary.alertName()));
+        }
+        if (summary.status() != null) {
+            keys.add(statusKey(summary.status()));
+        }
+        if (summary.severity() != null) {
+            keys.add(severityKey(summary.severity()));
+        }
+        return keys;
+    }
+    
+    private static String namespaceKey(String namespace) {
+        return "namespace:" + namespace;
+    }
+    
+    private static String alertNameKey(String alertName) {
+        return "alertName:" + alertName;
+    }
+    
+    private static String statusKey(Incident.IncidentStatus status) {
+        return "status:" + status;
+    }
+    
+    private static String severityKey(String severity) {
+        return "severity:" + severity;
+    }
+    
+    /**
+     * Position of a summary in {@code (createdAt, id)} order.
+     */
+    private record Key(Instant createdAt, String id) implements Comparable<Key> {
+        
+        private static final Comparator<Key> ORDER = Comparator
+            .comparing(Key::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Key::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+        
+        static Key of(IncidentSummary summary) {
+            return new Key(summary.createdAt(), summary.id());
+        }
+        
+        /** Sorts before every incident created at {@code createdAt}. */
+        static Key start(Instant createdAt) {
+            return new Key(createdAt, null);
+        }
+        
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
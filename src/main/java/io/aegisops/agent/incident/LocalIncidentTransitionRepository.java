@@ -0,0 +1,81 @@
+package io.aegisops.agent.incident;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import io.aegisops.agent.store.LocalStore;
+
+/**
+ * {@link IncidentTransitionRepository} over the {@link LocalStore}, with
+ * transition ids indexed by incident and sequence. Like the unique
+ * constraint on the table, a second transition with the same
+ * {@code (incidentId, sequence)} is refused; saving the same transition
+ * again is not.
+ */
+@Repository
+@ConditionalOnProperty(name = "aegisops.storage.backend", havingValue = "local")
+class LocalIncidentTransitionRepository implements IncidentTransitionRepository {
+    
+    static final String COLLECTION = "incident-transitions";
+    
+    private final LocalStore store;
+    private final Map<String, NavigableMap<Long, String>> byIncident = new ConcurrentHashMap<>();
+    
+    LocalIncidentTransitionRepository(LocalStore store) {
+        this.store = store;
+        store.forEach(COLLECTION, IncidentTransition.class, transition -> 
+            byIncident.computeIfAbsent(transition.getIncidentId(), id -> new ConcurrentSkipListMap<>())
+                .putIfAbsent(transition.getSequence(), transition.getId()));
+    }
+    
+    @Override
+    public <S extends IncidentTransition> List<S> saveAll(Iterable<S> transitions) {
+        List<S> saved = new ArrayList<>();
+        for (S transition : transitions) {
+            if (transition.getId() == null) {
+                transition.setId(UUID.randomUUID().toString());
+            }
+            byIncident.compute(transition.getIncidentId(), (incidentId, sequences) -> {
+                NavigableMap<Long, String> indexed = sequences != null ? sequences : new ConcurrentSkipListMap<>();
+                String existing = indexed.get(transition.getSequence());
+                if (existing != null && !existing.equals(transition.getId())) {
+                    throw new DuplicateKeyException("Incident " + incidentId + " already has transition " 
+                        + transition.getSequence());
+                }
+                store.put(COLLECTION, transition.getId(), transition);
+                indexed.put(transition.getSequence(), transition.getId());
+                return indexed;
+            });
+            saved.add(transition);
+        }
+        return saved;
+    }
+    
+    @Override
+    public List<IncidentTransition> findByIncidentIdOrderBySequenceAsc(String incidentId) {
+        NavigableMap<Long, String> sequences = byIncident.get(incidentId);
+        if (sequences == null) {
+            return List.of();
+        }
+        return sequences.values().stream()
+            .flatMap(id -> store.find(COLLECTION, id, IncidentTransition.class).stream())
+            .toList();
+    }
+    
+    @Override
+    public void deleteByIncidentId(String incidentId) {
+        NavigableMap<Long, String> sequences = byIncident.remove(incidentId);
+        if (sequences != null) {
+            sequences.values().forEach(id -> store.delete(COLLECTION, id));
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package io.aegisops.agent.incident;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.metrics.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of non-terminal incidents, so dashboard queries by
+ * namespace, status, workload or severity never touch the store. Loaded once
+ * at startup and kept current from {@link IncidentTransitionedEvent}s; an
+ * incident leaves the index when it reaches a terminal state.
+ * <p>
+ * Each entry is an immutable {@link IncidentSummary}. Secondary indexes map a
+ * key to incident ids and are adjusted inside the primary map's
+ * {@code compute}, so one incident's entries change under that incident's bin
+ * lock only. Query results are re-checked against the summary, so a reader
+ * that races an update never sees a row that does not match its filter.
+ * <p>
+ * A periodic check compares the index with the store. A difference seen on
+ * two consecutive checks is counted as drift and repaired from the store;
+ * one-off differences are expected while write-behind updates are in flight.
+ */
+@Component
+@Slf4j
+class OpenIncidentIndex {
+    
+    static final Set<Incident.IncidentStatus> OPEN = EnumSet.of(
+        Incident.IncidentStatus.NEW,
+        Incident.IncidentStatus.ANALYZING,
+        Incident.IncidentStatus.PENDING_APPROVAL,
+        Incident.IncidentStatus.APPROVED,
+        Incident.IncidentStatus.REMEDIATING
+    );
+    
+    // rough per-entry cost beyond the strings: record, map nodes, four secondary set nodes
+    private static final int ENTRY_OVERHEAD_BYTES = 64 + 48 + 4 * 48;
+    
+    private final IncidentRepository incidentRepository;
+    private final MetricsService metricsService;
+    private final Map<String, IncidentSummary> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byNamespace = new ConcurrentHashMap<>();
+    private final Map<Incident.IncidentStatus, Set<String>> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byWorkload = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> bySeverity = new ConcurrentHashMap<>();
+    private volatile Set<String> suspects = Set.of();
+    
+    OpenIncidentIndex(IncidentRepository incidentRepository, MetricsService metricsService) {
+        this.incidentRepository = incidentRepository;
+        this.metricsService = metricsService;
+        metricsService.registerGauge("aegisops.index.size", "Entries in an in-memory index", 
+            byId::size, "index", "open-incidents");
+        metricsService.registerGauge("aegisops.index.memory", "Estimated heap used by an in-memory index, in bytes", 
+            this::estimatedBytes, "index", "open-incidents");
+    }
+    
+    /**
+     * Loads open incidents before recovery resumes any of them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        List<Incident> open = incidentRepository.findByStatusIn(OPEN);
+        open.forEach(incident -> put(IncidentSummary.of(incident)));
+        log.info("Indexed {} open incidents", open.size());
+    }
+    
+    @EventListener
+    public void onTransition(IncidentTransitionedEvent event) {
+        put(IncidentSummary.of(event.incident()));
+    }
+    
+    /**
+     * Open incidents matching every non-null filter, newest first.
+     */
+    List<IncidentSummary> find(String namespace, Incident.IncidentStatus status, String workload, String severity) {
+        if (status != null && !OPEN.contains(status)) {
+            return List.of();
+        }
+        
+        // walk the narrowest of the requested indexes
+        Collection<String> candidates = null;
+        candidates = narrower(candidates, namespace, byNamespace::get);
+        candidates = narrower(candidates, status, byStatus::get);
+        candidates = narrower(candidates, namespace != null && workload != null ? namespace + "/" + workload : null, 
+            byWorkload::get);
+        candidates = narrower(candidates, severity, bySeverity::get);
+        
+        List<IncidentSummary> result = new ArrayList<>();
+        if (candidates == null) {
+            candidates = byId.keySet();
+        }
+        for (String id : candidates) {
+            IncidentSummary summary = byId.get(id);
+            if (summary != null
+                    && (namespace == null || namespace.equals(summary.namespace()))
+                    && (status == null || status == summary.status())
+                    && (workload == null || workload.equals(summary.workloadName()))
+                    && (severity == null || severity.equals(summary.severity()))) {
+                result.add(summary);
+            }
+        }
+        result.sort(Comparator.comparing(IncidentSummary::createdAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return result;
+    }
+    
+    int size() {
+        return byId.size();
+    }
+    
+    private static <K> Collection<String> narrower(Collection<String> current, K key, Function<K, Set<String>> index) {
+        if (key == null) {
+            return current;
+        }
+        Set<String> ids = index.apply(key);
+        if (ids == null) {
+            return Set.of();
+        }
+        return current == null || ids.size() < current.size() ? ids : current;
+    }
+    
+    void put(IncidentSummary summary) {
+        if (summary.id() == null) {
+            return;
+        }
+        boolean open = OPEN.contains(summary.status());
+        byId.compute(summary.id(), (id, previous) -> {
+            if (previous != null) {
+                unlink(previous);
+            }
+            if (!open) {
+                return null;
+            }
+            link(summary);
+            return summary;
+        });
+    }
+    
+    private void remove(String id) {
+        byId.computeIfPresent(id, (key, previous) -> {
+            unlink(previous);
+            return null;
+        });
+    }
+    
+    private void link(IncidentSummary summary) {
+        add(byNamespace, summary.namespace(), summary.id());
+        add(byStatus, summary.status(), summary.id());
+        add(byWorkload, workloadKey(summary), summary.id());
+        add(bySeverity, summary.severity(), summary.id());
+    }
+    
+    private void unlink(IncidentSummary summary) {
+        remove(byNamespace, summary.namespace(), summary.id());
+        remove(byStatus, summary.status(), summary.id());
+        remove(byWorkload, workloadKey(summary), summary.id());
+        remove(bySeverity, summary.severity(), summary.id());
+    }
+    
+    private static String workloadKey(IncidentSummary summary) {
+        return summary.workloadName() != null ? summary.namespace() + "/" + summary.workloadName() : null;
+    }
+    
+    private static <K> void add(Map<K, Set<String>> index, K key, String id) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+    
+    private static <K> void remove(Map<K, Set<String>> index, K key, String id) {
+        if (key != null) {
+            index.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+    
+    /**
+     * Compares the set of open incident ids with the store and repairs
+     * entries that stayed different since the previous check.
+     */
+    @Scheduled(fixedDelayString = "${aegisops.index.verify-interval:5m}", 
+        initialDelayString = "${aegisops.index.verify-interval:5m}")
+    void verify() {
+        Instant started = Instant.now();
+        Map<String, Incident> stored = new ConcurrentHashMap<>();
+        incidentRepository.findByStatusIn(OPEN).forEach(incident -> stored.put(incident.getId(), incident));
+        
+        Set<String> differing = new HashSet<>();
+        for (String id : stored.keySet()) {
+            if (!byId.containsKey(id)) {
+                differing.add(id);
+            }
+        }
+        for (IncidentSummary summary : byId.values()) {
+            // skip entries that changed after the store was read
+            if (!stored.containsKey(summary.id()) && summary.statusSince() != null 
+                    && summary.statusSince().isBefore(started)) {
+                differing.add(summary.id());
+            }
+        }
+        
+        Set<String> drifted = new HashSet<>(differing);
+        drifted.retainAll(suspects);
+        suspects = differing;
+        if (drifted.isEmpty()) {
+            return;
+        }
+        
+        log.warn("Open incident index drifted from the store for {} incidents, repairing", drifted.size());
+        metricsService.incrementIndexDrift("open-incidents", drifted.size());
+        for (String id : drifted) {
+            Incident incident = stored.get(id);
+            if (incident != null) {
+                put(IncidentSummary.of(incident));
+            } else {
+                remove(id);
+            }
+        }
+    }
+    
+    long estimatedBytes() {
+        long bytes = 0;
+        for (IncidentSummary summary : byId.values()) {
+            bytes += ENTRY_OVERHEAD_BYTES + chars(summary.id()) + chars(summary.alertName()) 
+                + chars(summary.namespace()) + chars(summary.podName()) + chars(summary.workloadKind()) 
+                + chars(summary.workloadName()) + chars(summary.severity()) + chars(summary.recommendedAction());
+        }
+        return bytes;
+    }
+    
+    private static long chars(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+}
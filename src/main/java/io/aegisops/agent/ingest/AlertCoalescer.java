@@ -0,0 +1,197 @@
+package io.aegisops.agent.ingest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.alert.AlertDeduplicator;
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.IncidentService;
+import io.aegisops.agent.metrics.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Folds alerts for the same workload into one parent incident. The first
+ * alert for a (namespace, workload, alertname) key opens a window; alerts
+ * arriving before it closes only add their pod to the parent's affected pods.
+ * When the window closes the parent enters the pipeline once, so a bad
+ * rollout across many replicas costs one enrichment, one diagnosis and one
+ * remediation.
+ * <p>
+ * Nothing in a window is stored yet. The {@code onPersisted} callbacks of
+ * the parent and every member are held until the parent, with all their
+ * pods, has been created, so a journaled alert is not checkpointed while
+ * it only exists here.
+ * <p>
+ * Closed windows are handed to the pipeline on virtual threads, because
+ * entering the ingest stage blocks while it is full and the single
+ * scheduler thread has every other window's timer to run.
+ */
+@Component
+@Slf4j
+public class AlertCoalescer {
+    
+    private final IncidentService incidentService;
+    private final AlertDeduplicator alertDeduplicator;
+    private final MetricsService metricsService;
+    private final Duration window;
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("alert-coalescer-"));
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    
+    public AlertCoalescer(IncidentService incidentService,
+                          AlertDeduplicator alertDeduplicator,
+                          MetricsService metricsService,
+                          @Value("${aegisops.coalesce.window:5s}") Duration window) {
+        this.incidentService = incidentService;
+        this.alertDeduplicator = alertDeduplicator;
+        this.metricsService = metricsService;
+        this.window = window;
+        metricsService.registerGauge("aegisops.coalesce.open-windows", "Coalescing windows waiting to close", windows::size);
+    }
+    
+    public void submit(Incident incident) {
+        submit(incident, () -> { });
+    }
+    
+    /**
+     * Opens or joins the window for the incident's workload.
+     * {@code onPersisted} runs once the incident has been created.
+     */
+    public void submit(Incident incident, Runnable onPersisted) {
+        if (window.isZero() || incident.getWorkloadName() == null || scheduler.isShutdown()) {
+            incidentService.processIncident(incident, onPersisted);
+            return;
+        }
+        
+        Key key = new Key(incident.getNamespace(), incident.getWorkloadKind(), incident.getWorkloadName(), 
+            incident.getAlertName());
+        Window opened = new Window(incident, onPersisted);
+        Window current = windows.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return opened;
+            }
+            existing.add(incident, onPersisted);
+            return existing;
+        });
+        
+        if (current == opened) {
+            try {
+                scheduler.schedule(() -> close(key, dispatcher), window.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shutting down; don't hold the alert back
+                close(key, Runnable::run);
+            }
+            return;
+        }
+        
+        // Later resends of the member alert should resolve to the parent incident
+        alertDeduplicator.redirect(incident.getFingerprint(), current.parent());
+        metricsService.incrementAlertsCoalesced();
+        log.debug("Coalesced alert {} for pod {} into pending incident for {}/{}", 
+            incident.getAlertName(), incident.getPodName(), key.namespace(), key.workload());
+    }
+    
+    /**
+     * Removes the window and dispatches its parent on {@code executor}, or
+     * on the calling thread once that no longer takes tasks.
+     */
+    private void close(Key key, Executor executor) {
+        Window closed = windows.remove(key);
+        if (closed == null) {
+            return;
+        }
+        
+        Incident parent = closed.parent();
+        parent.setAffectedPods(closed.pods());
+        if (closed.pods().size() > 1) {
+            log.info("Coalesced {} pods of {}/{} into one {} incident", 
+                closed.pods().size(), key.namespace(), key.workload(), key.alertName());
+        }
+        
+        try {
+            executor.execute(() -> dispatch(key, parent, closed.onPersisted()));
+        } catch (RejectedExecutionException e) {
+            dispatch(key, parent, closed.onPersisted());
+        }
+    }
+    
+    private void dispatch(Key key, Incident parent, Runnable onPersisted) {
+        try {
+            incidentService.processIncident(parent, onPersisted);
+        } catch (Exception e) {
+            log.error("Failed to dispatch coalesced incident for {}/{}", key.namespace(), key.workload(), e);
+        }
+    }
+    
+    /**
+     * Closes every open window. Runs when the context starts closing, before
+     * the pipeline drains, so coalesced incidents still get in; those
+     * dispatched here go in on the calling thread.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Key key : windows.keySet()) {
+            close(key, Runnable::run);
+        }
+        dispatcher.shutdown();
+    }
+    
+    private record Key(String namespace, String workloadKind, String workload, String alertName) {
+    }
+    
+    private static final class Window {
+        
+        private final Incident parent;
+        private final List<Runnable> onPersisted = new ArrayList<>();
+        private final Set<String> pods = new LinkedHashSet<>();
+        
+        Window(Incident parent, Runnable onPersisted) {
+            this.parent = parent;
+            this.onPersisted.add(onPersisted);
+            if (parent.getPodName() != null) {
+                pods.add(parent.getPodName());
+            }
+        }
+        
+        // Only called inside ConcurrentHashMap.compute, which guards the window
+        void add(Incident member, Runnable memberPersisted) {
+            if (member.getPodName() != null) {
+                pods.add(member.getPodName());
+            }
+            onPersisted.add(memberPersisted);
+        }
+        
+        Incident parent() {
+            return parent;
+        }
+        
+        Set<String> pods() {
+            return pods;
+        }
+        
+        // read after the window was removed from the map, so no more members arrive
+        Runnable onPersisted() {
+            List<Runnable> all = List.copyOf(onPersisted);
+            return () -> all.forEach(Runnable::run);
+        }
+    }
+}
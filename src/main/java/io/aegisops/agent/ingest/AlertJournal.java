@@ -0,0 +1,115 @@
+package io.aegisops.agent.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import io.aegisops.agent.store.SegmentedLog;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The alert journal: a {@link SegmentedLog}, which owns the record framing,
+ * segment rolling and torn-tail recovery, plus a checkpoint file recording
+ * how far the consumer has got. Records are addressed by their log
+ * position, and segments that lie entirely before the checkpoint are
+ * dropped.
+ */
+@Slf4j
+class AlertJournal implements Closeable {
+    
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    
+    private final SegmentedLog segments;
+    private final boolean fsync;
+    private final FileChannel checkpointChannel;
+    
+    private volatile long checkpoint;
+    
+    private AlertJournal(SegmentedLog segments, Path directory, boolean fsync) throws IOException {
+        this.segments = segments;
+        this.fsync = fsync;
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    static AlertJournal open(Path directory, int segmentSize, boolean fsync) throws IOException {
+        SegmentedLog segments = new SegmentedLog(directory, segmentSize,
+            fsync ? SegmentedLog.FsyncPolicy.ALWAYS : SegmentedLog.FsyncPolicy.NEVER);
+        AlertJournal journal = null;
+        try {
+            journal = new AlertJournal(segments, directory, fsync);
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            if (journal != null) {
+                journal.close();
+            } else {
+                segments.close();
+            }
+            throw e;
+        }
+        return journal;
+    }
+    
+    private void recover() throws IOException {
+        ByteBuffer stored = ByteBuffer.allocate(Long.BYTES);
+        checkpoint = checkpointChannel.read(stored, 0) == Long.BYTES
+            ? stored.flip().getLong()
+            : segments.firstPosition();
+        dropSegmentsBefore(checkpoint);
+    }
+    
+    /**
+     * Appends one record and returns its position.
+     */
+    long append(byte[] payload) {
+        return segments.append(payload);
+    }
+    
+    /**
+     * Reads the record at or after {@code position}. Returns {@code null}
+     * when no further record is published.
+     */
+    SegmentedLog.Record read(long position) {
+        return segments.next(position);
+    }
+    
+    long checkpoint() {
+        return checkpoint;
+    }
+    
+    /**
+     * Records that everything before {@code position} has been consumed and
+     * drops the segments that lie entirely before it.
+     */
+    void checkpoint(long position) throws IOException {
+        if (position == checkpoint) {
+            return;
+        }
+        checkpointChannel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, position), 0);
+        if (fsync) {
+            checkpointChannel.force(false);
+        }
+        checkpoint = position;
+        dropSegmentsBefore(position);
+    }
+    
+    private void dropSegmentsBefore(long position) throws IOException {
+        for (int segment : segments.sealedSegments()) {
+            if (segment >= SegmentedLog.segmentOf(position)) {
+                break;
+            }
+            segments.drop(segment);
+            log.debug("Deleted consumed journal segment {}", segment);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        segments.close();
+        checkpointChannel.force(true);
+        checkpointChannel.close();
+    }
+}
@@ -0,0 +1,25 @@
+package io.aegisops.agent.ingest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-line outcome of a newline-delimited bulk upload. When the ingestion
+ * queue pushed back, {@code resumeFromLine} is the first line that was not
+ * accepted and {@code retryAfter} says when to resend from there.
+ */
+public record BulkIngestResult(
+    int lines,
+    int accepted,
+    int duplicates,
+    int resolved,
+    int rejected,
+    List<String> errors,
+    int resumeFromLine,
+    Duration retryAfter
+) {
+    
+    public boolean isThrottled() {
+        return resumeFromLine > 0;
+    }
+}
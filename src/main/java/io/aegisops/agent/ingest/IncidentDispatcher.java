@@ -0,0 +1,67 @@
+package io.aegisops.agent.ingest;
+
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.alert.AlertDeduplicator;
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.kubernetes.WorkloadRef;
+import io.aegisops.agent.kubernetes.WorkloadResolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Last step of ingestion shared by every intake path: drops resends of open
+ * incidents and hands new ones on for coalescing and processing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentDispatcher {
+    
+    private final AlertDeduplicator alertDeduplicator;
+    private final AlertCoalescer alertCoalescer;
+    private final WorkloadResolver workloadResolver;
+    
+    /**
+     * @return {@code true} if a new incident was started, {@code false} if the
+     *         alert was a resend of an open one
+     */
+    public boolean dispatch(Incident incident) {
+        return dispatch(incident, () -> { });
+    }
+    
+    /**
+     * Like {@link #dispatch(Incident)}, running {@code onPersisted} once the
+     * alert is durably recorded: right away for a resend, otherwise when the
+     * incident it started or was coalesced into has been created.
+     */
+    public boolean dispatch(Incident incident, Runnable onPersisted) {
+        Incident open = alertDeduplicator.findOrRegister(incident);
+        if (open != null) {
+            log.debug("Alert {} for pod {} is a resend of incident {}", 
+                incident.getAlertName(), incident.getPodName(), open.getId());
+            onPersisted.run();
+            return false;
+        }
+        
+        resolveWorkload(incident);
+        log.info("Processing incident: {} for pod: {}", incident.getAlertName(), incident.getPodName());
+        alertCoalescer.submit(incident, onPersisted);
+        return true;
+    }
+    
+    private void resolveWorkload(Incident incident) {
+        Optional<WorkloadRef> workload = workloadResolver.resolve(incident.getNamespace(), incident.getPodName());
+        if (workload.isPresent()) {
+            incident.setWorkloadKind(workload.get().kind());
+            incident.setWorkloadName(workload.get().name());
+            incident.setDeploymentName(workload.get().isDeployment() ? workload.get().name() : null);
+        } else if (incident.getDeploymentName() != null) {
+            // API unavailable or pod already gone: keep the name guessed from the pod name
+            incident.setWorkloadKind(WorkloadRef.DEPLOYMENT);
+            incident.setWorkloadName(incident.getDeploymentName());
+        }
+    }
+}
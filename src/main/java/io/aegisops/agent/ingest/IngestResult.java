@@ -0,0 +1,24 @@
+package io.aegisops.agent.ingest;
+
+import java.time.Duration;
+
+public record IngestResult(Status status, int accepted, int duplicates, Duration retryAfter) {
+    
+    public enum Status {
+        PROCESSED,
+        QUEUED,
+        REJECTED
+    }
+    
+    static IngestResult processed(int created, int duplicates) {
+        return new IngestResult(Status.PROCESSED, created, duplicates, null);
+    }
+    
+    static IngestResult queued(int accepted) {
+        return new IngestResult(Status.QUEUED, accepted, 0, null);
+    }
+    
+    static IngestResult rejected(Duration retryAfter) {
+        return new IngestResult(Status.REJECTED, 0, 0, retryAfter);
+    }
+}
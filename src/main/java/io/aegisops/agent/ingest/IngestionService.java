@@ -0,0 +1,162 @@
+package io.aegisops.agent.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.aegisops.agent.alert.AlertParser;
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.pipeline.IncidentPipeline;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entry point for parsed alerts. In {@code direct} mode alerts are dispatched
+ * on the calling thread; in {@code journal} mode they are appended to the
+ * write-ahead journal and acknowledged before any processing happens.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionService {
+    
+    private final IncidentDispatcher incidentDispatcher;
+    private final Optional<JournalIngestionQueue> journalQueue;
+    private final AlertParser alertParser;
+    private final MetricsService metricsService;
+    private final IncidentPipeline pipeline;
+    
+    @Value("${aegisops.ingest.retry-after:5s}")
+    private Duration retryAfter;
+    
+    @Value("${aegisops.ingest.bulk.batch-size:500}")
+    private int bulkBatchSize;
+    
+    @Value("${aegisops.ingest.bulk.max-reported-errors:20}")
+    private int maxReportedErrors;
+    
+    public IngestResult ingest(List<Incident> incidents) throws IOException {
+        if (journalQueue.isPresent()) {
+            if (!journalQueue.get().offer(incidents)) {
+                log.warn("Ingestion queue full, rejecting {} alerts", incidents.size());
+                metricsService.incrementIngestRejected();
+                return IngestResult.rejected(retryAfter);
+            }
+            return IngestResult.queued(incidents.size());
+        }
+        
+        if (!pipeline.isAccepting()) {
+            // shutting down: the journal would keep these, direct mode cannot
+            metricsService.incrementIngestRejected();
+            return IngestResult.rejected(retryAfter);
+        }
+        
+        int created = 0;
+        for (Incident incident : incidents) {
+            if (incidentDispatcher.dispatch(incident)) {
+                created++;
+            }
+        }
+        return IngestResult.processed(created, incidents.size() - created);
+    }
+    
+    /**
+     * Reads newline-delimited alert objects from the stream and ingests them in
+     * batches, so only one batch is ever held in memory. A malformed line is
+     * counted as rejected and does not affect its neighbours. If the queue
+     * pushes back, reading stops and the sender can resume from the first line
+     * of the batch that was turned away.
+     */
+    public BulkIngestResult ingestBulk(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        BulkTally tally = new BulkTally();
+        List<Incident> batch = new ArrayList<>(bulkBatchSize);
+        int batchFirstLine = 0;
+        int lineNumber = 0;
+        
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            tally.lines++;
+            
+            try {
+                Incident incident = alertParser.parseAlert(line);
+                if (incident == null) {
+                    tally.resolved++;
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    batchFirstLine = lineNumber;
+                }
+                batch.add(incident);
+            } catch (JsonProcessingException e) {
+                tally.reject(lineNumber, e.getOriginalMessage(), maxReportedErrors);
+                continue;
+            }
+            
+            if (batch.size() >= bulkBatchSize) {
+                IngestResult result = ingest(batch);
+                if (result.status() == IngestResult.Status.REJECTED) {
+                    return tally.throttled(batchFirstLine, result.retryAfter());
+                }
+                tally.add(result);
+                batch.clear();
+            }
+        }
+        
+        if (!batch.isEmpty()) {
+            IngestResult result = ingest(batch);
+            if (result.status() == IngestResult.Status.REJECTED) {
+                return tally.throttled(batchFirstLine, result.retryAfter());
+            }
+            tally.add(result);
+        }
+        
+        return tally.completed();
+    }
+    
+    private static final class BulkTally {
+        
+        private final List<String> errors = new ArrayList<>();
+        private int lines;
+        private int accepted;
+        private int duplicates;
+        private int resolved;
+        private int rejected;
+        
+        void add(IngestResult result) {
+            accepted += result.accepted();
+            duplicates += result.duplicates();
+        }
+        
+        void reject(int lineNumber, String message, int maxErrors) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add("line " + lineNumber + ": " + message);
+            }
+        }
+        
+        BulkIngestResult completed() {
+            return new BulkIngestResult(lines, accepted, duplicates, resolved, rejected, errors, 0, null);
+        }
+        
+        BulkIngestResult throttled(int resumeFromLine, Duration retryAfter) {
+            return new BulkIngestResult(lines, accepted, duplicates, resolved, rejected, errors, resumeFromLine, retryAfter);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package io.aegisops.agent.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.store.SegmentedLog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable ingestion queue backed by {@link AlertJournal}. Webhook threads
+ * append and return; a reader thread drains the journal into a bounded
+ * consumer pool that dispatches into the incident pipeline.
+ * <p>
+ * An entry stays in flight until the incident it started, or was coalesced
+ * into, has been created in the store, and the checkpoint never moves past
+ * an entry in flight. Alerts still in a coalescing window or a pipeline
+ * queue during a crash are therefore replayed on the next start
+ * (at-least-once delivery), and {@code aegisops.ingest.depth} counts them
+ * until then.
+ */
+@Component
+@ConditionalOnProperty(name = "aegisops.ingest.mode", havingValue = "journal")
+@Slf4j
+public class JournalIngestionQueue {
+    
+    private final IncidentDispatcher incidentDispatcher;
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+    private final AlertJournal journal;
+    private final long maxDepth;
+    private final ThreadPoolExecutor consumers;
+    private final AtomicLong depth = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    
+    private volatile long readPosition;
+    private volatile boolean running;
+    private Thread reader;
+    
+    public JournalIngestionQueue(IncidentDispatcher incidentDispatcher,
+                                 ObjectMapper objectMapper,
+                                 MetricsService metricsService,
+                                 @Value("${aegisops.ingest.journal.dir:data/journal}") String directory,
+                                 @Value("${aegisops.ingest.journal.segment-size:64MB}") DataSize segmentSize,
+                                 @Value("${aegisops.ingest.journal.fsync:false}") boolean fsync,
+                                 @Value("${aegisops.ingest.max-depth:50000}") long maxDepth,
+                                 @Value("${aegisops.ingest.consumers:4}") int consumerThreads) {
+        this.incidentDispatcher = incidentDispatcher;
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+        this.maxDepth = maxDepth;
+        
+        try {
+            this.journal = AlertJournal.open(Path.of(directory), Math.toIntExact(segmentSize.toBytes()), fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open alert journal in " + directory, e);
+        }
+        
+        this.readPosition = journal.checkpoint();
+        long pending = 0;
+        for (SegmentedLog.Record entry = journal.read(readPosition); entry != null; entry = journal.read(entry.nextPosition())) {
+            pending++;
+        }
+        depth.set(pending);
+        if (pending > 0) {
+            log.info("Alert journal has {} unconsumed entries, replaying on startup", pending);
+        }
+        
+        this.consumers = new ThreadPoolExecutor(consumerThreads, consumerThreads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(consumerThreads * 4), new CustomizableThreadFactory("alert-journal-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        
+        metricsService.registerGauge("aegisops.ingest.depth", 
+            "Journaled alerts not yet persisted as incidents", depth::get);
+    }
+    
+    /**
+     * Appends the incidents to the journal, or returns {@code false} without
+     * appending anything if that would push the queue past its maximum depth.
+     */
+    public boolean offer(List<Incident> incidents) throws IOException {
+        int count = incidents.size();
+        long current;
+        do {
+            current = depth.get();
+            if (current + count > maxDepth) {
+                return false;
+            }
+        } while (!depth.compareAndSet(current, current + count));
+        
+        int appended = 0;
+        try {
+            for (Incident incident : incidents) {
+                journal.append(objectMapper.writeValueAsBytes(incident));
+                appended++;
+            }
+        } finally {
+            if (appended < count) {
+                depth.addAndGet(appended - count);
+            }
+            LockSupport.unpark(reader);
+        }
+        return true;
+    }
+    
+    /**
+     * Starts replaying the journal. Ordered last among the startup listeners,
+     * so incident recovery has re-registered open incidents with the
+     * deduplicator before any journaled alert is dispatched.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        running = true;
+        reader = Thread.ofPlatform().name("alert-journal-reader").daemon(true).start(this::drain);
+    }
+    
+    private void drain() {
+        long position = readPosition;
+        while (running) {
+            SegmentedLog.Record entry = journal.read(position);
+            if (entry == null) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                continue;
+            }
+            // Register before advancing so a concurrent checkpoint never skips this entry
+            inFlight.add(entry.position());
+            position = entry.nextPosition();
+            readPosition = position;
+            consumers.execute(() -> consume(entry));
+        }
+    }
+    
+    private void consume(SegmentedLog.Record entry) {
+        AtomicBoolean done = new AtomicBoolean();
+        Runnable persisted = () -> {
+            if (done.compareAndSet(false, true)) {
+                inFlight.remove(entry.position());
+                depth.decrementAndGet();
+            }
+        };
+        try {
+            Incident incident = objectMapper.readValue(entry.payload(), Incident.class);
+            incidentDispatcher.dispatch(incident, persisted);
+        } catch (RejectedExecutionException e) {
+            // the pipeline is draining for shutdown; stay in flight so the checkpoint
+            // stops short of this entry and it is replayed on the next start
+            log.debug("Pipeline closed, leaving journaled alert at position {} for replay", entry.position());
+        } catch (Exception e) {
+            log.error("Failed to dispatch journaled alert at position {}", entry.position(), e);
+            metricsService.incrementAlertsFailed();
+            persisted.run();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${aegisops.ingest.journal.checkpoint-interval:1s}")
+    public void checkpoint() {
+        long position = readPosition;
+        Long oldestInFlight = inFlight.ceiling(Long.MIN_VALUE);
+        if (oldestInFlight != null && oldestInFlight < position) {
+            position = oldestInFlight;
+        }
+        try {
+            journal.checkpoint(position);
+        } catch (IOException e) {
+            log.error("Failed to checkpoint alert journal at position {}", position, e);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        consumers.shutdown();
+        if (!consumers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Alert journal consumers did not finish, pending entries will be replayed on restart");
+        }
+        checkpoint();
+        journal.close();
+    }
+}
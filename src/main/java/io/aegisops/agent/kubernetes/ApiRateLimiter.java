@@ -0,0 +1,239 @@
+package io.aegisops.agent.kubernetes;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client-side token buckets in front of the Kubernetes API requests the
+ * agent makes. Callers wrap each request in {@link #read} or
+ * {@link #mutate}, which wait for a token on the calling thread; reads
+ * (GET, including list and log streams) and mutations (everything else)
+ * have separate buckets, so enrichment during an alert storm cannot spend
+ * the quota a restart or scale needs, and reads also hold back while any
+ * mutation is waiting. Informer list and watch traffic is not metered.
+ * <p>
+ * Installed as a fabric8 {@link Interceptor} only to see responses, so
+ * nothing ever waits on the client's own threads. A 429 from the API
+ * server stops both lanes until its Retry-After (one second if absent) and
+ * halves the read rate, which then climbs back a little with every
+ * successful read. fabric8 retries the throttled request itself; this only
+ * keeps the others from piling on. The wait in each lane is recorded as
+ * {@code aegisops.kubernetes.api.wait}.
+ */
+@Component
+@Slf4j
+public class ApiRateLimiter implements Interceptor {
+    
+    static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final long YIELD_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final double MIN_RATE = 0.1;
+    private static final double RECOVERY_STEP = 0.02;
+    
+    enum Lane {
+        MUTATION, READ;
+        
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+    
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final Bucket mutations;
+    private final Bucket reads;
+    private final AtomicInteger mutationsWaiting = new AtomicInteger();
+    private final AtomicLong blockedUntil = new AtomicLong(System.nanoTime());
+    
+    ApiRateLimiter(MetricsService metricsService,
+                   @Value("${aegisops.kubernetes.rate-limit.enabled:true}") boolean enabled,
+                   @Value("${aegisops.kubernetes.rate-limit.mutations.qps:5}") double mutationQps,
+                   @Value("${aegisops.kubernetes.rate-limit.mutations.burst:10}") int mutationBurst,
+                   @Value("${aegisops.kubernetes.rate-limit.reads.qps:20}") double readQps,
+                   @Value("${aegisops.kubernetes.rate-limit.reads.burst:40}") int readBurst) {
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.mutations = new Bucket(mutationQps, mutationBurst, System.nanoTime());
+        this.reads = new Bucket(readQps, readBurst, System.nanoTime());
+        
+        metricsService.registerGauge("aegisops.kubernetes.api.read.rate", 
+            "Current read lane rate, lowered after the API server throttles", reads::rate);
+    }
+    
+    /**
+     * Sends a read once the read lane has a token.
+     *
+     * @throws KubernetesClientException if interrupted while waiting, with
+     *         the interrupt flag set again; the request is not sent
+     */
+    public <T> T read(Supplier<T> request) {
+        acquire(Lane.READ);
+        return request.get();
+    }
+    
+    /**
+     * Sends a mutation once the mutation lane has a token.
+     *
+     * @throws KubernetesClientException if interrupted while waiting, with
+     *         the interrupt flag set again; the request is not sent
+     */
+    public <T> T mutate(Supplier<T> request) {
+        acquire(Lane.MUTATION);
+        return request.get();
+    }
+    
+    private void acquire(Lane lane) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            await(lane);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException("Interrupted waiting for a " + lane.tag() + " token", e);
+        }
+    }
+    
+    @Override
+    public void after(HttpRequest request, HttpResponse<?> response, AsyncBody.Consumer<List<ByteBuffer>> consumer) {
+        if (!enabled) {
+            return;
+        }
+        Lane lane = lane(request);
+        if (response.code() == 429) {
+            Duration retryAfter = retryAfter(response.header("Retry-After"), Instant.now());
+            long until = System.nanoTime() + retryAfter.toNanos();
+            blockedUntil.accumulateAndGet(until, Math::max);
+            reads.slowDown();
+            metricsService.incrementKubernetesApiThrottled(lane.tag());
+            log.warn("API server throttled a {} request, pausing for {}ms, read rate now {}/s", 
+                lane.tag(), retryAfter.toMillis(), String.format("%.1f", reads.rate()));
+        } else if (lane == Lane.READ && response.isSuccessful()) {
+            reads.speedUp();
+        }
+    }
+    
+    private void await(Lane lane) throws InterruptedException {
+        long start = System.nanoTime();
+        Bucket bucket = lane == Lane.MUTATION ? mutations : reads;
+        if (lane == Lane.MUTATION) {
+            mutationsWaiting.incrementAndGet();
+        }
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long wait = Math.max(0, blockedUntil.get() - now);
+                if (wait == 0 && lane == Lane.READ && mutationsWaiting.get() > 0) {
+                    wait = YIELD_NANOS;
+                }
+                if (wait == 0) {
+                    wait = bucket.take(now);
+                }
+                if (wait == 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        } finally {
+            if (lane == Lane.MUTATION) {
+                mutationsWaiting.decrementAndGet();
+            }
+            metricsService.recordKubernetesApiWait(lane.tag(), Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+    
+    static Lane lane(HttpRequest request) {
+        if (request == null) {
+            return Lane.READ;
+        }
+        String method = request.method();
+        return "GET".equals(method) || "HEAD".equals(method) ? Lane.READ : Lane.MUTATION;
+    }
+    
+    /**
+     * Parses a Retry-After header, either delay seconds or an HTTP date.
+     */
+    static Duration retryAfter(String header, Instant now) {
+        if (header == null || header.isBlank()) {
+            return DEFAULT_RETRY_AFTER;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(header.trim())));
+        } catch (NumberFormatException e) {
+            // not seconds, try a date
+        }
+        try {
+            Instant at = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return at.isAfter(now) ? Duration.between(now, at) : Duration.ZERO;
+        } catch (DateTimeParseException e) {
+            return DEFAULT_RETRY_AFTER;
+        }
+    }
+    
+    /**
+     * A token bucket whose refill rate can be lowered, down to a tenth of
+     * the configured rate, and raised back. Times are {@link System#nanoTime()}.
+     */
+    static final class Bucket {
+        
+        private final double qps;
+        private final int burst;
+        private double rate;
+        private double tokens;
+        private long refilledAt;
+        
+        Bucket(double qps, int burst, long now) {
+            this.qps = qps;
+            this.burst = burst;
+            this.rate = qps;
+            this.tokens = burst;
+            this.refilledAt = now;
+        }
+        
+        /**
+         * Takes a token and returns 0, or returns the nanoseconds until
+         * one is available without taking anything.
+         */
+        synchronized long take(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / rate * 1e9));
+        }
+        
+        synchronized void slowDown() {
+            rate = Math.max(qps * MIN_RATE, rate / 2);
+        }
+        
+        synchronized void speedUp() {
+            rate = Math.min(qps, rate + qps * RECOVERY_STEP);
+        }
+        
+        synchronized double rate() {
+            return rate;
+        }
+    }
+}
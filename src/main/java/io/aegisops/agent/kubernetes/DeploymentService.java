@@ -15,13 +15,12 @@ import lombok.extern.slf4j.Slf4j;
 class DeploymentService {
     
     private final KubernetesClient kubernetesClient;
+    private final ApiRateLimiter rateLimiter;
+    private final KubernetesCache kubernetesCache;
     
     public Deployment getDeployment(String namespace, String deploymentName) {
         try {
-            return kubernetesClient.apps().deployments()
-                .inNamespace(namespace)
-                .withName(deploymentName)
-                .get();
+            return kubernetesCache.getDeployment(namespace, deploymentName);
         } catch (Exception e) {
             log.error("Failed to get deployment {}/{}: {}", namespace, deploymentName, e.getMessage());
             return null;
@@ -57,10 +56,10 @@ class DeploymentService {
     
     public boolean scaleDeployment(String namespace, String deploymentName, int replicas) {
         try {
-            kubernetesClient.apps().deployments()
+            rateLimiter.mutate(() -> kubernetesClient.apps().deployments()
                 .inNamespace(namespace)
                 .withName(deploymentName)
-                .scale(replicas);
+                .scale(replicas));
             
             log.info("Successfully scaled deployment {}/{} to {} replicas", 
                 namespace, deploymentName, replicas);
@@ -74,11 +73,11 @@ class DeploymentService {
     
     public boolean rolloutRestart(String namespace, String deploymentName) {
         try {
-            kubernetesClient.apps().deployments()
+            rateLimiter.mutate(() -> kubernetesClient.apps().deployments()
                 .inNamespace(namespace)
                 .withName(deploymentName)
                 .rolling()
-                .restart();
+                .restart());
             
             log.info("Successfully triggered rollout restart for deployment {}/{}", 
                 namespace, deploymentName);
@@ -92,10 +91,7 @@ class DeploymentService {
     
     public List<Deployment> listDeployments(String namespace) {
         try {
-            return kubernetesClient.apps().deployments()
-                .inNamespace(namespace)
-                .list()
-                .getItems();
+            return kubernetesCache.listDeployments(namespace);
         } catch (Exception e) {
             log.error("Failed to list deployments in namespace {}: {}", namespace, e.getMessage());
             return List.of();
@@ -105,7 +101,7 @@ class DeploymentService {
     public boolean updateDeploymentImage(String namespace, String deploymentName, 
                                          String containerName, String newImage) {
         try {
-            kubernetesClient.apps().deployments()
+            rateLimiter.mutate(() -> kubernetesClient.apps().deployments()
                 .inNamespace(namespace)
                 .withName(deploymentName)
                 .edit(deployment -> {
@@ -115,7 +111,7 @@ class DeploymentService {
                         .findFirst()
                         .ifPresent(c -> c.setImage(newImage));
                     return deployment;
-                });
+                }));
             
             log.info("Successfully updated image for deployment {}/{}", namespace, deploymentName);
             return true;
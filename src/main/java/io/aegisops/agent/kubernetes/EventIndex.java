@@ -0,0 +1,128 @@
+package io.aegisops.agent.kubernetes;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+
+/**
+ * Recent events per involved object, fed by the event informer. Each event
+ * is filed under the object's uid and under its namespace/name, so a
+ * lookup costs only the events of that object. At most
+ * {@code perObject} events are kept per object, newest first; an event
+ * that is updated (Kubernetes bumps its count and last timestamp) replaces
+ * its previous version.
+ * <p>
+ * Lists are copied on write, so readers never see one being changed.
+ */
+class EventIndex implements ResourceEventHandler<Event> {
+    
+    static final Comparator<Event> NEWEST_FIRST = Comparator.comparing(EventIndex::lastSeen).reversed();
+    
+    private final int perObject;
+    private final Map<String, List<Event>> byObject = new ConcurrentHashMap<>();
+    
+    EventIndex(int perObject) {
+        this.perObject = perObject;
+    }
+    
+    /**
+     * Events of the object with the given uid, or namespace/name key, newest
+     * first.
+     */
+    List<Event> find(String key) {
+        return byObject.getOrDefault(key, List.of());
+    }
+    
+    int objectCount() {
+        return byObject.size();
+    }
+    
+    @Override
+    public void onAdd(Event event) {
+        for (String key : keys(event)) {
+            byObject.compute(key, (k, events) -> insert(events, event));
+        }
+    }
+    
+    @Override
+    public void onUpdate(Event previous, Event event) {
+        if (!keys(previous).equals(keys(event))) {
+            onDelete(previous, false);
+        }
+        onAdd(event);
+    }
+    
+    @Override
+    public void onDelete(Event event, boolean finalStateUnknown) {
+        for (String key : keys(event)) {
+            byObject.computeIfPresent(key, (k, events) -> {
+                List<Event> remaining = new ArrayList<>(events);
+                remaining.removeIf(indexed -> sameEvent(indexed, event));
+                return remaining.isEmpty() ? null : List.copyOf(remaining);
+            });
+        }
+    }
+    
+    private List<Event> insert(List<Event> events, Event event) {
+        List<Event> updated = new ArrayList<>(events != null ? events.size() + 1 : 1);
+        if (events != null) {
+            for (Event indexed : events) {
+                if (!sameEvent(indexed, event)) {
+                    updated.add(indexed);
+                }
+            }
+        }
+        updated.add(event);
+        updated.sort(NEWEST_FIRST);
+        return List.copyOf(updated.size() > perObject ? updated.subList(0, perObject) : updated);
+    }
+    
+    static List<String> keys(Event event) {
+        ObjectReference involved = event.getInvolvedObject();
+        if (involved == null || involved.getName() == null) {
+            return List.of();
+        }
+        String namespace = involved.getNamespace() != null ? involved.getNamespace() : event.getMetadata().getNamespace();
+        String name = nameKey(namespace, involved.getName());
+        return involved.getUid() != null ? List.of(involved.getUid(), name) : List.of(name);
+    }
+    
+    static String nameKey(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+    
+    private static boolean sameEvent(Event a, Event b) {
+        return a.getMetadata().getName().equals(b.getMetadata().getName())
+            && a.getMetadata().getNamespace().equals(b.getMetadata().getNamespace());
+    }
+    
+    /**
+     * When the event last happened: its last timestamp, else its event time
+     * (events written through events.k8s.io), else when it was created.
+     */
+    static Instant lastSeen(Event event) {
+        String time = event.getLastTimestamp();
+        if (time == null && event.getEventTime() != null) {
+            time = event.getEventTime().getTime();
+        }
+        if (time == null) {
+            time = event.getMetadata().getCreationTimestamp();
+        }
+        if (time == null) {
+            return Instant.EPOCH;
+        }
+        try {
+            return Instant.parse(time);
+        } catch (DateTimeParseException e) {
+            return Instant.EPOCH;
+        }
+    }
+}
@@ -1,44 +1,74 @@
 package io.aegisops.agent.kubernetes;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import io.aegisops.agent.metrics.MetricsService;
 import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import lombok.RequiredArgsConstructor;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Pod and namespace events, answered from an {@link EventIndex} kept up to
+ * date by one event informer per allowed namespace (or one for all
+ * namespaces). Until an informer has finished its initial list, lookups in
+ * its namespace fall back to a list call, narrowed by field selector for
+ * single pods.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class EventService {
     
+    private static final int POD_EVENTS = 20;
+    private static final int NAMESPACE_EVENTS = 50;
+    
     private final KubernetesClient kubernetesClient;
+    private final ApiRateLimiter rateLimiter;
+    private final EventIndex index;
+    private final Map<String, SharedIndexInformer<Event>> informers = new ConcurrentHashMap<>();
+    
+    @Value("${aegisops.safety.allowed-namespaces}")
+    private String allowedNamespaces;
+    
+    public EventService(KubernetesClient kubernetesClient, ApiRateLimiter rateLimiter, MetricsService metricsService,
+                        @Value("${aegisops.kubernetes.events.per-object:20}") int perObject) {
+        this.kubernetesClient = kubernetesClient;
+        this.rateLimiter = rateLimiter;
+        this.index = new EventIndex(perObject);
+        metricsService.registerGauge("aegisops.index.size", "Entries in an in-memory index", 
+            index::objectCount, "index", "events");
+    }
     
     public String getPodEvents(String namespace, String podName) {
         try {
-            List<Event> events = kubernetesClient.v1().events()
-                .inNamespace(namespace)
-                .list()
-                .getItems()
-                .stream()
-                .filter(e -> e.getInvolvedObject() != null && 
-                            podName.equals(e.getInvolvedObject().getName()))
-                .sorted((e1, e2) -> {
-                    if (e1.getLastTimestamp() == null) return 1;
-                    if (e2.getLastTimestamp() == null) return -1;
-                    return e2.getLastTimestamp().compareTo(e1.getLastTimestamp());
-                })
-                .limit(20)
-                .toList();
+            List<Event> events = informer(namespace) != null
+                ? index.find(EventIndex.nameKey(namespace, podName))
+                : rateLimiter.read(() -> kubernetesClient.v1().events()
+                        .inNamespace(namespace)
+                        .withField("involvedObject.name", podName)
+                        .list())
+                    .getItems()
+                    .stream()
+                    .sorted(EventIndex.NEWEST_FIRST)
+                    .toList();
             
             if (events.isEmpty()) {
                 return "No events found";
             }
             
             return events.stream()
+                .limit(POD_EVENTS)
                 .map(e -> String.format("[%s] %s: %s - %s",
                     e.getType(),
                     e.getReason(),
@@ -54,17 +84,16 @@ public class EventService {
     
     public List<Event> getNamespaceEvents(String namespace) {
         try {
-            return kubernetesClient.v1().events()
-                .inNamespace(namespace)
-                .list()
-                .getItems()
-                .stream()
-                .sorted((e1, e2) -> {
-                    if (e1.getLastTimestamp() == null) return 1;
-                    if (e2.getLastTimestamp() == null) return -1;
-                    return e2.getLastTimestamp().compareTo(e1.getLastTimestamp());
-                })
-                .limit(50)
+            SharedIndexInformer<Event> informer = informer(namespace);
+            List<Event> events = informer != null
+                ? new ArrayList<>(informer.getIndexer().byIndex(Cache.NAMESPACE_INDEX, namespace))
+                : rateLimiter.read(() -> kubernetesClient.v1().events()
+                        .inNamespace(namespace)
+                        .list())
+                    .getItems();
+            return events.stream()
+                .sorted(EventIndex.NEWEST_FIRST)
+                .limit(NAMESPACE_EVENTS)
                 .toList();
                 
         } catch (Exception e) {
@@ -72,4 +101,40 @@ public class EventService {
             return List.of();
         }
     }
-}
\ No newline at end of file
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startInformers() {
+        for (String namespace : KubernetesCache.watchedNamespaces(allowedNamespaces)) {
+            SharedIndexInformer<Event> informer = namespace == null
+                ? kubernetesClient.v1().events().inAnyNamespace().runnableInformer(0)
+                : kubernetesClient.v1().events().inNamespace(namespace).runnableInformer(0);
+            informer.addEventHandler(index);
+            informers.put(namespace != null ? namespace : "*", informer);
+            informer.start().whenComplete((ignored, error) -> {
+                if (error != null) {
+                    log.warn("Event informer for namespace {} failed to start, listing events instead: {}", 
+                        namespace != null ? namespace : "*", error.getMessage());
+                } else {
+                    log.info("Event informer for namespace {} synced", namespace != null ? namespace : "*");
+                }
+            });
+        }
+    }
+    
+    @PreDestroy
+    public void stopInformers() {
+        informers.values().forEach(SharedIndexInformer::stop);
+        informers.clear();
+    }
+    
+    /**
+     * The synced informer covering {@code namespace}, or {@code null}.
+     */
+    private SharedIndexInformer<Event> informer(String namespace) {
+        SharedIndexInformer<Event> informer = informers.get(namespace);
+        if (informer == null) {
+            informer = informers.get("*");
+        }
+        return informer != null && informer.isRunning() && informer.hasSynced() ? informer : null;
+    }
+}
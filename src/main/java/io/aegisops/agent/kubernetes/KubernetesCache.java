@@ -0,0 +1,335 @@
+package io.aegisops.agent.kubernetes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntry;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watch-backed copies of the pods, deployments and ReplicaSets in the
+ * allowed namespaces, shared by every read path in the agent. Besides the
+ * namespace, objects are indexed by label ({@code namespace/key=value}) and
+ * by the uid of each owner.
+ * <p>
+ * Reads fall back to the API server while an informer has not synced and
+ * when an object is missing from the cache, since an alert can name a pod
+ * the watch has not delivered yet. Code that is about to change an object
+ * should not read it here: the cache can trail the server, and a write
+ * based on a stale resourceVersion is rejected anyway.
+ */
+@Service
+@Slf4j
+public class KubernetesCache {
+    
+    static final String LABEL_INDEX = "label";
+    static final String OWNER_INDEX = "owner";
+    
+    private final MetricsService metricsService;
+    private final ApiRateLimiter rateLimiter;
+    private final Cached<Pod> pods;
+    private final Cached<Deployment> deployments;
+    private final Cached<ReplicaSet> replicaSets;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    @Value("${aegisops.safety.allowed-namespaces}")
+    private String allowedNamespaces;
+    
+    public KubernetesCache(KubernetesClient kubernetesClient, ApiRateLimiter rateLimiter,
+                           MetricsService metricsService) {
+        this.metricsService = metricsService;
+        this.rateLimiter = rateLimiter;
+        this.pods = new Cached<>("pods", kubernetesClient.pods());
+        this.deployments = new Cached<>("deployments", kubernetesClient.apps().deployments());
+        this.replicaSets = new Cached<>("replicasets", kubernetesClient.apps().replicaSets());
+        
+        metricsService.registerGauge("aegisops.kubernetes.cache.hit.ratio", 
+            "Share of cache reads answered without calling the API server", 
+            () -> hits.get() + misses.get() == 0 ? 0 : (double) hits.get() / (hits.get() + misses.get()));
+    }
+    
+    public Pod getPod(String namespace, String name) {
+        return pods.get(namespace, name);
+    }
+    
+    public List<Pod> listPods(String namespace) {
+        return pods.list(namespace);
+    }
+    
+    public List<Pod> listPodsWithLabel(String namespace, String key, String value) {
+        return pods.withLabel(namespace, key, value);
+    }
+    
+    public List<Pod> listPodsOwnedBy(String namespace, String ownerUid) {
+        return pods.ownedBy(namespace, ownerUid);
+    }
+    
+    public Deployment getDeployment(String namespace, String name) {
+        return deployments.get(namespace, name);
+    }
+    
+    public List<Deployment> listDeployments(String namespace) {
+        return deployments.list(namespace);
+    }
+    
+    public ReplicaSet getReplicaSet(String namespace, String name) {
+        return replicaSets.get(namespace, name);
+    }
+    
+    public List<ReplicaSet> listReplicaSetsOwnedBy(String namespace, String ownerUid) {
+        return replicaSets.ownedBy(namespace, ownerUid);
+    }
+    
+    /**
+     * Passes every pod change the watches see to {@code listener}, on the
+     * informer's thread, so it must not block.
+     */
+    public void addPodListener(ResourceEventHandler<Pod> listener) {
+        pods.listeners.add(listener);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (String namespace : watchedNamespaces(allowedNamespaces)) {
+            pods.start(namespace);
+            deployments.start(namespace);
+            replicaSets.start(namespace);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        pods.stop();
+        deployments.stop();
+        replicaSets.stop();
+    }
+    
+    /**
+     * Namespaces to watch; a single {@code null} entry means all namespaces.
+     */
+    static List<String> watchedNamespaces(String allowedNamespaces) {
+        if (allowedNamespaces == null || allowedNamespaces.isBlank()) {
+            return Arrays.asList((String) null);
+        }
+        return Arrays.stream(allowedNamespaces.split(","))
+            .map(String::trim)
+            .filter(ns -> !ns.isEmpty())
+            .toList();
+    }
+    
+    static List<String> labelKeys(HasMetadata resource) {
+        Map<String, String> labels = resource.getMetadata().getLabels();
+        if (labels == null || labels.isEmpty()) {
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>(labels.size());
+        labels.forEach((key, value) -> keys.add(labelKey(resource.getMetadata().getNamespace(), key, value)));
+        return keys;
+    }
+    
+    static String labelKey(String namespace, String key, String value) {
+        return namespace + "/" + key + "=" + value;
+    }
+    
+    static List<String> ownerKeys(HasMetadata resource) {
+        List<OwnerReference> owners = resource.getMetadata().getOwnerReferences();
+        if (owners == null || owners.isEmpty()) {
+            return List.of();
+        }
+        return owners.stream().map(OwnerReference::getUid).toList();
+    }
+    
+    /**
+     * Time between the last write to an object, as recorded in its managed
+     * fields, and the watch delivering it; {@code null} if unknown.
+     */
+    static Duration lag(HasMetadata resource, Instant now) {
+        Instant written = null;
+        List<ManagedFieldsEntry> entries = resource.getMetadata().getManagedFields();
+        if (entries != null) {
+            for (ManagedFieldsEntry entry : entries) {
+                Instant time = parse(entry.getTime());
+                if (time != null && (written == null || time.isAfter(written))) {
+                    written = time;
+                }
+            }
+        }
+        if (written == null) {
+            written = parse(resource.getMetadata().getCreationTimestamp());
+        }
+        return written != null && !written.isAfter(now) ? Duration.between(written, now) : null;
+    }
+    
+    private static Instant parse(String time) {
+        try {
+            return time != null ? Instant.parse(time) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * One kind of object: an informer per watched namespace, or one for all
+     * namespaces under {@code "*"}.
+     */
+    private final class Cached<T extends HasMetadata> implements ResourceEventHandler<T> {
+        
+        private final String kind;
+        private final MixedOperation<T, ? extends KubernetesResourceList<T>, ? extends Resource<T>> api;
+        private final Map<String, SharedIndexInformer<T>> informers = new ConcurrentHashMap<>();
+        private final List<ResourceEventHandler<T>> listeners = new CopyOnWriteArrayList<>();
+        
+        Cached(String kind, MixedOperation<T, ? extends KubernetesResourceList<T>, ? extends Resource<T>> api) {
+            this.kind = kind;
+            this.api = api;
+            metricsService.registerGauge("aegisops.kubernetes.cache.size", "Objects held by the Kubernetes cache", 
+                () -> informers.values().stream().mapToInt(informer -> informer.getStore().listKeys().size()).sum(), 
+                "kind", kind);
+        }
+        
+        T get(String namespace, String name) {
+            SharedIndexInformer<T> informer = synced(namespace);
+            if (informer != null) {
+                T cached = informer.getStore().getByKey(Cache.namespaceKeyFunc(namespace, name));
+                if (cached != null) {
+                    hit();
+                    return cached;
+                }
+            }
+            miss();
+            return rateLimiter.read(() -> api.inNamespace(namespace).withName(name).get());
+        }
+        
+        List<T> list(String namespace) {
+            SharedIndexInformer<T> informer = synced(namespace);
+            if (informer != null) {
+                hit();
+                return informer.getIndexer().byIndex(Cache.NAMESPACE_INDEX, namespace);
+            }
+            miss();
+            return rateLimiter.read(() -> api.inNamespace(namespace).list()).getItems();
+        }
+        
+        List<T> withLabel(String namespace, String key, String value) {
+            SharedIndexInformer<T> informer = synced(namespace);
+            if (informer != null) {
+                hit();
+                return informer.getIndexer().byIndex(LABEL_INDEX, labelKey(namespace, key, value));
+            }
+            miss();
+            return rateLimiter.read(() -> api.inNamespace(namespace).withLabel(key, value).list()).getItems();
+        }
+        
+        List<T> ownedBy(String namespace, String ownerUid) {
+            SharedIndexInformer<T> informer = synced(namespace);
+            if (informer != null) {
+                hit();
+                return informer.getIndexer().byIndex(OWNER_INDEX, ownerUid).stream()
+                    .filter(resource -> namespace.equals(resource.getMetadata().getNamespace()))
+                    .toList();
+            }
+            miss();
+            return rateLimiter.read(() -> api.inNamespace(namespace).list()).getItems().stream()
+                .filter(resource -> ownerKeys(resource).contains(ownerUid))
+                .toList();
+        }
+        
+        void start(String namespace) {
+            String scope = namespace != null ? namespace : "*";
+            SharedIndexInformer<T> informer = namespace == null
+                ? api.inAnyNamespace().runnableInformer(0)
+                : api.inNamespace(namespace).runnableInformer(0);
+            informer.addIndexers(Map.of(LABEL_INDEX, KubernetesCache::labelKeys, OWNER_INDEX, KubernetesCache::ownerKeys));
+            informer.addEventHandler(this);
+            informers.put(scope, informer);
+            informer.start().whenComplete((ignored, error) -> {
+                if (error != null) {
+                    log.warn("{} informer for namespace {} failed to start, reading from the API server instead: {}", 
+                        kind, scope, error.getMessage());
+                } else {
+                    log.info("{} informer for namespace {} synced", kind, scope);
+                }
+            });
+        }
+        
+        void stop() {
+            informers.values().forEach(SharedIndexInformer::stop);
+            informers.clear();
+        }
+        
+        private SharedIndexInformer<T> synced(String namespace) {
+            SharedIndexInformer<T> informer = informers.get(namespace);
+            if (informer == null) {
+                informer = informers.get("*");
+            }
+            return informer != null && informer.isRunning() && informer.hasSynced() ? informer : null;
+        }
+        
+        @Override
+        public void onAdd(T resource) {
+            // objects from the initial list were written long ago; only count what the watch delivers
+            if (synced(resource.getMetadata().getNamespace()) != null) {
+                recordLag(resource);
+            }
+            listeners.forEach(listener -> listener.onAdd(resource));
+        }
+        
+        @Override
+        public void onUpdate(T previous, T resource) {
+            if (!resource.getMetadata().getResourceVersion().equals(previous.getMetadata().getResourceVersion())) {
+                recordLag(resource);
+            }
+            listeners.forEach(listener -> listener.onUpdate(previous, resource));
+        }
+        
+        @Override
+        public void onDelete(T resource, boolean finalStateUnknown) {
+            listeners.forEach(listener -> listener.onDelete(resource, finalStateUnknown));
+        }
+        
+        private void recordLag(T resource) {
+            Duration lag = lag(resource, Instant.now());
+            if (lag != null) {
+                metricsService.recordKubernetesCacheLag(kind, lag);
+            }
+        }
+        
+        private void hit() {
+            hits.incrementAndGet();
+            metricsService.incrementKubernetesCacheReads(kind, "hit");
+        }
+        
+        private void miss() {
+            misses.incrementAndGet();
+            metricsService.incrementKubernetesCacheReads(kind, "miss");
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package io.aegisops.agent.kubernetes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.ContainerResource;
+import io.fabric8.kubernetes.client.dsl.LogWatch;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Follows the logs of containers that look unhealthy into fixed-size
+ * {@link LogRingBuffer}s, so that by the time an alert arrives the output
+ * leading up to it is already in memory and {@link LogService} needs no API
+ * call to answer. A container is followed while it has restarted within
+ * {@code restart-window}, is in CrashLoopBackOff, or is running but failing
+ * its readiness probe.
+ * <p>
+ * Every buffer is {@code buffer-size}; at most {@code memory / buffer-size}
+ * exist at once and the least recently used is dropped, and its stream
+ * closed, to make room for a new one. A buffer outlives its stream: once a
+ * container recovers or its pod is deleted the stream stops, and the last
+ * output is only served for {@code STALE_AFTER} more. After that the
+ * container may have logged things the buffer never saw, so readers go to
+ * the API server instead.
+ * <p>
+ * When a stream ends, the follower reconnects after a per-container backoff
+ * that doubles from {@code RETRY} up to {@code MAX_RETRY} for as long as
+ * the streams keep ending at once, as they do while a container is in
+ * CrashLoopBackOff. The informer reporting a new running instance cuts the
+ * wait short, so each restart is still read from its start without polling
+ * the API server in the meantime.
+ */
+@Service
+@Slf4j
+public class LogFollower implements ResourceEventHandler<Pod> {
+    
+    private static final Duration STARTUP_GRACE = Duration.ofSeconds(30);
+    private static final Duration RETRY = Duration.ofSeconds(5);
+    private static final Duration MAX_RETRY = Duration.ofMinutes(5);
+    /** A stream open this long means the container ran; the backoff starts over. */
+    private static final Duration STABLE = Duration.ofMinutes(1);
+    private static final Duration STALE_AFTER = Duration.ofSeconds(30);
+    private static final int INITIAL_LINES = 1000;
+    private static final byte[] RESTARTED = "--- container restarted ---\n".getBytes(StandardCharsets.UTF_8);
+    
+    private final KubernetesClient kubernetesClient;
+    private final ApiRateLimiter rateLimiter;
+    private final MetricsService metricsService;
+    private final int bufferBytes;
+    private final int maxBuffers;
+    private final Duration restartWindow;
+    // access-ordered, so iteration starts at the least recently used; guarded by itself
+    private final Map<String, Followed> buffers = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    LogFollower(KubernetesClient kubernetesClient, ApiRateLimiter rateLimiter, KubernetesCache kubernetesCache,
+                MetricsService metricsService,
+                @Value("${aegisops.kubernetes.logs.follow:true}") boolean follow,
+                @Value("${aegisops.kubernetes.logs.buffer-size:64KB}") DataSize bufferSize,
+                @Value("${aegisops.kubernetes.logs.memory:16MB}") DataSize memory,
+                @Value("${aegisops.kubernetes.logs.restart-window:1h}") Duration restartWindow) {
+        this.kubernetesClient = kubernetesClient;
+        this.rateLimiter = rateLimiter;
+        this.metricsService = metricsService;
+        this.bufferBytes = Math.toIntExact(bufferSize.toBytes());
+        this.maxBuffers = (int) Math.max(1, memory.toBytes() / bufferSize.toBytes());
+        this.restartWindow = restartWindow;
+        
+        metricsService.registerGauge("aegisops.kubernetes.logs.buffers", 
+            "Containers whose recent logs are held in memory", this::bufferCount);
+        metricsService.registerGauge("aegisops.kubernetes.logs.following", 
+            "Containers whose logs are currently being streamed", this::followingCount);
+        if (follow) {
+            kubernetesCache.addPodListener(this);
+        }
+    }
+    
+    /**
+     * The buffer holding the recent output of a container, or {@code null}
+     * if it is not followed or its contents may be out of date. The previous
+     * instance, if it was seen, comes first, separated by a marker line.
+     */
+    LogRingBuffer buffer(String namespace, String podName, String container) {
+        Followed followed;
+        synchronized (buffers) {
+            followed = buffers.get(key(namespace, podName, container));
+        }
+        if (followed == null) {
+            metricsService.incrementLogBufferReads("miss");
+            return null;
+        }
+        if (!current(followed.buffer, followed.following, System.nanoTime())) {
+            metricsService.incrementLogBufferReads("stale");
+            return null;
+        }
+        metricsService.incrementLogBufferReads("hit");
+        return followed.buffer;
+    }
+    
+    /**
+     * Whether a buffer still holds everything the container logged lately:
+     * its stream is open, or it stopped so recently that little can have
+     * been missed.
+     */
+    static boolean current(LogRingBuffer buffer, boolean following, long now) {
+        if (buffer.empty()) {
+            return false;
+        }
+        return following || now - buffer.lastWrite() < STALE_AFTER.toNanos();
+    }
+    
+    @Override
+    public void onAdd(Pod pod) {
+        update(pod);
+    }
+    
+    @Override
+    public void onUpdate(Pod previous, Pod pod) {
+        update(pod);
+    }
+    
+    @Override
+    public void onDelete(Pod pod, boolean finalStateUnknown) {
+        String prefix = key(pod.getMetadata().getNamespace(), pod.getMetadata().getName(), "");
+        synchronized (buffers) {
+            buffers.forEach((key, followed) -> {
+                if (key.startsWith(prefix)) {
+                    followed.stop();
+                }
+            });
+        }
+    }
+    
+    private void update(Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getContainerStatuses() == null) {
+            return;
+        }
+        String namespace = pod.getMetadata().getNamespace();
+        String podName = pod.getMetadata().getName();
+        Instant now = Instant.now();
+        for (ContainerStatus status : pod.getStatus().getContainerStatuses()) {
+            String key = key(namespace, podName, status.getName());
+            boolean unhealthy = unhealthy(status, now, restartWindow);
+            synchronized (buffers) {
+                if (!unhealthy) {
+                    // recovered: stop streaming, keep what was captured
+                    if (buffers.containsKey(key) && buffers.get(key).following) {
+                        buffers.get(key).stop();
+                    }
+                    continue;
+                }
+                Followed followed = buffers.get(key);
+                if (followed == null) {
+                    followed = new Followed(new LogRingBuffer(bufferBytes));
+                    buffers.put(key, followed);
+                    evict();
+                }
+                if (followed.task == null || followed.task.isDone()) {
+                    Followed started = followed;
+                    started.following = true;
+                    started.task = executor.submit(() -> follow(started, namespace, podName, status.getName()));
+                } else if (status.getState() != null && status.getState().getRunning() != null) {
+                    followed.running(status.getState().getRunning().getStartedAt());
+                }
+            }
+        }
+    }
+    
+    private void evict() {
+        Iterator<Followed> eldest = buffers.values().iterator();
+        while (buffers.size() > maxBuffers) {
+            eldest.next().stop();
+            eldest.remove();
+        }
+    }
+    
+    private void follow(Followed followed, String namespace, String podName, String container) {
+        try {
+            stream(followed, namespace, podName, container);
+        } finally {
+            // however it ended, nothing writes to the buffer any more
+            followed.following = false;
+        }
+    }
+    
+    private void stream(Followed followed, String namespace, String podName, String container) {
+        ContainerResource resource = kubernetesClient.pods()
+            .inNamespace(namespace)
+            .withName(podName)
+            .inContainer(container);
+        if (followed.buffer.empty()) {
+            // the instance that crashed is usually the one worth reading
+            try (InputStream in = rateLimiter.read(
+                    () -> resource.terminated().tailingLines(INITIAL_LINES).getLogInputStream())) {
+                copy(in, followed.buffer);
+                followed.buffer.write(RESTARTED, 0, RESTARTED.length);
+            } catch (Exception e) {
+                log.debug("No previous logs for {}/{}/{}: {}", namespace, podName, container, e.getMessage());
+            }
+        }
+        
+        Instant streamEnded = null;
+        Duration retry = null;
+        while (followed.following) {
+            int since = streamEnded == null ? 0 
+                : (int) Math.max(1, Duration.between(streamEnded, Instant.now()).toSeconds() + 1);
+            followed.restarted = false;
+            Instant connected = Instant.now();
+            try (LogWatch watch = rateLimiter.read(() -> since == 0 
+                    ? resource.tailingLines(INITIAL_LINES).watchLog() 
+                    : resource.sinceSeconds(since).watchLog())) {
+                followed.watch = watch;
+                if (streamEnded != null) {
+                    followed.buffer.write(RESTARTED, 0, RESTARTED.length);
+                }
+                copy(watch.getOutput(), followed.buffer);
+            } catch (Exception e) {
+                if (followed.following) {
+                    log.debug("Log stream of {}/{}/{} failed: {}", namespace, podName, container, e.getMessage());
+                }
+            } finally {
+                followed.watch = null;
+            }
+            // the container exited or is waiting to start again
+            streamEnded = Instant.now();
+            retry = nextRetry(retry, Duration.between(connected, streamEnded));
+            if (!followed.await(retry)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * How long to wait before reconnecting after a stream that stayed open
+     * for {@code open}, given the previous wait ({@code null} at first).
+     */
+    static Duration nextRetry(Duration previous, Duration open) {
+        if (previous == null || open.compareTo(STABLE) >= 0) {
+            return RETRY;
+        }
+        Duration doubled = previous.multipliedBy(2);
+        return doubled.compareTo(MAX_RETRY) < 0 ? doubled : MAX_RETRY;
+    }
+    
+    private static void copy(InputStream in, LogRingBuffer buffer) throws IOException {
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+    }
+    
+    /**
+     * Whether a container's logs are worth following: it restarted within
+     * {@code restartWindow}, is backing off after a crash, or has been
+     * running for a while without becoming ready.
+     */
+    static boolean unhealthy(ContainerStatus status, Instant now, Duration restartWindow) {
+        if (status.getState() != null && status.getState().getWaiting() != null
+                && "CrashLoopBackOff".equals(status.getState().getWaiting().getReason())) {
+            return true;
+        }
+        if (status.getLastState() != null && status.getLastState().getTerminated() != null) {
+            Instant finished = parse(status.getLastState().getTerminated().getFinishedAt());
+            if (finished != null && finished.isAfter(now.minus(restartWindow))) {
+                return true;
+            }
+        }
+        if (status.getState() != null && status.getState().getRunning() != null 
+                && !Boolean.TRUE.equals(status.getReady())) {
+            Instant started = parse(status.getState().getRunning().getStartedAt());
+            return started != null && started.isBefore(now.minus(STARTUP_GRACE));
+        }
+        return false;
+    }
+    
+    private static Instant parse(String timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+    
+    private static String key(String namespace, String podName, String container) {
+        return namespace + "/" + podName + "/" + container;
+    }
+    
+    private int bufferCount() {
+        synchronized (buffers) {
+            return buffers.size();
+        }
+    }
+    
+    private int followingCount() {
+        synchronized (buffers) {
+            return (int) buffers.values().stream().filter(followed -> followed.following).count();
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        List<Followed> all;
+        synchronized (buffers) {
+            all = new ArrayList<>(buffers.values());
+        }
+        all.forEach(Followed::stop);
+        executor.shutdownNow();
+    }
+    
+    private static final class Followed {
+        
+        final LogRingBuffer buffer;
+        volatile boolean following;
+        volatile LogWatch watch;
+        volatile boolean restarted;
+        volatile Thread waiting;
+        Future<?> task;
+        // startedAt of the last running instance the informer reported; guarded by buffers
+        String startedAt;
+        
+        Followed(LogRingBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        /**
+         * Notes a running instance, waking the follower from its backoff if
+         * it is one that has not been seen yet.
+         */
+        void running(String instanceStartedAt) {
+            if (instanceStartedAt == null || instanceStartedAt.equals(startedAt)) {
+                return;
+            }
+            startedAt = instanceStartedAt;
+            restarted = true;
+            Thread current = waiting;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+        
+        /**
+         * Waits out a reconnect backoff, or less if a new instance starts or
+         * following stops.
+         *
+         * @return {@code false} if the thread was interrupted
+         */
+        boolean await(Duration timeout) {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            waiting = Thread.currentThread();
+            try {
+                while (following && !restarted) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                    if (Thread.interrupted()) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                waiting = null;
+            }
+        }
+        
+        void stop() {
+            following = false;
+            LogWatch current = watch;
+            if (current != null) {
+                current.close();
+            }
+            if (task != null) {
+                task.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package io.aegisops.agent.kubernetes;
+
+/**
+ * How much of a pod's logs to read: at most {@code lines} lines and
+ * {@code bytes} bytes per container, each line cut at {@code lineBytes}.
+ * With {@code previous}, containers that have restarted also contribute
+ * the logs of their previous instance.
+ */
+public record LogLimits(int lines, int bytes, int lineBytes, boolean previous) {
+}
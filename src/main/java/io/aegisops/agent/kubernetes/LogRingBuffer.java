@@ -0,0 +1,75 @@
+package io.aegisops.agent.kubernetes;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size byte ring holding the most recent output of one container.
+ * The array is allocated once, so a followed container costs exactly its
+ * capacity however much it logs.
+ */
+final class LogRingBuffer {
+    
+    private final byte[] buffer;
+    private long written;
+    private long lastWrite;
+    
+    LogRingBuffer(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+    
+    synchronized void write(byte[] bytes, int offset, int length) {
+        if (length > buffer.length) {
+            int skipped = length - buffer.length;
+            offset += skipped;
+            length -= skipped;
+            written += skipped;
+        }
+        int position = (int) (written % buffer.length);
+        int first = Math.min(length, buffer.length - position);
+        System.arraycopy(bytes, offset, buffer, position, first);
+        System.arraycopy(bytes, offset + first, buffer, 0, length - first);
+        written += length;
+        lastWrite = System.nanoTime();
+    }
+    
+    /**
+     * The buffered bytes, oldest first. Once the ring has wrapped, the
+     * partial line at the start is dropped.
+     */
+    synchronized byte[] snapshot() {
+        int size = (int) Math.min(written, buffer.length);
+        int start = (int) ((written - size) % buffer.length);
+        byte[] out = new byte[size];
+        int first = Math.min(size, buffer.length - start);
+        System.arraycopy(buffer, start, out, 0, first);
+        System.arraycopy(buffer, 0, out, first, size - first);
+        if (written > buffer.length) {
+            for (int i = 0; i < out.length; i++) {
+                if (out[i] == '\n') {
+                    return Arrays.copyOfRange(out, i + 1, out.length);
+                }
+            }
+        }
+        return out;
+    }
+    
+    synchronized boolean empty() {
+        return written == 0;
+    }
+    
+    /**
+     * {@link System#nanoTime()} of the last write; meaningless while
+     * {@link #empty()}.
+     */
+    synchronized long lastWrite() {
+        return lastWrite;
+    }
+    
+    synchronized boolean wrapped() {
+        return written > buffer.length;
+    }
+    
+    int capacity() {
+        return buffer.length;
+    }
+}
@@ -1,49 +1,125 @@
 package io.aegisops.agent.kubernetes;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.springframework.stereotype.Service;
 
+import io.aegisops.agent.kubernetes.PodLogs.ContainerLog;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import lombok.RequiredArgsConstructor;
+import io.fabric8.kubernetes.client.dsl.ContainerResource;
+import io.fabric8.kubernetes.client.dsl.Loggable;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Reads pod logs as streams, keeping only a bounded tail of each (see
+ * {@link LogTail}). All containers of a pod, and the previous instance of
+ * any that restarted, are read at once on virtual threads; for a
+ * CrashLoopBackOff pod the previous instance is where the useful output is.
+ * Containers that {@link LogFollower} is buffering are answered from memory
+ * instead, with no API call, as long as the buffer is still current.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class LogService {
     
     private final KubernetesClient kubernetesClient;
+    private final ApiRateLimiter rateLimiter;
+    private final KubernetesCache kubernetesCache;
+    private final LogFollower logFollower;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    LogService(KubernetesClient kubernetesClient, ApiRateLimiter rateLimiter, KubernetesCache kubernetesCache,
+               LogFollower logFollower) {
+        this.kubernetesClient = kubernetesClient;
+        this.rateLimiter = rateLimiter;
+        this.kubernetesCache = kubernetesCache;
+        this.logFollower = logFollower;
+    }
     
-    public String getPodLogs(String namespace, String podName, int lines) {
+    public PodLogs readPodLogs(String namespace, String podName, LogLimits limits) {
+        Pod pod = kubernetesCache.getPod(namespace, podName);
+        if (pod == null || pod.getSpec() == null) {
+            return new PodLogs(List.of());
+        }
+        Map<String, Integer> restarts = new HashMap<>();
+        if (pod.getStatus() != null && pod.getStatus().getContainerStatuses() != null) {
+            for (ContainerStatus status : pod.getStatus().getContainerStatuses()) {
+                restarts.put(status.getName(), status.getRestartCount() != null ? status.getRestartCount() : 0);
+            }
+        }
+        
+        List<Callable<ContainerLog>> reads = new ArrayList<>();
+        for (Container container : pod.getSpec().getContainers()) {
+            String name = container.getName();
+            LogRingBuffer buffer = logFollower.buffer(namespace, podName, name);
+            if (buffer != null) {
+                reads.add(() -> read(name, buffer, limits));
+                continue;
+            }
+            reads.add(() -> read(namespace, podName, name, false, limits));
+            if (limits.previous() && restarts.getOrDefault(name, 0) > 0) {
+                reads.add(() -> read(namespace, podName, name, true, limits));
+            }
+        }
+        
         try {
-            String logs = kubernetesClient.pods()
-                .inNamespace(namespace)
-                .withName(podName)
-                .tailingLines(lines)
-                .getLog();
-            
-            return logs != null ? logs : "No logs available";
-            
-        } catch (Exception e) {
-            log.warn("Failed to get logs for pod {}/{}: {}", namespace, podName, e.getMessage());
-            return "Error fetching logs: " + e.getMessage();
+            List<ContainerLog> logs = new ArrayList<>(reads.size());
+            for (Future<ContainerLog> read : executor.invokeAll(reads)) {
+                logs.add(read.get());
+            }
+            return new PodLogs(logs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new PodLogs(List.of());
+        } catch (ExecutionException e) {
+            // read() reports its own failures; anything else is a bug
+            throw new IllegalStateException(e.getCause());
         }
     }
     
-    public String getContainerLogs(String namespace, String podName, String containerName, int lines) {
-        try {
-            String logs = kubernetesClient.pods()
-                .inNamespace(namespace)
-                .withName(podName)
-                .inContainer(containerName)
-                .tailingLines(lines)
-                .getLog();
-            
-            return logs != null ? logs : "No logs available";
-            
+    private ContainerLog read(String namespace, String podName, String container, boolean previous, 
+                              LogLimits limits) {
+        ContainerResource resource = kubernetesClient.pods()
+            .inNamespace(namespace)
+            .withName(podName)
+            .inContainer(container);
+        Loggable loggable = previous
+            ? resource.terminated().tailingLines(limits.lines())
+            : resource.tailingLines(limits.lines());
+        try (InputStream in = rateLimiter.read(loggable::getLogInputStream)) {
+            LogTail tail = new LogTail(limits.lines(), limits.bytes(), limits.lineBytes()).read(in);
+            return new ContainerLog(container, previous, tail.text(), tail.lines(), tail.truncated(), null);
         } catch (Exception e) {
-            log.warn("Failed to get logs for container {}/{}/{}: {}", 
-                namespace, podName, containerName, e.getMessage());
-            return "Error fetching container logs: " + e.getMessage();
+            log.warn("Failed to read {}logs of {}/{}/{}: {}", previous ? "previous " : "", 
+                namespace, podName, container, e.getMessage());
+            return new ContainerLog(container, previous, "", 0, false, String.valueOf(e.getMessage()));
         }
     }
+    
+    private static ContainerLog read(String container, LogRingBuffer buffer, LogLimits limits) throws IOException {
+        LogTail tail = new LogTail(limits.lines(), limits.bytes(), limits.lineBytes())
+            .read(new ByteArrayInputStream(buffer.snapshot()));
+        return new ContainerLog(container, false, tail.text(), tail.lines(), tail.truncated() || buffer.wrapped(), 
+            null);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
 }
@@ -0,0 +1,94 @@
+package io.aegisops.agent.kubernetes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Keeps the last lines of a log stream within a line and byte budget. The
+ * stream is read in fixed chunks and each line is cut at
+ * {@code maxLineBytes}, so memory stays proportional to the budget however
+ * much the kubelet sends; a single multi-megabyte JSON line costs no more
+ * than a short one.
+ */
+final class LogTail {
+    
+    private final int maxLines;
+    private final int maxBytes;
+    private final byte[] line;
+    private final ArrayDeque<byte[]> lines = new ArrayDeque<>();
+    private int lineLength;
+    private long lineOverflow;
+    private int bytes;
+    private boolean truncated;
+    
+    LogTail(int maxLines, int maxBytes, int maxLineBytes) {
+        this.maxLines = maxLines;
+        this.maxBytes = maxBytes;
+        this.line = new byte[Math.min(maxLineBytes, maxBytes)];
+    }
+    
+    LogTail read(InputStream in) throws IOException {
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = chunk[i];
+                if (b == '\n') {
+                    endLine();
+                } else if (lineLength < line.length) {
+                    line[lineLength++] = b;
+                } else {
+                    lineOverflow++;
+                }
+            }
+        }
+        if (lineLength > 0 || lineOverflow > 0) {
+            endLine();
+        }
+        return this;
+    }
+    
+    private void endLine() {
+        byte[] text = Arrays.copyOf(line, lineLength);
+        if (lineOverflow > 0) {
+            byte[] marker = (" ... [" + lineOverflow + " bytes cut]").getBytes(StandardCharsets.UTF_8);
+            text = Arrays.copyOf(text, lineLength + marker.length);
+            System.arraycopy(marker, 0, text, lineLength, marker.length);
+            truncated = true;
+        }
+        lines.addLast(text);
+        bytes += text.length + 1;
+        while (lines.size() > 1 && (bytes > maxBytes || lines.size() > maxLines)) {
+            bytes -= lines.removeFirst().length + 1;
+            truncated = true;
+        }
+        lineLength = 0;
+        lineOverflow = 0;
+    }
+    
+    String text() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes);
+        for (byte[] text : lines) {
+            if (out.size() > 0) {
+                out.write('\n');
+            }
+            out.writeBytes(text);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+    
+    int lines() {
+        return lines.size();
+    }
+    
+    /**
+     * Whether lines were dropped from the front or cut short.
+     */
+    boolean truncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,52 @@
+package io.aegisops.agent.kubernetes;
+
+import java.util.List;
+
+/**
+ * Logs of every container of a pod, one entry per container instance read.
+ */
+public record PodLogs(List<ContainerLog> containers) {
+    
+    /**
+     * Logs of one container instance. {@code previous} marks the instance
+     * that ran before the last restart; {@code error} is set instead of
+     * {@code text} if the kubelet could not be read.
+     */
+    public record ContainerLog(String container, boolean previous, String text, int lines, boolean truncated, 
+                               String error) {
+    }
+    
+    /**
+     * Plain-text rendering for diagnosis: each container's current logs
+     * followed by its previous instance's, with a header whenever there is
+     * more than one section.
+     */
+    public String format() {
+        List<ContainerLog> sections = containers.stream()
+            .filter(log -> log.error() != null || !log.text().isEmpty())
+            .toList();
+        if (sections.isEmpty()) {
+            return "No logs available";
+        }
+        boolean named = containers.stream().map(ContainerLog::container).distinct().count() > 1;
+        StringBuilder out = new StringBuilder();
+        for (ContainerLog log : sections) {
+            if (out.length() > 0 || sections.size() > 1) {
+                if (out.length() > 0) {
+                    out.append('\n');
+                }
+                out.append("--- ").append(named ? log.container() + ", " : "")
+                    .append(log.previous() ? "previous container" : "current container").append(" ---\n");
+            }
+            if (log.error() != null) {
+                out.append("Error fetching logs: ").append(log.error());
+            } else {
+                if (log.truncated()) {
+                    out.append("[truncated, last ").append(log.lines()).append(" lines]\n");
+                }
+                out.append(log.text());
+            }
+        }
+        return out.toString();
+    }
+}
@@ -4,29 +4,69 @@ import java.util.List;
 
 import org.springframework.stereotype.Service;
 
+import io.fabric8.kubernetes.api.model.ContainerState;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.api.model.PodStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-class PodService {
+public class PodService {
     
-    private final KubernetesClient kubernetesClient;
+    private final KubernetesCache kubernetesCache;
     
     public Pod getPod(String namespace, String podName) {
-        return kubernetesClient.pods()
-            .inNamespace(namespace)
-            .withName(podName)
-            .get();
+        return kubernetesCache.getPod(namespace, podName);
+    }
+    
+    /**
+     * One-line-per-container summary of the pod's phase, restart counts and
+     * current/last container states, or {@code null} if the pod is gone.
+     */
+    public String describePodStatus(String namespace, String podName) {
+        Pod pod = getPod(namespace, podName);
+        if (pod == null || pod.getStatus() == null) {
+            return null;
+        }
+        
+        PodStatus status = pod.getStatus();
+        StringBuilder summary = new StringBuilder("Phase: ").append(status.getPhase());
+        if (status.getReason() != null) {
+            summary.append(" (").append(status.getReason()).append(")");
+        }
+        
+        if (status.getContainerStatuses() != null) {
+            for (ContainerStatus container : status.getContainerStatuses()) {
+                summary.append("\n").append(container.getName())
+                    .append(": ready=").append(container.getReady())
+                    .append(", restarts=").append(container.getRestartCount())
+                    .append(", state=").append(describeState(container.getState()));
+                if (container.getLastState() != null && container.getLastState().getTerminated() != null) {
+                    summary.append(", last=").append(describeState(container.getLastState()));
+                }
+            }
+        }
+        return summary.toString();
+    }
+    
+    private String describeState(ContainerState state) {
+        if (state == null) {
+            return "unknown";
+        }
+        if (state.getWaiting() != null) {
+            return "waiting(" + state.getWaiting().getReason() + ")";
+        }
+        if (state.getTerminated() != null) {
+            return "terminated(" + state.getTerminated().getReason() + ", exitCode=" 
+                + state.getTerminated().getExitCode() + ")";
+        }
+        return state.getRunning() != null ? "running" : "unknown";
     }
     
     public List<Pod> listPods(String namespace) {
-        return kubernetesClient.pods()
-            .inNamespace(namespace)
-            .list()
-            .getItems();
+        return kubernetesCache.listPods(namespace);
     }
 }
\ No newline at end of file
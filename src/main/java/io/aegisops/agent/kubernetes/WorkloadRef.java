@@ -0,0 +1,19 @@
+package io.aegisops.agent.kubernetes;
+
+/**
+ * The controller that owns a pod, resolved through its ownerReferences. A pod
+ * without a controller is its own workload with kind {@code Pod}.
+ */
+public record WorkloadRef(String kind, String name) {
+    
+    public static final String DEPLOYMENT = "Deployment";
+    public static final String STATEFUL_SET = "StatefulSet";
+    public static final String DAEMON_SET = "DaemonSet";
+    public static final String REPLICA_SET = "ReplicaSet";
+    public static final String JOB = "Job";
+    public static final String POD = "Pod";
+    
+    public boolean isDeployment() {
+        return DEPLOYMENT.equals(kind);
+    }
+}
@@ -0,0 +1,64 @@
+package io.aegisops.agent.kubernetes;
+
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the workload behind a pod by following controller ownerReferences
+ * (pod -> ReplicaSet -> Deployment). Both hops are read from the
+ * {@link KubernetesCache}, so a warm lookup is two hash lookups and always
+ * reflects the latest ownership the watches have seen.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkloadResolver {
+    
+    private final KubernetesCache kubernetesCache;
+    
+    public Optional<WorkloadRef> resolve(String namespace, String podName) {
+        if (podName == null) {
+            return Optional.empty();
+        }
+        
+        try {
+            Pod pod = kubernetesCache.getPod(namespace, podName);
+            if (pod == null) {
+                log.debug("Pod {}/{} not found, cannot resolve workload", namespace, podName);
+                return Optional.empty();
+            }
+            WorkloadRef controller = controllerOf(pod, WorkloadRef.POD);
+            if (!WorkloadRef.REPLICA_SET.equals(controller.kind())) {
+                return Optional.of(controller);
+            }
+            
+            ReplicaSet replicaSet = kubernetesCache.getReplicaSet(namespace, controller.name());
+            return Optional.of(replicaSet != null ? controllerOf(replicaSet, WorkloadRef.REPLICA_SET) : controller);
+            
+        } catch (Exception e) {
+            log.warn("Failed to resolve workload for pod {}/{}: {}", namespace, podName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private static WorkloadRef controllerOf(HasMetadata resource, String selfKind) {
+        ObjectMeta metadata = resource.getMetadata();
+        if (metadata.getOwnerReferences() != null) {
+            for (OwnerReference owner : metadata.getOwnerReferences()) {
+                if (Boolean.TRUE.equals(owner.getController())) {
+                    return new WorkloadRef(owner.getKind(), owner.getName());
+                }
+            }
+        }
+        return new WorkloadRef(selfKind, metadata.getName());
+    }
+}
@@ -1,7 +1,9 @@
 package io.aegisops.agent.metrics;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.springframework.stereotype.Service;
 
@@ -21,8 +23,18 @@ public class MetricsService {
     private final Counter actionsFailed;
     private final AtomicInteger approvalsPending;
     private final Timer mttrTimer;
+    private final Counter dedupHits;
+    private final Counter dedupMisses;
+    private final Counter dedupEvictions;
+    private final Counter ingestRejected;
+    private final Counter alertsCoalesced;
+    private final Counter persistenceUpdates;
+    private final Counter persistenceWrites;
+    private final MeterRegistry registry;
     
     public MetricsService(MeterRegistry registry) {
+        this.registry = registry;
+        
         this.alertsReceived = Counter.builder("aegisops.alerts.received")
             .description("Total alerts received")
             .register(registry);
@@ -47,6 +59,48 @@ public class MetricsService {
         this.mttrTimer = Timer.builder("aegisops.mttr")
             .description("Mean Time To Recovery")
             .register(registry);
+        
+        this.dedupHits = Counter.builder("aegisops.dedup.hits")
+            .description("Alert resends mapped to an open incident")
+            .register(registry);
+        
+        this.dedupMisses = Counter.builder("aegisops.dedup.misses")
+            .description("Alerts that opened a new incident")
+            .register(registry);
+        
+        this.dedupEvictions = Counter.builder("aegisops.dedup.evictions")
+            .description("Fingerprints evicted from the dedup cache")
+            .register(registry);
+        
+        this.ingestRejected = Counter.builder("aegisops.ingest.rejected")
+            .description("Alert batches rejected because the ingestion queue was full")
+            .register(registry);
+        
+        this.alertsCoalesced = Counter.builder("aegisops.alerts.coalesced")
+            .description("Alerts folded into an existing incident for the same workload")
+            .register(registry);
+        
+        this.persistenceUpdates = Counter.builder("aegisops.persistence.updates")
+            .description("Incident changes handed to the write-behind store")
+            .register(registry);
+        
+        this.persistenceWrites = Counter.builder("aegisops.persistence.writes")
+            .description("Incident rows actually written to the database")
+            .register(registry);
+    }
+    
+    public void registerGauge(String name, String description, Supplier<Number> value, String... tags) {
+        Gauge.builder(name, value)
+            .description(description)
+            .tags(tags)
+            .register(registry);
+    }
+    
+    public Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+            .description(description)
+            .tags(tags)
+            .register(registry);
     }
     
     public void incrementAlertsReceived() {
@@ -73,6 +127,110 @@ public class MetricsService {
         approvalsPending.decrementAndGet();
     }
     
+    public void incrementDedupHits() {
+        dedupHits.increment();
+    }
+    
+    public void incrementDedupMisses() {
+        dedupMisses.increment();
+    }
+    
+    public void incrementDedupEvictions(int count) {
+        dedupEvictions.increment(count);
+    }
+    
+    public void incrementIngestRejected() {
+        ingestRejected.increment();
+    }
+    
+    public void incrementAlertsCoalesced() {
+        alertsCoalesced.increment();
+    }
+    
+    public void incrementPersistenceUpdates() {
+        persistenceUpdates.increment();
+    }
+    
+    public void incrementPersistenceWrites(int count) {
+        persistenceWrites.increment(count);
+    }
+    
+    public void incrementIndexDrift(String index, int count) {
+        Counter.builder("aegisops.index.drift")
+            .description("Index entries found out of sync with the store and repaired")
+            .tag("index", index)
+            .register(registry)
+            .increment(count);
+    }
+    
+    public void incrementStoreReclaimed(long bytes) {
+        Counter.builder("aegisops.store.reclaimed")
+            .description("Bytes freed by compacting the local store")
+            .baseUnit("bytes")
+            .register(registry)
+            .increment(bytes);
+    }
+    
+    public void incrementRetention(String tier, int count) {
+        Counter.builder("aegisops.retention.incidents")
+            .description("Incidents moved to a colder retention tier")
+            .tag("tier", tier)
+            .register(registry)
+            .increment(count);
+    }
+    
+    public void incrementStreamOverflows() {
+        Counter.builder("aegisops.stream.overflows")
+            .description("Change stream subscribers disconnected for falling behind")
+            .register(registry)
+            .increment();
+    }
+    
+    public void incrementKubernetesCacheReads(String kind, String result) {
+        Counter.builder("aegisops.kubernetes.cache.reads")
+            .description("Kubernetes object reads, answered from the cache (hit) or the API server (miss)")
+            .tag("kind", kind)
+            .tag("result", result)
+            .register(registry)
+            .increment();
+    }
+    
+    public void incrementLogBufferReads(String result) {
+        Counter.builder("aegisops.kubernetes.logs.buffer.reads")
+            .description("Container log reads, answered from a followed buffer (hit) or the API server (miss, stale)")
+            .tag("result", result)
+            .register(registry)
+            .increment();
+    }
+    
+    public void incrementKubernetesApiThrottled(String lane) {
+        Counter.builder("aegisops.kubernetes.api.throttled")
+            .description("Kubernetes API requests rejected with 429 by the API server")
+            .tag("lane", lane)
+            .register(registry)
+            .increment();
+    }
+    
+    public void recordKubernetesApiWait(String lane, Duration wait) {
+        timer("aegisops.kubernetes.api.wait", "Time a Kubernetes API request waited in the client-side rate limiter", 
+            "lane", lane).record(wait);
+    }
+    
+    public void recordKubernetesCacheLag(String kind, Duration lag) {
+        timer("aegisops.kubernetes.cache.lag", "Time from a write to a Kubernetes object until the cache sees it", 
+            "kind", kind).record(lag);
+    }
+    
+    public void recordEnrichmentLatency(String source, String outcome, long nanos) {
+        timer("aegisops.enrichment.latency", "Time to fetch one enrichment source", 
+            "source", source, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordStateDwell(String state, Duration dwell) {
+        timer("aegisops.incident.dwell", "Time incidents spend in a status before leaving it", 
+            "state", state).record(dwell);
+    }
+    
     public void recordMTTR(long milliseconds) {
         mttrTimer.record(milliseconds, TimeUnit.MILLISECONDS);
         log.info("MTTR recorded: {}ms", milliseconds);
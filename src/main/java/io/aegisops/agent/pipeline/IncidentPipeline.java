@@ -0,0 +1,121 @@
+package io.aegisops.agent.pipeline;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.metrics.MetricsService;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The stages an incident moves through: ingest -> enrich -> diagnose ->
+ * decide -> remediate -> verify. Each stage is sized on its own under
+ * {@code aegisops.pipeline.<stage>.*} (concurrency, queue-capacity,
+ * virtual-threads). Stages that block on the Kubernetes API or the LLM run
+ * on virtual threads by default. Remediations go through
+ * {@link #getRemediateByWorkload()} so two actions on the same workload never
+ * overlap.
+ * <p>
+ * On shutdown the pipeline stops taking new incidents and drains the stages
+ * front to back within {@code aegisops.pipeline.drain-timeout}. Whatever is
+ * still queued after that is dropped; those incidents keep their last
+ * persisted status and are picked up again by recovery on the next start.
+ */
+@Component
+@Getter
+@Slf4j
+public class IncidentPipeline implements SmartLifecycle {
+    
+    private final PipelineStage ingest;
+    private final PipelineStage enrich;
+    private final PipelineStage diagnose;
+    private final PipelineStage decide;
+    private final PipelineStage remediate;
+    private final PipelineStage verify;
+    private final KeyedSerialExecutor remediateByWorkload;
+    @Getter(AccessLevel.NONE)
+    private final Duration drainTimeout;
+    @Getter(AccessLevel.NONE)
+    private volatile boolean accepting = true;
+    
+    public IncidentPipeline(Environment environment, MetricsService metricsService) {
+        this.ingest = stage(environment, metricsService, "ingest", 2, false);
+        this.enrich = stage(environment, metricsService, "enrich", 32, true);
+        this.diagnose = stage(environment, metricsService, "diagnose", 16, true);
+        this.decide = stage(environment, metricsService, "decide", 2, false);
+        this.remediate = stage(environment, metricsService, "remediate", 8, true);
+        this.verify = stage(environment, metricsService, "verify", 2, false);
+        this.remediateByWorkload = new KeyedSerialExecutor(remediate, metricsService);
+        this.drainTimeout = DurationStyle.detectAndParse(
+            environment.getProperty("aegisops.pipeline.drain-timeout", "30s"));
+    }
+    
+    /**
+     * {@code false} once shutdown has begun; new incidents should be refused
+     * so the sender retries against another replica or after the restart.
+     */
+    public boolean isAccepting() {
+        return accepting;
+    }
+    
+    /**
+     * Tasks queued across all stages, not counting those running. Background
+     * work uses it to stay out of the way while the pipeline is busy.
+     */
+    public int backlog() {
+        return ingest.depth() + enrich.depth() + diagnose.depth() + decide.depth() + remediate.depth() 
+            + verify.depth();
+    }
+    
+    @Override
+    public void start() {
+        accepting = true;
+    }
+    
+    @Override
+    public void stop() {
+        accepting = false;
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        List<PipelineStage> stages = List.of(ingest, enrich, diagnose, decide, remediate, verify);
+        int dropped = 0;
+        for (PipelineStage stage : stages) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!stage.shutdown(Duration.ofNanos(remaining))) {
+                    dropped += stage.shutdownNow();
+                    log.warn("Pipeline stage {} did not drain within {}", stage.getName(), drainTimeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped += stage.shutdownNow();
+            }
+        }
+        if (dropped > 0) {
+            log.warn("Dropped {} queued pipeline tasks on shutdown; their incidents resume on next start", dropped);
+        } else {
+            log.info("Incident pipeline drained");
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return accepting && !ingest.isShutdown();
+    }
+    
+    private static PipelineStage stage(Environment environment, MetricsService metricsService, String name,
+                                       int defaultConcurrency, boolean defaultVirtual) {
+        String prefix = "aegisops.pipeline." + name + ".";
+        return new PipelineStage(
+            name,
+            environment.getProperty(prefix + "concurrency", Integer.class, defaultConcurrency),
+            environment.getProperty(prefix + "queue-capacity", Integer.class, 1000),
+            environment.getProperty(prefix + "virtual-threads", Boolean.class, defaultVirtual),
+            metricsService);
+    }
+}
@@ -0,0 +1,145 @@
+package io.aegisops.agent.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs tasks on a {@link PipelineStage} so that tasks sharing a key run one
+ * at a time, in submission order, while tasks for different keys run in
+ * parallel. Each key has its own queue; at most one of its tasks is in the
+ * stage at any time, and the next is handed over when that one finishes.
+ * Per-key state is only touched inside {@link ConcurrentHashMap#compute},
+ * which locks that key's bin and nothing else, and idle keys are dropped.
+ * If the stage refuses a key's first task, the key is dropped as well and
+ * the caller sees the rejection; the tasks already queued behind it are
+ * handed to their own rejection handlers, since their callers have long
+ * returned.
+ */
+@Slf4j
+public class KeyedSerialExecutor {
+    
+    private final PipelineStage stage;
+    private final Map<Object, KeyQueue> queues = new ConcurrentHashMap<>();
+    private final Timer keyWaitTimer;
+    
+    public KeyedSerialExecutor(PipelineStage stage, MetricsService metricsService) {
+        this.stage = stage;
+        this.keyWaitTimer = metricsService.timer("aegisops.pipeline.key.wait", 
+            "Time a task waits behind earlier tasks for the same key, including the stage queue", 
+            "stage", stage.getName());
+        metricsService.registerGauge("aegisops.pipeline.keys.active", "Keys with queued or running tasks", 
+            queues::size, "stage", stage.getName());
+    }
+    
+    public void submit(Object key, Runnable task) {
+        submit(key, task, e -> log.warn("Dropped a task queued behind a rejected task for {} on stage {}", 
+            key, stage.getName()));
+    }
+    
+    /**
+     * Like {@link #submit(Object, Runnable)}, passing the stage's rejection
+     * to {@code onRejected} if the task was queued behind one the stage
+     * refused, so it never runs.
+     */
+    public void submit(Object key, Runnable task, Consumer<RuntimeException> onRejected) {
+        Task queued = new Task(task, onRejected, System.nanoTime());
+        boolean[] start = new boolean[1];
+        queues.compute(key, (k, queue) -> {
+            if (queue == null) {
+                queue = new KeyQueue();
+            }
+            if (queue.running) {
+                queue.pending.add(queued);
+            } else {
+                queue.running = true;
+                start[0] = true;
+            }
+            return queue;
+        });
+        if (start[0]) {
+            try {
+                dispatch(key, queued);
+            } catch (RuntimeException e) {
+                // nothing will ever advance this key; free it so later tasks are not stuck behind it
+                List<Task> dropped = new ArrayList<>();
+                queues.computeIfPresent(key, (k, queue) -> {
+                    dropped.addAll(queue.pending);
+                    return null;
+                });
+                for (Task behind : dropped) {
+                    reject(key, behind, e);
+                }
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Number of tasks waiting behind a running task for the same key.
+     */
+    public int pending(Object key) {
+        int[] size = new int[1];
+        queues.computeIfPresent(key, (k, queue) -> {
+            size[0] = queue.pending.size();
+            return queue;
+        });
+        return size[0];
+    }
+    
+    private void dispatch(Object key, Task first) {
+        // Follow-up tasks for the key run on the same worker rather than being
+        // resubmitted, so a worker never blocks on its own stage's full queue.
+        stage.submit(() -> {
+            Task task = first;
+            while (task != null) {
+                keyWaitTimer.record(System.nanoTime() - task.submittedAt(), TimeUnit.NANOSECONDS);
+                try {
+                    task.runnable().run();
+                } catch (RuntimeException e) {
+                    log.error("Unhandled error in keyed task for {} on stage {}", key, stage.getName(), e);
+                } finally {
+                    task = advance(key);
+                }
+            }
+        });
+    }
+    
+    private void reject(Object key, Task task, RuntimeException e) {
+        try {
+            task.onRejected().accept(e);
+        } catch (RuntimeException handlerError) {
+            log.error("Rejection handler failed for {} on stage {}", key, stage.getName(), handlerError);
+        }
+    }
+    
+    private Task advance(Object key) {
+        Task[] next = new Task[1];
+        queues.compute(key, (k, queue) -> {
+            next[0] = queue.pending.poll();
+            if (next[0] == null) {
+                return null;
+            }
+            return queue;
+        });
+        return next[0];
+    }
+    
+    private record Task(Runnable runnable, Consumer<RuntimeException> onRejected, long submittedAt) {
+    }
+    
+    /** Guarded by the owning map bin; only read or written inside compute. */
+    private static final class KeyQueue {
+        private final Queue<Task> pending = new ArrayDeque<>();
+        private boolean running;
+    }
+}
@@ -0,0 +1,107 @@
+package io.aegisops.agent.pipeline;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One stage of the incident pipeline: a fixed number of workers draining a
+ * bounded queue. When the queue is full, {@link #submit} blocks the caller,
+ * so a slow stage pushes back on the stage in front of it instead of
+ * buffering without limit. Exports queue depth, queue wait time and service
+ * time, tagged with the stage name.
+ */
+@Slf4j
+public class PipelineStage {
+    
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Timer serviceTimer;
+    
+    public PipelineStage(String name, int concurrency, int queueCapacity, boolean virtualThreads,
+                         MetricsService metricsService) {
+        this.name = name;
+        
+        ThreadFactory threadFactory = virtualThreads
+            ? Thread.ofVirtual().name("pipeline-" + name + "-", 0).factory()
+            : Thread.ofPlatform().name("pipeline-" + name + "-", 0).factory();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, PipelineStage::blockUntilQueued);
+        
+        this.waitTimer = metricsService.timer("aegisops.pipeline.wait", "Time incidents spend queued before a stage", 
+            "stage", name);
+        this.serviceTimer = metricsService.timer("aegisops.pipeline.service", "Time a stage spends on one incident", 
+            "stage", name);
+        metricsService.registerGauge("aegisops.pipeline.depth", "Incidents queued for a stage", 
+            () -> executor.getQueue().size(), "stage", name);
+        
+        log.info("Pipeline stage {}: {} {} workers, queue capacity {}", 
+            name, concurrency, virtualThreads ? "virtual" : "platform", queueCapacity);
+    }
+    
+    public void submit(Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        executor.execute(() -> {
+            long startedAt = System.nanoTime();
+            waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Unhandled error in pipeline stage {}", name, e);
+            } finally {
+                serviceTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int depth() {
+        return executor.getQueue().size();
+    }
+    
+    /**
+     * Stops accepting work and waits for queued and running tasks to finish.
+     *
+     * @return {@code true} if the stage drained within the timeout
+     */
+    public boolean shutdown(Duration timeout) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stops the stage immediately, interrupting running tasks.
+     *
+     * @return the number of queued tasks that never started
+     */
+    public int shutdownNow() {
+        return executor.shutdownNow().size();
+    }
+    
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+    
+    private static void blockUntilQueued(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Pipeline stage is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for stage queue", e);
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package io.aegisops.agent.remediation;
 
 import java.time.Instant;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.kubernetes.ApiRateLimiter;
+import io.aegisops.agent.kubernetes.KubernetesCache;
+import io.aegisops.agent.kubernetes.WorkloadRef;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.utils.Serialization;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -16,7 +28,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ActionExecutor {
     
+    /** Set on a workload in the same write as the action, naming the incident that changed it. */
+    static final String REMEDIATED_BY_ANNOTATION = "aegisops.io/remediated-by";
+    
     private final KubernetesClient kubernetesClient;
+    private final ApiRateLimiter rateLimiter;
+    private final KubernetesCache kubernetesCache;
     
     @Value("${aegisops.safety.max-replicas}")
     private int maxReplicas;
@@ -71,10 +88,19 @@ public class ActionExecutor {
             return successResult("RESTART_POD", "Dry run: pod would be deleted");
         }
         
-        kubernetesClient.pods()
+        Pod pod = rateLimiter.read(() -> kubernetesClient.pods()
+            .inNamespace(incident.getNamespace())
+            .withName(incident.getPodName())
+            .get());
+        if (pod == null || createdSinceRemediationStarted(pod, incident)) {
+            // an earlier attempt for this incident already deleted it
+            return successResult("RESTART_POD", "Pod already restarted");
+        }
+        
+        rateLimiter.mutate(() -> kubernetesClient.pods()
             .inNamespace(incident.getNamespace())
             .withName(incident.getPodName())
-            .delete();
+            .delete());
         
         log.info("Deleted pod {}/{}", incident.getNamespace(), incident.getPodName());
         
@@ -83,20 +109,31 @@ public class ActionExecutor {
     }
     
     private RemediationResult scaleDeployment(Incident incident, boolean dryRun) {
-        if (incident.getDeploymentName() == null) {
-            return failedResult("SCALE_DEPLOYMENT", "Deployment name is null");
+        if (incident.getWorkloadName() == null) {
+            return failedResult("SCALE_DEPLOYMENT", "Workload name is null");
         }
         
-        Deployment deployment = kubernetesClient.apps().deployments()
-            .inNamespace(incident.getNamespace())
-            .withName(incident.getDeploymentName())
-            .get();
+        RollableScalableResource<? extends HasMetadata> resource = scalableResource(incident);
+        if (resource == null) {
+            return failedResult("SCALE_DEPLOYMENT", 
+                "Workload kind " + incident.getWorkloadKind() + " cannot be scaled");
+        }
         
-        if (deployment == null) {
-            return failedResult("SCALE_DEPLOYMENT", "Deployment not found");
+        // a dry run changes nothing, so the cached copy will do; a real change reads
+        // the live object, whose resourceVersion then guards the patch
+        HasMetadata workload = dryRun && WorkloadRef.DEPLOYMENT.equals(incident.getWorkloadKind())
+            ? kubernetesCache.getDeployment(incident.getNamespace(), incident.getWorkloadName())
+            : rateLimiter.read(resource::get);
+        Integer specReplicas = specReplicas(workload);
+        if (specReplicas == null) {
+            return failedResult("SCALE_DEPLOYMENT", incident.getWorkloadKind() + " not found");
+        }
+        if (alreadyApplied(workload, incident)) {
+            return successResult("SCALE_DEPLOYMENT", 
+                String.format("Already scaled by an earlier attempt, at %d replicas", specReplicas));
         }
         
-        int currentReplicas = deployment.getSpec().getReplicas();
+        int currentReplicas = specReplicas;
         int newReplicas = Math.min(currentReplicas + 1, maxReplicas);
         
         if (newReplicas == currentReplicas) {
@@ -105,21 +142,20 @@ public class ActionExecutor {
         }
         
         if (dryRun) {
-            log.info("DRY RUN: Would scale {}/{} from {} to {} replicas", 
-                incident.getNamespace(), incident.getDeploymentName(), 
+            log.info("DRY RUN: Would scale {} {}/{} from {} to {} replicas", 
+                incident.getWorkloadKind(), incident.getNamespace(), incident.getWorkloadName(), 
                 currentReplicas, newReplicas);
             return successResult("SCALE_DEPLOYMENT", 
                 String.format("Dry run: would scale from %d to %d replicas", 
                     currentReplicas, newReplicas));
         }
         
-        kubernetesClient.apps().deployments()
-            .inNamespace(incident.getNamespace())
-            .withName(incident.getDeploymentName())
-            .scale(newReplicas);
+        // one merge patch: the new replica count, the guard annotation, and the
+        // resourceVersion we read so a concurrent change makes this fail instead
+        patch(resource, workload, incident, Map.of("replicas", newReplicas));
         
-        log.info("Scaled {}/{} from {} to {} replicas", 
-            incident.getNamespace(), incident.getDeploymentName(), 
+        log.info("Scaled {} {}/{} from {} to {} replicas", 
+            incident.getWorkloadKind(), incident.getNamespace(), incident.getWorkloadName(), 
             currentReplicas, newReplicas);
         
         return successResult("SCALE_DEPLOYMENT", 
@@ -127,28 +163,98 @@ public class ActionExecutor {
     }
     
     private RemediationResult rolloutRestart(Incident incident, boolean dryRun) {
-        if (incident.getDeploymentName() == null) {
-            return failedResult("ROLLOUT_RESTART", "Deployment name is null");
+        if (incident.getWorkloadName() == null) {
+            return failedResult("ROLLOUT_RESTART", "Workload name is null");
+        }
+        
+        RollableScalableResource<? extends HasMetadata> resource = scalableResource(incident);
+        boolean daemonSet = WorkloadRef.DAEMON_SET.equals(incident.getWorkloadKind());
+        if (resource == null && !daemonSet) {
+            return failedResult("ROLLOUT_RESTART", 
+                "Workload kind " + incident.getWorkloadKind() + " does not support rollout restart");
         }
         
         if (dryRun) {
-            log.info("DRY RUN: Would restart deployment {}/{}", 
-                incident.getNamespace(), incident.getDeploymentName());
-            return successResult("ROLLOUT_RESTART", "Dry run: deployment would be restarted");
+            log.info("DRY RUN: Would restart {} {}/{}", 
+                incident.getWorkloadKind(), incident.getNamespace(), incident.getWorkloadName());
+            return successResult("ROLLOUT_RESTART", "Dry run: workload would be restarted");
         }
         
-        kubernetesClient.apps().deployments()
-            .inNamespace(incident.getNamespace())
-            .withName(incident.getDeploymentName())
-            .rolling()
-            .restart();
+        Resource<? extends HasMetadata> target = daemonSet
+            ? kubernetesClient.apps().daemonSets().inNamespace(incident.getNamespace()).withName(incident.getWorkloadName())
+            : resource;
+        HasMetadata workload = rateLimiter.read(target::get);
+        if (workload == null) {
+            return failedResult("ROLLOUT_RESTART", incident.getWorkloadKind() + " not found");
+        }
+        if (alreadyApplied(workload, incident)) {
+            return successResult("ROLLOUT_RESTART", "Rollout restart already triggered by an earlier attempt");
+        }
         
-        log.info("Rollout restart triggered for {}/{}", 
-            incident.getNamespace(), incident.getDeploymentName());
+        // Same template annotation kubectl rollout restart sets; works for DaemonSets too
+        patch(target, workload, incident, Map.of("template", Map.of("metadata", Map.of("annotations", 
+            Map.of("kubectl.kubernetes.io/restartedAt", Instant.now().toString())))));
+        
+        log.info("Rollout restart triggered for {} {}/{}", 
+            incident.getWorkloadKind(), incident.getNamespace(), incident.getWorkloadName());
         
         return successResult("ROLLOUT_RESTART", "Rollout restart triggered");
     }
     
+    /**
+     * Returns the scale/rollout handle for Deployments and StatefulSets, or
+     * {@code null} for kinds that cannot be scaled or rolled.
+     */
+    private RollableScalableResource<? extends HasMetadata> scalableResource(Incident incident) {
+        String kind = incident.getWorkloadKind();
+        if (WorkloadRef.DEPLOYMENT.equals(kind)) {
+            return kubernetesClient.apps().deployments()
+                .inNamespace(incident.getNamespace())
+                .withName(incident.getWorkloadName());
+        }
+        if (WorkloadRef.STATEFUL_SET.equals(kind)) {
+            return kubernetesClient.apps().statefulSets()
+                .inNamespace(incident.getNamespace())
+                .withName(incident.getWorkloadName());
+        }
+        return null;
+    }
+    
+    /**
+     * Whether an earlier attempt for this incident already changed the
+     * workload, so a resumed remediation does not apply its action twice.
+     */
+    private boolean alreadyApplied(HasMetadata workload, Incident incident) {
+        Map<String, String> annotations = workload.getMetadata().getAnnotations();
+        return annotations != null && incident.getId() != null 
+            && incident.getId().equals(annotations.get(REMEDIATED_BY_ANNOTATION));
+    }
+    
+    private boolean createdSinceRemediationStarted(Pod pod, Incident incident) {
+        String created = pod.getMetadata().getCreationTimestamp();
+        return created != null && incident.getStatusSince() != null 
+            && Instant.parse(created).isAfter(incident.getStatusSince());
+    }
+    
+    private void patch(Resource<? extends HasMetadata> resource, HasMetadata workload, Incident incident, 
+                       Map<String, ?> spec) {
+        Map<String, Object> metadata = Map.of(
+            "resourceVersion", workload.getMetadata().getResourceVersion(),
+            "annotations", Map.of(REMEDIATED_BY_ANNOTATION, incident.getId()));
+        rateLimiter.mutate(() -> resource.patch(PatchContext.of(PatchType.JSON_MERGE), 
+            Serialization.asJson(Map.of("metadata", metadata, "spec", spec))));
+    }
+    
+    private Integer specReplicas(HasMetadata workload) {
+        if (workload instanceof Deployment deployment && deployment.getSpec() != null) {
+            return deployment.getSpec().getReplicas();
+        }
+        if (workload instanceof StatefulSet statefulSet && statefulSet.getSpec() != null) {
+            return statefulSet.getSpec().getReplicas();
+        }
+        return null;
+    }
+    
     private RemediationResult scaleMemory(Incident incident, boolean dryRun) {
         // This is a placeholder - actual memory scaling requires deployment spec changes
         log.warn("SCALE_MEMORY action requires manual deployment update");
@@ -0,0 +1,26 @@
+package io.aegisops.agent.store;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+interface BlobRepository extends Repository<StoredBlob, String> {
+    <S extends StoredBlob> S save(S blob);
+    Optional<StoredBlob> findById(String id);
+    boolean existsById(String id);
+    
+    @Transactional
+    @Modifying
+    @Query("update StoredBlob b set b.lastUsedAt = :usedAt where b.id = :id")
+    int touch(@Param("id") String id, @Param("usedAt") Instant usedAt);
+    
+    @Transactional
+    @Modifying
+    @Query("delete from StoredBlob b where b.kind = :kind and b.lastUsedAt < :before")
+    int deleteUnusedSince(@Param("kind") StoredBlob.Kind kind, @Param("before") Instant before);
+}
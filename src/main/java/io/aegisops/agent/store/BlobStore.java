@@ -0,0 +1,339 @@
+package io.aegisops.agent.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.aegisops.agent.metrics.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed store for large text such as pod logs and events. A
+ * blob's id is the SHA-256 of its content, so the near-identical log tails
+ * of an alert storm are stored once and every incident just keeps the id.
+ * <p>
+ * Blobs are Deflate-compressed. After the first
+ * {@code aegisops.blobs.dictionary-samples} distinct blobs, a preset
+ * dictionary is trained from the lines they share and used for every
+ * blob after that; short blobs that mostly repeat familiar lines compress
+ * several times better with it. Each blob records which dictionary it
+ * needs, and dictionaries are never deleted.
+ * <p>
+ * Storing content that already exists only refreshes the blob's last use,
+ * at most once per {@code aegisops.blobs.touch-interval}; retention deletes
+ * blobs no incident has stored for longer than its horizon.
+ */
+@Component
+@Slf4j
+public class BlobStore {
+    
+    static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+    private static final String DICTIONARY_PREFIX = "dictionary-";
+    private static final int RECENT_IDS = 10_000;
+    
+    private final BlobRepository repository;
+    private final int dictionarySamples;
+    private final Duration touchInterval;
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+    private final List<String> samples = new ArrayList<>();
+    private final Map<String, Instant> recentlyUsed = new LinkedHashMap<>(RECENT_IDS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+            return size() > RECENT_IDS;
+        }
+    };
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private volatile int currentDictionary;
+    
+    BlobStore(BlobRepository repository, MetricsService metricsService,
+              @Value("${aegisops.blobs.dictionary-samples:200}") int dictionarySamples,
+              @Value("${aegisops.blobs.touch-interval:1d}") Duration touchInterval) {
+        this.repository = repository;
+        this.dictionarySamples = dictionarySamples;
+        this.touchInterval = touchInterval;
+        
+        for (int id = 1; ; id++) {
+            Optional<StoredBlob> dictionary = repository.findById(DICTIONARY_PREFIX + id);
+            if (dictionary.isEmpty()) {
+                break;
+            }
+            dictionaries.put(id, dictionary.get().getData());
+            currentDictionary = id;
+        }
+        
+        metricsService.registerGauge("aegisops.blobs.compression.ratio", 
+            "Uncompressed to stored size of blobs written since startup", 
+            () -> compressedBytes.get() == 0 ? 0 : (double) rawBytes.get() / compressedBytes.get());
+        metricsService.registerGauge("aegisops.blobs.dedup.hit.rate", 
+            "Share of blob writes answered by an existing blob since startup", 
+            () -> stores.get() == 0 ? 0 : (double) duplicates.get() / stores.get());
+    }
+    
+    /**
+     * Stores {@code content} unless an identical blob exists.
+     *
+     * @return the blob id, or {@code null} for {@code null} content
+     */
+    public String put(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        String id = sha256(raw);
+        Instant now = Instant.now();
+        stores.incrementAndGet();
+        
+        if (exists(id, now)) {
+            duplicates.incrementAndGet();
+            return id;
+        }
+        int dictionary = currentDictionary;
+        byte[] data = deflate(raw, dictionaries.get(dictionary));
+        repository.save(StoredBlob.builder()
+            .id(id)
+            .kind(StoredBlob.Kind.CONTENT)
+            .dictionary(dictionary)
+            .rawLength(raw.length)
+            .data(data)
+            .createdAt(now)
+            .lastUsedAt(now)
+            .build());
+        rawBytes.addAndGet(raw.length);
+        compressedBytes.addAndGet(data.length);
+        synchronized (recentlyUsed) {
+            recentlyUsed.put(id, now);
+        }
+        if (dictionary == 0 && dictionarySamples > 0) {
+            sample(content, now);
+        }
+        return id;
+    }
+    
+    public Optional<String> get(String id) {
+        return repository.findById(id).map(blob -> {
+            byte[] dictionary = blob.getDictionary() == 0 ? null : dictionary(blob.getDictionary());
+            return new String(inflate(blob.getData(), blob.getRawLength(), dictionary), StandardCharsets.UTF_8);
+        });
+    }
+    
+    /**
+     * Writes a blob's content to {@code out} a chunk at a time, without
+     * holding all of it in memory.
+     *
+     * @return {@code false} if there is no such blob
+     */
+    public boolean transferTo(String id, OutputStream out) throws IOException {
+        Optional<StoredBlob> stored = repository.findById(id);
+        if (stored.isEmpty()) {
+            return false;
+        }
+        StoredBlob blob = stored.get();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob.getData());
+            byte[] buffer = new byte[8192];
+            long remaining = blob.getRawLength();
+            while (remaining > 0) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0) {
+                    if (inflater.needsDictionary() && blob.getDictionary() != 0) {
+                        inflater.setDictionary(dictionary(blob.getDictionary()));
+                        continue;
+                    }
+                    throw new IllegalStateException("Blob " + id + " is truncated");
+                }
+                out.write(buffer, 0, inflated);
+                remaining -= inflated;
+            }
+            return true;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt blob " + id, e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * Deletes content blobs no incident created since {@code before} can
+     * refer to. Last use is only refreshed once per touch interval, so that
+     * much slack is subtracted first.
+     *
+     * @return the number of blobs deleted
+     */
+    public int expire(Instant before) {
+        int deleted = repository.deleteUnusedSince(StoredBlob.Kind.CONTENT, before.minus(touchInterval));
+        synchronized (recentlyUsed) {
+            recentlyUsed.values().removeIf(usedAt -> usedAt.isBefore(before.minus(touchInterval)));
+        }
+        return deleted;
+    }
+    
+    private boolean exists(String id, Instant now) {
+        Instant touched;
+        synchronized (recentlyUsed) {
+            touched = recentlyUsed.get(id);
+        }
+        if (touched != null && touched.isAfter(now.minus(touchInterval))) {
+            return true;
+        }
+        // one conditional update, so a blob expired since it was found is
+        // written again rather than reported as stored
+        if (repository.touch(id, now) == 0) {
+            return false;
+        }
+        synchronized (recentlyUsed) {
+            recentlyUsed.put(id, now);
+        }
+        return true;
+    }
+    
+    private void sample(String content, Instant now) {
+        List<String> training;
+        synchronized (samples) {
+            if (currentDictionary != 0 || samples.size() >= dictionarySamples) {
+                return;
+            }
+            samples.add(content);
+            if (samples.size() < dictionarySamples) {
+                return;
+            }
+            training = List.copyOf(samples);
+            samples.clear();
+        }
+        
+        byte[] dictionary = train(training);
+        if (dictionary.length == 0) {
+            return;
+        }
+        int id = currentDictionary + 1;
+        repository.save(StoredBlob.builder()
+            .id(DICTIONARY_PREFIX + id)
+            .kind(StoredBlob.Kind.DICTIONARY)
+            .rawLength(dictionary.length)
+            .data(dictionary)
+            .createdAt(now)
+            .lastUsedAt(now)
+            .build());
+        dictionaries.put(id, dictionary);
+        currentDictionary = id;
+        log.info("Trained blob compression dictionary {} ({} bytes) from {} samples", 
+            id, dictionary.length, training.size());
+    }
+    
+    /**
+     * Builds a preset dictionary from the lines that occur in more than one
+     * sample. Deflate reaches back at most 32 KB and matches nearer data more
+     * cheaply, so the most widespread lines go last.
+     */
+    static byte[] train(List<String> samples) {
+        Map<String, Integer> spread = new HashMap<>();
+        for (String sample : samples) {
+            Set<String> lines = new HashSet<>(sample.lines().toList());
+            lines.forEach(line -> spread.merge(line, 1, Integer::sum));
+        }
+        List<Map.Entry<String, Integer>> shared = spread.entrySet().stream()
+            .filter(entry -> entry.getValue() > 1 && !entry.getKey().isBlank())
+            .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+            .toList();
+        
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> entry : shared) {
+            byte[] line = (entry.getKey() + "\n").getBytes(StandardCharsets.UTF_8);
+            if (size + line.length > MAX_DICTIONARY_BYTES) {
+                break;
+            }
+            chosen.add(line);
+            size += line.length;
+        }
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            dictionary.writeBytes(chosen.get(i));
+        }
+        return dictionary.toByteArray();
+    }
+    
+    private byte[] dictionary(int id) {
+        return dictionaries.computeIfAbsent(id, key -> repository.findById(DICTIONARY_PREFIX + key)
+            .map(StoredBlob::getData)
+            .orElseThrow(() -> new IllegalStateException("Missing blob dictionary " + key)));
+    }
+    
+    static byte[] deflate(byte[] raw, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    static byte[] inflate(byte[] data, int rawLength, byte[] dictionary) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength) {
+                int inflated = inflater.inflate(raw, offset, rawLength - offset);
+                if (inflated == 0) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+                        throw new IllegalStateException("Blob is truncated or needs a missing dictionary");
+                    }
+                }
+                offset += inflated;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
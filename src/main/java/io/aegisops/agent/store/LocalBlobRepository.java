@@ -0,0 +1,83 @@
+package io.aegisops.agent.store;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link BlobRepository} over the {@link LocalStore}, with each blob's kind
+ * and last use kept in memory for expiry.
+ */
+@Repository
+@ConditionalOnProperty(name = "aegisops.storage.backend", havingValue = "local")
+class LocalBlobRepository implements BlobRepository {
+    
+    static final String COLLECTION = "blobs";
+    
+    private final LocalStore store;
+    private final Map<String, Usage> usage = new ConcurrentHashMap<>();
+    
+    LocalBlobRepository(LocalStore store) {
+        this.store = store;
+        store.forEach(COLLECTION, StoredBlob.class, 
+            blob -> usage.put(blob.getId(), new Usage(blob.getKind(), blob.getLastUsedAt())));
+    }
+    
+    @Override
+    public <S extends StoredBlob> S save(S blob) {
+        usage.compute(blob.getId(), (id, previous) -> {
+            store.put(COLLECTION, id, blob);
+            return new Usage(blob.getKind(), blob.getLastUsedAt());
+        });
+        return blob;
+    }
+    
+    @Override
+    public Optional<StoredBlob> findById(String id) {
+        return store.find(COLLECTION, id, StoredBlob.class);
+    }
+    
+    @Override
+    public boolean existsById(String id) {
+        return usage.containsKey(id);
+    }
+    
+    @Override
+    public int touch(String id, Instant usedAt) {
+        int[] touched = {0};
+        usage.computeIfPresent(id, (key, used) -> {
+            Optional<StoredBlob> blob = findById(key);
+            if (blob.isEmpty()) {
+                return null;
+            }
+            blob.get().setLastUsedAt(usedAt);
+            store.put(COLLECTION, key, blob.get());
+            touched[0] = 1;
+            return new Usage(used.kind(), usedAt);
+        });
+        return touched[0];
+    }
+    
+    @Override
+    public int deleteUnusedSince(StoredBlob.Kind kind, Instant before) {
+        int[] deleted = {0};
+        for (String candidate : usage.keySet()) {
+            usage.computeIfPresent(candidate, (id, used) -> {
+                if (used.kind() != kind || !used.lastUsedAt().isBefore(before)) {
+                    return used;
+                }
+                store.delete(COLLECTION, id);
+                deleted[0]++;
+                return null;
+            });
+        }
+        return deleted[0];
+    }
+    
+    private record Usage(StoredBlob.Kind kind, Instant lastUsedAt) {
+    }
+}
@@ -0,0 +1,305 @@
+package io.aegisops.agent.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+
+import io.aegisops.agent.metrics.MetricsService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Transient;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embedded store for incidents, approvals and audit entries, used instead
+ * of a database when {@code aegisops.storage.backend=local}.
+ * <p>
+ * Every write appends the whole entity, as JSON, to a {@link SegmentedLog};
+ * an in-memory index maps each collection and id to the position of its
+ * latest record and is rebuilt by replaying the log on startup. Reads
+ * decode from the mapped segments, so callers always get their own copy.
+ * The repository adapters in each domain package keep whatever secondary
+ * indexes their queries need on top of this.
+ * <p>
+ * Every update leaves the previous version behind as dead bytes.
+ * {@link #compact} reclaims them a bounded number of records at a time:
+ * it picks the full segment with the smallest share of live bytes, copies
+ * its live records to the end of the log and then deletes the segment.
+ * Deletion markers are carried forward too, unless the segment is the
+ * oldest, since an older version they hide could still be further back.
+ */
+@Component
+@ConditionalOnProperty(name = "aegisops.storage.backend", havingValue = "local")
+@Slf4j
+public class LocalStore {
+    
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    
+    private final SegmentedLog segmentLog;
+    private final ObjectMapper objectMapper;
+    private final SegmentedLog.FsyncPolicy fsyncPolicy;
+    private final Map<String, Map<String, Long>> index = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> liveBytes = new ConcurrentHashMap<>();
+    private final MetricsService metricsService;
+    private final double compactBelowLiveRatio;
+    private int compacting = -1;
+    private boolean compactingOldest;
+    private int compactionOffset;
+    
+    public LocalStore(ObjectMapper objectMapper, MetricsService metricsService,
+                      @Value("${aegisops.storage.local.directory:data/store}") Path directory,
+                      @Value("${aegisops.storage.local.segment-size:64MB}") DataSize segmentSize,
+                      @Value("${aegisops.storage.local.fsync:interval}") SegmentedLog.FsyncPolicy fsyncPolicy,
+                      @Value("${aegisops.storage.local.compact-below-live-ratio:0.5}") double compactBelowLiveRatio) {
+        this.objectMapper = objectMapper.copy().setAnnotationIntrospector(AnnotationIntrospector.pair(
+            new TransientIgnoringIntrospector(), objectMapper.getSerializationConfig().getAnnotationIntrospector()));
+        this.fsyncPolicy = fsyncPolicy;
+        this.metricsService = metricsService;
+        this.compactBelowLiveRatio = compactBelowLiveRatio;
+        
+        long start = System.nanoTime();
+        this.segmentLog = new SegmentedLog(directory, Math.toIntExact(segmentSize.toBytes()), fsyncPolicy);
+        segmentLog.forEach(this::replay);
+        log.info("Opened local store in {}: {} segments, {} records indexed in {} ms", directory, 
+            segmentLog.segmentCount(), index.values().stream().mapToInt(Map::size).sum(), 
+            (System.nanoTime() - start) / 1_000_000);
+        
+        metricsService.registerGauge("aegisops.store.size", "Bytes in the local store log", segmentLog::sizeBytes);
+        metricsService.registerGauge("aegisops.store.segments", "Segment files in the local store log", 
+            segmentLog::segmentCount);
+    }
+    
+    private void replay(long position, byte[] payload) {
+        RecordKey key = RecordKey.of(payload);
+        Map<String, Long> collection = collection(key.collection());
+        Long previous = key.op() == DELETE ? collection.remove(key.id()) : collection.put(key.id(), position);
+        moved(previous, key.op() == DELETE ? null : position);
+    }
+    
+    public <T> Optional<T> find(String collection, String id, Class<T> type) {
+        Map<String, Long> entries = collection(collection);
+        Long position = entries.get(id);
+        while (position != null) {
+            try {
+                return Optional.of(decode(position, type));
+            } catch (IllegalArgumentException e) {
+                // compaction moved the record and dropped its segment between the lookup and the read
+                Long current = entries.get(id);
+                if (position.equals(current)) {
+                    throw e;
+                }
+                position = current;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Decodes every live entity in {@code collection}, for adapters building
+     * their secondary indexes.
+     */
+    public <T> void forEach(String collection, Class<T> type, Consumer<T> action) {
+        for (Long position : collection(collection).values()) {
+            action.accept(decode(position, type));
+        }
+    }
+    
+    public int segmentCount() {
+        return segmentLog.segmentCount();
+    }
+    
+    /**
+     * Writes {@code entity} as the latest version of {@code id}. The append
+     * happens inside the index entry's {@code compute}, so concurrent writes
+     * to one id reach the log and the index in the same order.
+     */
+    public void put(String collection, String id, Object entity) {
+        byte[] payload;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(PUT);
+            out.writeUTF(collection);
+            out.writeUTF(id);
+            objectMapper.writeValue((OutputStream) out, entity);
+            payload = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot encode " + collection + "/" + id, e);
+        }
+        collection(collection).compute(id, (key, previous) -> moved(previous, segmentLog.append(payload)));
+    }
+    
+    public void delete(String collection, String id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(DELETE);
+            out.writeUTF(collection);
+            out.writeUTF(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        collection(collection).compute(id, (key, previous) -> {
+            segmentLog.append(payload);
+            return moved(previous, null);
+        });
+    }
+    
+    /**
+     * Copies up to {@code maxRecords} live records out of the sparsest full
+     * segment, continuing where the previous call stopped, and deletes the
+     * segment once it has been read to the end.
+     *
+     * @return the number of records examined; {@code 0} when there is nothing to compact
+     */
+    public synchronized int compact(int maxRecords) {
+        if (compacting < 0 && !pickSegment()) {
+            return 0;
+        }
+        int[] examined = {0};
+        compactionOffset = segmentLog.scan(compacting, compactionOffset, maxRecords, (position, payload) -> {
+            relocate(position, payload);
+            examined[0]++;
+        });
+        if (compactionOffset < 0) {
+            try {
+                segmentLog.drop(compacting);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete compacted segment " + compacting, e);
+            }
+            liveBytes.remove(compacting);
+            metricsService.incrementStoreReclaimed(segmentLog.segmentBytes());
+            log.debug("Compacted local store segment {}", compacting);
+            compacting = -1;
+        }
+        return examined[0];
+    }
+    
+    private boolean pickSegment() {
+        List<Integer> sealed = segmentLog.sealedSegments();
+        long threshold = (long) (segmentLog.segmentBytes() * compactBelowLiveRatio);
+        Integer sparsest = null;
+        for (Integer segment : sealed) {
+            long live = live(segment).get();
+            if (live <= threshold && (sparsest == null || live < live(sparsest).get())) {
+                sparsest = segment;
+            }
+        }
+        if (sparsest == null) {
+            return false;
+        }
+        compacting = sparsest;
+        compactingOldest = sparsest.equals(sealed.get(0));
+        compactionOffset = 0;
+        return true;
+    }
+    
+    private void relocate(long position, byte[] payload) {
+        RecordKey key = RecordKey.of(payload);
+        Map<String, Long> collection = collection(key.collection());
+        if (key.op() == PUT) {
+            collection.computeIfPresent(key.id(), (id, current) -> 
+                current == position ? moved(current, segmentLog.append(payload)) : current);
+        } else if (!compactingOldest) {
+            collection.compute(key.id(), (id, current) -> {
+                if (current == null) {
+                    segmentLog.append(payload);
+                }
+                return current;
+            });
+        }
+    }
+    
+    /**
+     * Moves one record's bytes between the live totals of their segments.
+     *
+     * @return {@code to}
+     */
+    private Long moved(Long from, Long to) {
+        if (from != null) {
+            live(SegmentedLog.segmentOf(from)).addAndGet(-segmentLog.recordBytes(from));
+        }
+        if (to != null) {
+            live(SegmentedLog.segmentOf(to)).addAndGet(segmentLog.recordBytes(to));
+        }
+        return to;
+    }
+    
+    private AtomicLong live(int segment) {
+        return liveBytes.computeIfAbsent(segment, id -> new AtomicLong());
+    }
+    
+    private <T> T decode(long position, Class<T> type) {
+        byte[] payload = segmentLog.read(position);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            in.readByte();
+            in.readUTF();
+            in.readUTF();
+            return objectMapper.readValue((InputStream) in, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot decode record at " + Long.toHexString(position), e);
+        }
+    }
+    
+    private Map<String, Long> collection(String name) {
+        return index.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+    }
+    
+    private record RecordKey(byte op, String collection, String id) {
+        
+        static RecordKey of(byte[] payload) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                return new RecordKey(in.readByte(), in.readUTF(), in.readUTF());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${aegisops.storage.local.fsync-interval:1s}")
+    void force() {
+        if (fsyncPolicy == SegmentedLog.FsyncPolicy.INTERVAL) {
+            segmentLog.force();
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        segmentLog.close();
+    }
+    
+    /**
+     * Leaves fields that JPA would not store, such as blob contents loaded by
+     * reference, out of the log too.
+     */
+    private static final class TransientIgnoringIntrospector extends NopAnnotationIntrospector {
+        
+        @Override
+        public boolean hasIgnoreMarker(AnnotatedMember member) {
+            return member.hasAnnotation(Transient.class);
+        }
+    }
+}
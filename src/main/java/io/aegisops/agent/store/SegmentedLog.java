@@ -0,0 +1,352 @@
+package io.aegisops.agent.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log split into fixed-size, memory-mapped segment files.
+ * <p>
+ * Each record is {@code [length][crc32c][payload]}. The payload and checksum
+ * are written before the length, so a record only becomes visible once it
+ * is complete; segment files are zero-filled, and a zero length marks the
+ * end of the data. On open every segment is scanned: a record with a bad
+ * length or checksum in the last segment is a torn write from a crash, and
+ * it and everything after it are zeroed. The same in an earlier segment is
+ * corruption, because segments are forced to disk before the log moves on.
+ * <p>
+ * Appends are serialized; reads may run concurrently with them, and
+ * {@link #next} lets a reader follow the log as it grows. Full segments can
+ * be {@linkplain #drop dropped} once their records are no longer needed,
+ * which is how owners compact or trim the log. Positions only grow, so they
+ * can also serve as a consumer's checkpoint.
+ */
+@Slf4j
+public class SegmentedLog implements Closeable {
+    
+    public static final int HEADER_BYTES = 8;
+    private static final String SUFFIX = ".log";
+    
+    public enum FsyncPolicy {
+        /** Force every record to disk before {@link #append} returns. */
+        ALWAYS,
+        /** Leave forcing to {@link #force()}, called periodically by the owner. */
+        INTERVAL,
+        /** Force only when a segment is full and on close. */
+        NEVER
+    }
+    
+    private final Path directory;
+    private final int segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final NavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+    private int truncatedBytes;
+    
+    public SegmentedLog(Path directory, int segmentBytes, FsyncPolicy fsyncPolicy) {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open log in " + directory, e);
+        }
+    }
+    
+    private void open() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            String name = file.getFileName().toString();
+            Segment segment = map(Integer.parseInt(name.substring(0, name.length() - SUFFIX.length())), file);
+            recover(segment, i == files.size() - 1);
+            segments.put(segment.id, segment);
+        }
+        if (segments.isEmpty()) {
+            segments.put(0, map(0, segmentFile(0)));
+        }
+        active = segments.lastEntry().getValue();
+    }
+    
+    private void recover(Segment segment, boolean last) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentBytes) {
+            int length = segment.buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > segmentBytes - offset - HEADER_BYTES
+                    || segment.buffer.getInt(offset + 4) != checksum(segment.buffer, offset + HEADER_BYTES, length)) {
+                if (!last) {
+                    throw new IllegalStateException("Corrupt record at " + offset + " in " + segmentFile(segment.id));
+                }
+                truncatedBytes = segmentBytes - offset;
+                log.warn("Discarding torn tail of {} from offset {}", segmentFile(segment.id), offset);
+                segment.buffer.put(offset, new byte[truncatedBytes]);
+                segment.buffer.force();
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        segment.end = offset;
+    }
+    
+    /**
+     * Appends one record.
+     *
+     * @return the record's position, for {@link #read}
+     */
+    public synchronized long append(byte[] payload) {
+        if (payload.length == 0 || payload.length > segmentBytes - HEADER_BYTES) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit a segment");
+        }
+        if (active.end + HEADER_BYTES + payload.length > segmentBytes) {
+            roll();
+        }
+        
+        int offset = active.end;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.put(offset + HEADER_BYTES, payload);
+        buffer.putInt(offset + 4, checksum(ByteBuffer.wrap(payload), 0, payload.length));
+        // the length goes last: until it is written, the record does not exist
+        buffer.putInt(offset, payload.length);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            buffer.force(offset, HEADER_BYTES + payload.length);
+        }
+        active.end = offset + HEADER_BYTES + payload.length;
+        return position(active.id, offset);
+    }
+    
+    private void roll() {
+        active.buffer.force();
+        try {
+            active = map(active.id + 1, segmentFile(active.id + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create segment " + (active.id + 1), e);
+        }
+        segments.put(active.id, active);
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the record's segment has been dropped
+     */
+    public byte[] read(long position) {
+        Segment segment = segment(segmentOf(position));
+        int offset = (int) position;
+        byte[] payload = new byte[segment.buffer.getInt(offset)];
+        segment.buffer.get(offset + HEADER_BYTES, payload);
+        return payload;
+    }
+    
+    /**
+     * The first record at or after {@code position}, moving on to the next
+     * segment at the end of one, or {@code null} if no such record has been
+     * appended yet. A position in a dropped segment continues from the
+     * oldest segment that is left.
+     */
+    public Record next(long position) {
+        int segmentId = segmentOf(position);
+        int offset = (int) position;
+        while (true) {
+            Map.Entry<Integer, Segment> entry = segments.ceilingEntry(segmentId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.getKey() != segmentId) {
+                segmentId = entry.getKey();
+                offset = 0;
+            }
+            Segment segment = entry.getValue();
+            // a later segment only exists once this one is complete, so look before reading its end
+            boolean sealed = segments.higherKey(segmentId) != null;
+            if (offset < segment.end) {
+                int length = segment.buffer.getInt(offset);
+                byte[] payload = new byte[length];
+                segment.buffer.get(offset + HEADER_BYTES, payload);
+                return new Record(position(segmentId, offset), position(segmentId, offset + HEADER_BYTES + length), 
+                    payload);
+            }
+            if (!sealed) {
+                return null;
+            }
+            segmentId++;
+            offset = 0;
+        }
+    }
+    
+    /** Position of the oldest record that has not been dropped. */
+    public long firstPosition() {
+        return position(segments.firstKey(), 0);
+    }
+    
+    /**
+     * Calls {@code visitor} for every record, oldest first.
+     */
+    public void forEach(RecordVisitor visitor) {
+        for (Segment segment : segments.values()) {
+            scan(segment, 0, Integer.MAX_VALUE, visitor);
+        }
+    }
+    
+    /**
+     * Calls {@code visitor} for up to {@code maxRecords} records of one
+     * segment, starting at {@code offset}.
+     *
+     * @return the offset to continue from, or {@code -1} at the end of the segment
+     */
+    public int scan(int segmentId, int offset, int maxRecords, RecordVisitor visitor) {
+        return scan(segment(segmentId), offset, maxRecords, visitor);
+    }
+    
+    private static int scan(Segment segment, int offset, int maxRecords, RecordVisitor visitor) {
+        int end = segment.end;
+        for (int visited = 0; offset < end; visited++) {
+            if (visited == maxRecords) {
+                return offset;
+            }
+            int length = segment.buffer.getInt(offset);
+            byte[] payload = new byte[length];
+            segment.buffer.get(offset + HEADER_BYTES, payload);
+            visitor.visit(position(segment.id, offset), payload);
+            offset += HEADER_BYTES + length;
+        }
+        return -1;
+    }
+    
+    /**
+     * Deletes a full segment. Its records must no longer be needed, and
+     * readers still holding one of its positions get an
+     * {@link IllegalArgumentException} from {@link #read}.
+     */
+    public synchronized void drop(int segmentId) throws IOException {
+        if (segmentId == active.id) {
+            throw new IllegalArgumentException("Cannot drop the active segment " + segmentId);
+        }
+        Segment segment = segment(segmentId);
+        segments.remove(segmentId);
+        segment.channel.close();
+        Files.delete(segmentFile(segmentId));
+    }
+    
+    /** Ids of the segments that are full and no longer written to, oldest first. */
+    public synchronized List<Integer> sealedSegments() {
+        return List.copyOf(segments.headMap(active.id).keySet());
+    }
+    
+    public int recordBytes(long position) {
+        return HEADER_BYTES + segment(segmentOf(position)).buffer.getInt((int) position);
+    }
+    
+    public int segmentBytes() {
+        return segmentBytes;
+    }
+    
+    public synchronized void force() {
+        active.buffer.force();
+    }
+    
+    /** Bytes discarded from a torn tail when the log was opened. */
+    public int truncatedBytes() {
+        return truncatedBytes;
+    }
+    
+    public int segmentCount() {
+        return segments.size();
+    }
+    
+    public long sizeBytes() {
+        return (long) (segments.size() - 1) * segmentBytes + active.end;
+    }
+    
+    @Override
+    public synchronized void close() {
+        active.buffer.force();
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}: {}", segmentFile(segment.id), e.getMessage());
+            }
+        }
+    }
+    
+    private Segment segment(int id) {
+        Segment segment = segments.get(id);
+        if (segment == null) {
+            throw new IllegalArgumentException("No segment " + id);
+        }
+        return segment;
+    }
+    
+    private Segment map(int id, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, 
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+    }
+    
+    private Path segmentFile(int id) {
+        return directory.resolve("%010d%s".formatted(id, SUFFIX));
+    }
+    
+    public static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+    
+    private static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+    
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * A record read by {@link #next}; {@code nextPosition} is where to look
+     * for the one after it.
+     */
+    public record Record(long position, long nextPosition, byte[] payload) {
+    }
+    
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long position, byte[] payload);
+    }
+    
+    private static final class Segment {
+        
+        private final int id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int end;
+        
+        Segment(int id, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.aegisops.agent.store;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One compressed blob in the {@link BlobStore}, keyed by the SHA-256 of its
+ * uncompressed content. Compression dictionaries are stored the same way.
+ */
+@Entity
+@Table(name = "blobs", indexes = @Index(columnList = "kind, lastUsedAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+    
+    @Id
+    private String id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+    
+    /** Dictionary {@link #data} was compressed with; {@code 0} for none. */
+    private int dictionary;
+    
+    private int rawLength;
+    
+    @Column(nullable = false, length = 16 * 1024 * 1024)
+    private byte[] data;
+    
+    private Instant createdAt;
+    
+    /** Last time the content was stored again and deduplicated to this blob. */
+    private Instant lastUsedAt;
+    
+    public enum Kind {
+        CONTENT,
+        DICTIONARY
+    }
+}
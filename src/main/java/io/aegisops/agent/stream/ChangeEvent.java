@@ -0,0 +1,52 @@
+package io.aegisops.agent.stream;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.aegisops.agent.approval.ApprovalRequest;
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.IncidentTransition;
+
+/**
+ * One change pushed to stream subscribers: an incident transition or a new
+ * approval request. Only what changed plus the keys clients filter on, so
+ * a UI can patch its state without refetching the incident.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeEvent(
+    @JsonIgnore long sequence,
+    String type,
+    String incidentId,
+    String approvalId,
+    String namespace,
+    String workload,
+    String severity,
+    Incident.IncidentStatus from,
+    Incident.IncidentStatus to,
+    String action,
+    String reason,
+    Instant at
+) {
+    
+    static final String INCIDENT = "incident";
+    static final String APPROVAL = "approval";
+    
+    static ChangeEvent transition(long sequence, Incident incident, IncidentTransition transition) {
+        return new ChangeEvent(sequence, INCIDENT, incident.getId(), null, incident.getNamespace(), 
+            incident.getWorkloadName(), incident.getSeverity(), transition.getFromStatus(), transition.getToStatus(), 
+            null, transition.getReason(), transition.getOccurredAt());
+    }
+    
+    static ChangeEvent approvalRequested(long sequence, ApprovalRequest request, Incident incident) {
+        return new ChangeEvent(sequence, APPROVAL, incident.getId(), request.getId(), incident.getNamespace(), 
+            incident.getWorkloadName(), incident.getSeverity(), null, incident.getStatus(), 
+            request.getRecommendedAction(), null, request.getRequestedAt());
+    }
+    
+    boolean matches(String namespaceFilter, Incident.IncidentStatus statusFilter) {
+        return (namespaceFilter == null || namespaceFilter.equals(namespace))
+            && (statusFilter == null || statusFilter == to);
+    }
+}
@@ -0,0 +1,226 @@
+package io.aegisops.agent.stream;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.aegisops.agent.approval.ApprovalRequestedEvent;
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.IncidentTransitionedEvent;
+import io.aegisops.agent.metrics.MetricsService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans incident and approval changes out to server-sent event subscribers.
+ * <p>
+ * Publishing never blocks: each subscriber has a bounded buffer and its own
+ * virtual thread that writes to the connection. A subscriber whose buffer
+ * fills up is sent a {@code reset} event and disconnected; it can reconnect
+ * with {@code Last-Event-ID} and catch up from the replay ring, which keeps
+ * the most recent events. Event ids carry this instance's start time, so an
+ * id from before a restart, or one that has fallen out of the ring, also
+ * gets {@code reset} and the client reloads in full.
+ */
+@Component
+@Slf4j
+public class ChangeStream {
+    
+    static final String RESET = "reset";
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ChangeEvent[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final MetricsService metricsService;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Duration heartbeat;
+    private long sequence;
+    
+    public ChangeStream(MetricsService metricsService,
+                        @Value("${aegisops.stream.replay-capacity:10000}") int replayCapacity,
+                        @Value("${aegisops.stream.subscriber-buffer:256}") int bufferSize,
+                        @Value("${aegisops.stream.max-subscribers:100}") int maxSubscribers,
+                        @Value("${aegisops.stream.heartbeat:15s}") Duration heartbeat) {
+        this.metricsService = metricsService;
+        this.ring = new ChangeEvent[replayCapacity];
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeat = heartbeat;
+        metricsService.registerGauge("aegisops.stream.subscribers", "Connected change stream subscribers", 
+            subscribers::size);
+    }
+    
+    @EventListener
+    public void onTransition(IncidentTransitionedEvent event) {
+        publish(seq -> ChangeEvent.transition(seq, event.incident(), event.transition()));
+    }
+    
+    @EventListener
+    public void onApprovalRequested(ApprovalRequestedEvent event) {
+        publish(seq -> ChangeEvent.approvalRequested(seq, event.request(), event.incident()));
+    }
+    
+    private void publish(LongFunction<ChangeEvent> factory) {
+        lock.lock();
+        try {
+            ChangeEvent event = factory.apply(++sequence);
+            ring[(int) (event.sequence() % ring.length)] = event;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Opens a subscription. Events after {@code lastEventId} are replayed
+     * first when they are still in the ring.
+     *
+     * @return {@code null} if the subscriber limit has been reached
+     */
+    public SseEmitter subscribe(String namespace, Incident.IncidentStatus status, String lastEventId, 
+                                Duration timeout) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        return subscribe(new SseEmitter(timeout.toMillis()), namespace, status, lastEventId);
+    }
+    
+    SseEmitter subscribe(SseEmitter emitter, String namespace, Incident.IncidentStatus status, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, namespace, status);
+        
+        lock.lock();
+        try {
+            // replay and registration under the publish lock: no gap, no duplicate
+            if (lastEventId != null && !replay(subscriber, lastEventId)) {
+                subscriber.reset = true;
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        Thread.ofVirtual().name("change-stream-subscriber").start(subscriber::run);
+        return emitter;
+    }
+    
+    /**
+     * Queues the events after {@code lastEventId}. Callers hold {@link #lock}.
+     *
+     * @return {@code false} if the id is from another instance or too old
+     */
+    private boolean replay(Subscriber subscriber, String lastEventId) {
+        int dash = lastEventId.indexOf('-');
+        if (dash < 0 || !epoch.equals(lastEventId.substring(0, dash))) {
+            return false;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long oldest = Math.max(1, sequence - ring.length + 1);
+        if (last > sequence || last < oldest - 1) {
+            return false;
+        }
+        
+        List<ChangeEvent> missed = new ArrayList<>();
+        for (long seq = last + 1; seq <= sequence; seq++) {
+            missed.add(ring[(int) (seq % ring.length)]);
+        }
+        for (ChangeEvent event : missed) {
+            subscriber.offer(event);
+        }
+        return true;
+    }
+    
+    String eventId(ChangeEvent event) {
+        return epoch + "-" + event.sequence();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+    
+    private final class Subscriber {
+        
+        private final SseEmitter emitter;
+        private final String namespace;
+        private final Incident.IncidentStatus status;
+        private final BlockingQueue<ChangeEvent> buffer;
+        private volatile boolean reset;
+        private volatile boolean closed;
+        
+        Subscriber(SseEmitter emitter, String namespace, Incident.IncidentStatus status) {
+            this.emitter = emitter;
+            this.namespace = namespace;
+            this.status = status;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+        
+        void offer(ChangeEvent event) {
+            if (reset || !event.matches(namespace, status)) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // too slow to keep up: never wait for it, make it reconnect and catch up instead
+                reset = true;
+                metricsService.incrementStreamOverflows();
+            }
+        }
+        
+        void run() {
+            try {
+                while (!closed) {
+                    if (reset) {
+                        emitter.send(SseEmitter.event().name(RESET).data("{}", MediaType.APPLICATION_JSON));
+                        emitter.complete();
+                        break;
+                    }
+                    ChangeEvent event = buffer.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                            .id(eventId(event))
+                            .name(event.type())
+                            .data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Change stream subscriber disconnected: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+        
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.aegisops.agent.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.IncidentTransition;
+import io.aegisops.agent.incident.IncidentTransitionedEvent;
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AlertDeduplicatorTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void mapsResendToOpenIncident() {
+		AlertDeduplicator deduplicator = new AlertDeduplicator(new MetricsService(registry), Duration.ofMinutes(5), 100);
+		Incident first = incident("fp-1");
+
+		assertThat(deduplicator.findOrRegister(first)).isNull();
+		assertThat(deduplicator.findOrRegister(incident("fp-1"))).isSameAs(first);
+		assertThat(deduplicator.findOrRegister(incident("fp-2"))).isNull();
+
+		assertThat(registry.counter("aegisops.dedup.hits").count()).isEqualTo(1);
+		assertThat(registry.counter("aegisops.dedup.misses").count()).isEqualTo(2);
+	}
+
+	@Test
+	void expiredEntryOpensNewIncident() {
+		AlertDeduplicator deduplicator = new AlertDeduplicator(new MetricsService(registry), Duration.ZERO, 100);
+
+		assertThat(deduplicator.findOrRegister(incident("fp-1"))).isNull();
+		assertThat(deduplicator.findOrRegister(incident("fp-1"))).isNull();
+	}
+
+	@Test
+	void alertAfterResolutionOpensNewIncident() {
+		AlertDeduplicator deduplicator = new AlertDeduplicator(new MetricsService(registry), Duration.ofMinutes(5), 100);
+		Incident first = incident("fp-1");
+		first.setId("incident-1");
+		Incident member = incident("fp-2");
+		deduplicator.findOrRegister(first);
+		deduplicator.findOrRegister(member);
+		deduplicator.redirect("fp-2", first);
+
+		deduplicator.onTransition(new IncidentTransitionedEvent(first, IncidentTransition.builder()
+			.incidentId("incident-1")
+			.fromStatus(Incident.IncidentStatus.REMEDIATING)
+			.toStatus(Incident.IncidentStatus.RESOLVED)
+			.build()));
+
+		assertThat(deduplicator.findOrRegister(incident("fp-1"))).isNull();
+		assertThat(deduplicator.findOrRegister(incident("fp-2"))).isNull();
+	}
+
+	@Test
+	void evictsOldestEntriesWhenOverCapacity() {
+		AlertDeduplicator deduplicator = new AlertDeduplicator(new MetricsService(registry), Duration.ofMinutes(5), 10);
+
+		for (int i = 0; i < 11; i++) {
+			deduplicator.findOrRegister(incident("fp-" + i));
+		}
+
+		assertThat(registry.get("aegisops.dedup.size").gauge().value()).isLessThanOrEqualTo(10);
+		assertThat(registry.counter("aegisops.dedup.evictions").count()).isGreaterThan(0);
+		assertThat(deduplicator.findOrRegister(incident("fp-10"))).isNotNull();
+	}
+
+	private static Incident incident(String fingerprint) {
+		return Incident.builder()
+			.alertName("PodCrashLooping")
+			.namespace("shop")
+			.fingerprint(fingerprint)
+			.status(Incident.IncidentStatus.NEW)
+			.build();
+	}
+}
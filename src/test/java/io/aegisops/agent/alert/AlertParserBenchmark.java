@@ -0,0 +1,132 @@
+package io.aegisops.agent.alert;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.incident.Incident;
+
+/**
+ * Compares the streaming {@link AlertParser} with the previous map-based path
+ * (bind the body to {@code Map<String, Object>}, log it, then walk the maps).
+ * Not part of the test suite; run it from the IDE or with
+ * {@code java -cp target/test-classes:target/classes:<deps> io.aegisops.agent.alert.AlertParserBenchmark [alerts] [iterations]}.
+ */
+public class AlertParserBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int alertsPerPayload = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+		ObjectMapper objectMapper = new ObjectMapper();
+		AlertParser streamingParser = new AlertParser(objectMapper);
+		byte[] payload = buildPayload(alertsPerPayload);
+
+		System.out.printf("payload: %d alerts, %d bytes%n", alertsPerPayload, payload.length);
+
+		Runnable streaming = () -> {
+			try {
+				consume(streamingParser.parseAlertPayload(new ByteArrayInputStream(payload)));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+		Runnable mapBased = () -> {
+			try {
+				Map<String, Object> body = objectMapper.readValue(payload, new TypeReference<Map<String, Object>>() {});
+				// The old controller logged the whole payload at INFO
+				consume(String.valueOf(body).length());
+				consume(parseMapPayload(body));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+
+		for (int round = 0; round < 3; round++) {
+			run("map-based", mapBased, iterations);
+			run("streaming", streaming, iterations);
+		}
+	}
+
+	private static void run(String name, Runnable task, int iterations) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		for (int i = 0; i < iterations / 4; i++) {
+			task.run();
+		}
+
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			task.run();
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		System.out.printf("%-10s %10.1f us/payload %12d bytes/payload%n",
+			name, elapsed / 1_000.0 / iterations, allocated / iterations);
+	}
+
+	private static byte[] buildPayload(int alerts) {
+		StringBuilder json = new StringBuilder("{\"receiver\":\"aegisops\",\"status\":\"firing\",\"alerts\":[");
+		for (int i = 0; i < alerts; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"status\":\"firing\",\"labels\":{")
+				.append("\"alertname\":\"KubePodCrashLooping\",\"namespace\":\"shop\",")
+				.append("\"pod\":\"cart-7d8f9c5b4-").append(i).append("\",")
+				.append("\"container\":\"cart\",\"job\":\"kube-state-metrics\",\"severity\":\"critical\"},")
+				.append("\"annotations\":{\"description\":\"Pod shop/cart is restarting 2.1 times / 10 minutes.\",")
+				.append("\"runbook_url\":\"https://runbooks.example.com/kubepodcrashlooping\"},")
+				.append("\"startsAt\":\"2024-05-01T10:15:30.123Z\",\"endsAt\":\"0001-01-01T00:00:00Z\",")
+				.append("\"generatorURL\":\"http://prometheus:9090/graph?g0.expr=kube_pod_container_status_restarts_total\",")
+				.append("\"fingerprint\":\"").append(Integer.toHexString(0x10000000 + i)).append("\"}");
+		}
+		json.append("],\"groupLabels\":{\"alertname\":\"KubePodCrashLooping\"},")
+			.append("\"commonLabels\":{\"namespace\":\"shop\"},\"externalURL\":\"http://alertmanager:9093\",")
+			.append("\"version\":\"4\",\"groupKey\":\"{}:{alertname=\\\"KubePodCrashLooping\\\"}\",\"truncatedAlerts\":0}");
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	// Previous AlertParser implementation, kept here only as the baseline.
+	@SuppressWarnings("unchecked")
+	private static List<Incident> parseMapPayload(Map<String, Object> payload) {
+		List<Map<String, Object>> alerts = (List<Map<String, Object>>) payload.getOrDefault("alerts", List.of());
+		return alerts.stream()
+			.filter(alert -> "firing".equalsIgnoreCase((String) alert.get("status")))
+			.map(alert -> {
+				Map<String, String> labels = (Map<String, String>) alert.getOrDefault("labels", Map.of());
+				Map<String, String> annotations = (Map<String, String>) alert.getOrDefault("annotations", Map.of());
+				Map<String, String> metrics = new HashMap<>();
+				labels.forEach((k, v) -> {
+					if (k.startsWith("metric_") || k.contains("value") || k.contains("threshold")) {
+						metrics.put(k, v);
+					}
+				});
+				return Incident.builder()
+					.alertName(labels.getOrDefault("alertname", "UnknownAlert"))
+					.namespace(labels.getOrDefault("namespace", "default"))
+					.podName(labels.getOrDefault("pod", labels.getOrDefault("pod_name", null)))
+					.severity(labels.getOrDefault("severity", "warning"))
+					.description(annotations.getOrDefault("description", annotations.getOrDefault("summary", "")))
+					.metrics(metrics)
+					.status(Incident.IncidentStatus.NEW)
+					.build();
+			})
+			.toList();
+	}
+
+	private static volatile Object sink;
+
+	private static void consume(Object value) {
+		sink = value;
+	}
+}
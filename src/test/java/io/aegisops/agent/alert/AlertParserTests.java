@@ -0,0 +1,129 @@
+package io.aegisops.agent.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.incident.Incident;
+
+class AlertParserTests {
+
+	private final AlertParser parser = new AlertParser(new ObjectMapper());
+
+	@Test
+	void parsesFiringAlertsAndKeepsAlertmanagerMetadata() throws Exception {
+		String payload = """
+			{
+			  "receiver": "aegisops",
+			  "status": "firing",
+			  "alerts": [
+			    {
+			      "status": "firing",
+			      "labels": {"alertname": "PodCrashLooping", "namespace": "shop", "pod": "cart-7d8f9c5b4-xyz12",
+			                 "severity": "critical", "metric_restarts": "7"},
+			      "annotations": {"summary": "cart is crash looping"},
+			      "startsAt": "2024-05-01T10:15:30.123Z",
+			      "endsAt": "0001-01-01T00:00:00Z",
+			      "generatorURL": "http://prometheus/graph?g0.expr=up",
+			      "fingerprint": "a1b2c3d4"
+			    },
+			    {
+			      "status": "resolved",
+			      "labels": {"alertname": "PodCrashLooping", "namespace": "shop", "pod": "cart-7d8f9c5b4-abc34"}
+			    }
+			  ],
+			  "groupLabels": {"alertname": "PodCrashLooping"},
+			  "commonLabels": {"namespace": "shop"},
+			  "externalURL": "http://alertmanager",
+			  "version": "4",
+			  "groupKey": "{}:{alertname=\\"PodCrashLooping\\"}",
+			  "truncatedAlerts": 0
+			}
+			""";
+
+		List<Incident> incidents = parse(payload);
+
+		assertThat(incidents).hasSize(1);
+		Incident incident = incidents.get(0);
+		assertThat(incident.getAlertName()).isEqualTo("PodCrashLooping");
+		assertThat(incident.getNamespace()).isEqualTo("shop");
+		assertThat(incident.getPodName()).isEqualTo("cart-7d8f9c5b4-xyz12");
+		assertThat(incident.getDeploymentName()).isEqualTo("cart");
+		assertThat(incident.getSeverity()).isEqualTo("critical");
+		assertThat(incident.getDescription()).isEqualTo("cart is crash looping");
+		assertThat(incident.getMetrics()).containsEntry("metric_restarts", "7");
+		assertThat(incident.getFingerprint()).isEqualTo("a1b2c3d4");
+		assertThat(incident.getGeneratorUrl()).isEqualTo("http://prometheus/graph?g0.expr=up");
+		assertThat(incident.getStartsAt()).isEqualTo(Instant.parse("2024-05-01T10:15:30.123Z"));
+		assertThat(incident.getGroupKey()).isEqualTo("{}:{alertname=\"PodCrashLooping\"}");
+		assertThat(incident.getStatus()).isEqualTo(Incident.IncidentStatus.NEW);
+	}
+
+	@Test
+	void appliesDefaultsForMissingLabels() throws Exception {
+		List<Incident> incidents = parse("{\"alerts\":[{\"status\":\"firing\",\"labels\":{}}]}");
+
+		assertThat(incidents).singleElement().satisfies(incident -> {
+			assertThat(incident.getAlertName()).isEqualTo("UnknownAlert");
+			assertThat(incident.getNamespace()).isEqualTo("default");
+			assertThat(incident.getSeverity()).isEqualTo("warning");
+			assertThat(incident.getPodName()).isNull();
+			assertThat(incident.getDescription()).isEmpty();
+		});
+	}
+
+	@Test
+	void parsesRfc3339TimestampVariants() {
+		for (String value : List.of("2024-05-01T10:15:30Z", "2024-05-01T10:15:30.5Z", "2024-05-01T10:15:30.123456789Z",
+				"2024-05-01T12:15:30.123+02:00", "2024-05-01T05:45:30-04:30")) {
+			assertThat(AlertParser.parseTimestamp(value)).as(value).isEqualTo(OffsetDateTime.parse(value).toInstant());
+		}
+		assertThat(AlertParser.parseTimestamp("0001-01-01T00:00:00Z")).isNull();
+		assertThat(AlertParser.parseTimestamp("2024-02-30T10:15:30Z")).isNull();
+		assertThat(AlertParser.parseTimestamp("yesterday")).isNull();
+		assertThat(AlertParser.parseTimestamp("2024-05-01T10:15:30.\u0661Z")).isNull();
+	}
+
+	@Test
+	void parsesSingleAlertLine() throws Exception {
+		Incident incident = parser.parseAlert("{\"labels\":{\"alertname\":\"HighCPU\",\"namespace\":\"shop\",\"pod\":\"cart-1\"}}");
+
+		assertThat(incident.getAlertName()).isEqualTo("HighCPU");
+		assertThat(incident.getFingerprint()).isEqualTo(AlertParser.labelFingerprint(
+			Map.of("alertname", "HighCPU", "namespace", "shop", "pod", "cart-1")));
+		assertThat(parser.parseAlert("{\"status\":\"resolved\",\"labels\":{}}")).isNull();
+		assertThatThrownBy(() -> parser.parseAlert("{\"labels\":{}} trailing")).isInstanceOf(JsonProcessingException.class);
+	}
+
+	@Test
+	void skipsNonObjectAlertsAndKeepsReadingTheGroup() throws Exception {
+		List<Incident> incidents = parse("""
+			{"alerts": [null, {"status": "firing", "labels": {"alertname": "A"}}, 3, [1],
+			            {"status": "firing", "labels": {"alertname": "B"}}],
+			 "groupKey": "g1"}
+			""");
+
+		assertThat(incidents).extracting(Incident::getAlertName).containsExactly("A", "B");
+		assertThat(incidents).extracting(Incident::getGroupKey).containsOnly("g1");
+	}
+
+	@Test
+	void rejectsNonObjectPayload() {
+		assertThatThrownBy(() -> parse("[1, 2, 3]")).isInstanceOf(JsonProcessingException.class);
+	}
+
+	private List<Incident> parse(String payload) throws Exception {
+		return parser.parseAlertPayload(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+	}
+}
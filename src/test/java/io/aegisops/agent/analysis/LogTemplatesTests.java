@@ -0,0 +1,79 @@
+package io.aegisops.agent.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class LogTemplatesTests {
+
+	@Test
+	void repeatedLinesCollapseIntoOneTemplate() {
+		String logs = IntStream.range(0, 400)
+			.mapToObj(i -> "Retrying connection to 10.0.3." + (i % 7) + ":5432 attempt " + i)
+			.collect(Collectors.joining("\n"));
+
+		LogTemplates templates = LogTemplates.mine(logs);
+
+		assertThat(templates.lines()).isEqualTo(400);
+		assertThat(templates.size()).isEqualTo(1);
+		assertThat(templates.render()).isEqualTo("[400x] Retrying connection to <*> attempt <*>\n");
+	}
+
+	@Test
+	void linesSeenOnceAreKeptVerbatim() {
+		LogTemplates templates = LogTemplates.mine("Starting server on port 8080\nReady");
+
+		assertThat(templates.render()).isEqualTo("Starting server on port 8080\nReady\n");
+	}
+
+	@Test
+	void distinctStackFramesStayApart() {
+		String logs = """
+			java.lang.IllegalStateException: pool exhausted
+			\tat com.example.Pool.acquire(Pool.java:42)
+			\tat com.example.Repo.find(Repo.java:17)
+			java.lang.IllegalStateException: pool exhausted
+			\tat com.example.Pool.acquire(Pool.java:42)
+			\tat com.example.Repo.find(Repo.java:17)
+			""";
+
+		LogTemplates templates = LogTemplates.mine(logs);
+
+		assertThat(templates.size()).isEqualTo(3);
+		assertThat(templates.render()).contains("[2x] at com.example.Pool.acquire(Pool.java:<*>)");
+		assertThat(templates.render()).contains("[2x] at com.example.Repo.find(Repo.java:<*>)");
+	}
+
+	@Test
+	void containerSectionsAreMinedSeparately() {
+		String logs = """
+			--- app, current container ---
+			GET /health 200 3ms
+			GET /health 200 4ms
+			--- app, previous container ---
+			GET /health 200 5ms
+			""";
+
+		assertThat(LogTemplates.mine(logs).render()).isEqualTo("""
+			--- app, current container ---
+			[2x] GET /health <*> <*>ms
+			--- app, previous container ---
+			GET /health 200 5ms
+			""");
+	}
+
+	@Test
+	void renderKeepsTheLatestLinesWithinTheBudget() {
+		LogTemplates templates = LogTemplates.mine("first line\nsecond line\nthird line");
+
+		assertThat(templates.render(24)).isEqualTo("[1 earlier lines omitted]\nsecond line\nthird line\n");
+	}
+
+	@Test
+	void noLogsRenderNothing() {
+		assertThat(LogTemplates.mine(null).render()).isEmpty();
+	}
+}
@@ -0,0 +1,103 @@
+package io.aegisops.agent.approval;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.analysis.DiagnosisResult;
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.store.LocalStore;
+import io.aegisops.agent.store.SegmentedLog.FsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ApprovalServiceTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private LocalStore store;
+	private ApprovalService approvals;
+
+	@BeforeEach
+	void setUp() {
+		MetricsService metricsService = new MetricsService(registry);
+		store = new LocalStore(new ObjectMapper().findAndRegisterModules(), metricsService, directory,
+			DataSize.ofMegabytes(1), FsyncPolicy.NEVER, 0.5);
+		approvals = new ApprovalService(new LocalApprovalRepository(store), metricsService,
+			mock(ApplicationEventPublisher.class));
+	}
+
+	@AfterEach
+	void close() {
+		store.close();
+	}
+
+	@Test
+	void concurrentAnswersToOneRequestHaveASingleWinner() throws Exception {
+		ApprovalRequest request = approvals.requestApproval(Incident.builder().id("a").build(),
+			DiagnosisResult.builder().recommendedAction("RESTART_POD").confidence(0.9).build());
+
+		int answers = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(answers);
+		List<Future<ApprovalRequest.ApprovalStatus>> results = new ArrayList<>();
+		for (int i = 0; i < answers; i++) {
+			ApprovalRequest.ApprovalStatus status = i % 2 == 0
+				? ApprovalRequest.ApprovalStatus.APPROVED : ApprovalRequest.ApprovalStatus.REJECTED;
+			results.add(executor.submit(() -> {
+				start.await();
+				try {
+					return approvals.respond(approvals.findById(request.getId()).orElseThrow(), status, "ops")
+						.getStatus();
+				} catch (IllegalStateException e) {
+					return null;
+				}
+			}));
+		}
+		start.countDown();
+		List<ApprovalRequest.ApprovalStatus> won = new ArrayList<>();
+		for (Future<ApprovalRequest.ApprovalStatus> result : results) {
+			if (result.get() != null) {
+				won.add(result.get());
+			}
+		}
+		executor.shutdown();
+
+		assertThat(won).hasSize(1);
+		assertThat(approvals.findById(request.getId()).orElseThrow().getStatus()).isEqualTo(won.get(0));
+		assertThat(approvals.getPendingApprovals()).isEmpty();
+		assertThat(registry.get("aegisops.approvals.pending").gauge().value()).isZero();
+	}
+
+	@Test
+	void expiringAnAnsweredRequestKeepsWhoAnsweredIt() {
+		ApprovalRequest request = approvals.requestApproval(Incident.builder().id("b").build(),
+			DiagnosisResult.builder().recommendedAction("RESTART_POD").build());
+		ApprovalRequest answered = approvals.respond(request, ApprovalRequest.ApprovalStatus.APPROVED, "ops");
+
+		approvals.expire(answered);
+
+		ApprovalRequest stored = approvals.findById(request.getId()).orElseThrow();
+		assertThat(stored.getStatus()).isEqualTo(ApprovalRequest.ApprovalStatus.EXPIRED);
+		assertThat(stored.getApprovedBy()).isEqualTo("ops");
+	}
+
+}
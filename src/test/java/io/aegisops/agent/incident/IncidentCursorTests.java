@@ -0,0 +1,56 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class IncidentCursorTests {
+
+	@Test
+	void cursorRoundTripsWithNanosecondPrecision() {
+		IncidentCursor cursor = new IncidentCursor(Instant.parse("2026-03-01T12:00:00.123456789Z"),
+				"6f1c2d4e-0000-4000-8000-000000000001");
+
+		String token = cursor.encode();
+
+		assertThat(token).doesNotContain("=", "+", "/");
+		assertThat(IncidentCursor.decode(token)).isEqualTo(cursor);
+	}
+
+	@Test
+	void garbageCursorIsRejected() {
+		assertThatThrownBy(() -> IncidentCursor.decode("not-a-cursor"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void etagChangesOnlyWhenThePageChanges() {
+		IncidentSummary analyzing = summary(Incident.IncidentStatus.ANALYZING);
+		IncidentPage page = new IncidentPage(List.of(analyzing), null);
+
+		assertThat(new IncidentPage(List.of(summary(Incident.IncidentStatus.ANALYZING)), null).etag())
+				.isEqualTo(page.etag());
+		assertThat(new IncidentPage(List.of(summary(Incident.IncidentStatus.REMEDIATING)), null).etag())
+				.isNotEqualTo(page.etag());
+		assertThat(new IncidentPage(List.of(analyzing), "next").etag()).isNotEqualTo(page.etag());
+		assertThat(page.etag()).startsWith("W/\"");
+	}
+
+	@Test
+	void etagIsTheSameInEveryJvm() {
+		// no identity hash codes: a page hashes to this on every replica and after restarts
+		assertThat(new IncidentPage(List.of(summary(Incident.IncidentStatus.ANALYZING)), null).etag())
+				.isEqualTo("W/\"4853e577d044e8928f4d813b97efa043\"");
+	}
+
+	private static IncidentSummary summary(Incident.IncidentStatus status) {
+		Instant created = Instant.parse("2026-03-01T12:00:00Z");
+		return new IncidentSummary("a", "PodCrashLooping", "prod", "api-1", "Deployment", "api", "critical",
+				status, created, created, null, 0.9, "RESTART_POD");
+	}
+
+}
@@ -0,0 +1,73 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import io.aegisops.agent.kubernetes.EventService;
+import io.aegisops.agent.kubernetes.LogLimits;
+import io.aegisops.agent.kubernetes.LogService;
+import io.aegisops.agent.kubernetes.PodLogs;
+import io.aegisops.agent.kubernetes.PodLogs.ContainerLog;
+import io.aegisops.agent.kubernetes.PodService;
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IncidentEnricherTests {
+
+	private final LogService logService = mock(LogService.class);
+	private final EventService eventService = mock(EventService.class);
+	private final PodService podService = mock(PodService.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void slowSourceIsRecordedAsGapWithoutDelayingTheOthers() throws InterruptedException {
+		IncidentEnricher enricher = new IncidentEnricher(logService, eventService, podService,
+				new MetricsService(registry));
+		ReflectionTestUtils.setField(enricher, "deadline", Duration.ofMillis(200));
+		ReflectionTestUtils.setField(enricher, "logLines", 100);
+		ReflectionTestUtils.setField(enricher, "logBytes", DataSize.ofKilobytes(64));
+		ReflectionTestUtils.setField(enricher, "logLineBytes", DataSize.ofKilobytes(4));
+		ReflectionTestUtils.setField(enricher, "previousLogs", true);
+
+		when(logService.readPodLogs("prod", "api-1", new LogLimits(100, 64 * 1024, 4 * 1024, true)))
+			.thenReturn(new PodLogs(List.of(
+				new ContainerLog("api", false, "current", 1, false, null),
+				new ContainerLog("api", true, "crashed", 1, false, null))));
+		when(podService.describePodStatus("prod", "api-1")).thenReturn("Phase: Running");
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(eventService.getPodEvents("prod", "api-1")).thenAnswer(invocation -> {
+			try {
+				Thread.sleep(5_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				throw e;
+			}
+			return "too late";
+		});
+
+		Incident incident = Incident.builder().namespace("prod").podName("api-1").build();
+		long started = System.nanoTime();
+		enricher.enrich(incident);
+
+		assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+		assertThat(incident.getPodLogs()).contains("current").endsWith("--- previous container ---\ncrashed");
+		assertThat(incident.getPodStatus()).isEqualTo("Phase: Running");
+		assertThat(incident.getPodEvents()).isNull();
+		assertThat(incident.getEnrichmentGaps()).isEqualTo(IncidentEnricher.EVENTS);
+		assertThat(registry.find("aegisops.enrichment.latency").tag("source", "events").tag("outcome", "timeout")
+				.timer().count()).isEqualTo(1);
+		assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+		enricher.shutdown();
+	}
+
+}
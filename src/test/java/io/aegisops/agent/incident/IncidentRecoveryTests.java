@@ -0,0 +1,85 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.alert.AlertDeduplicator;
+import io.aegisops.agent.ingest.AlertCoalescer;
+import io.aegisops.agent.ingest.IncidentDispatcher;
+import io.aegisops.agent.ingest.JournalIngestionQueue;
+import io.aegisops.agent.kubernetes.WorkloadResolver;
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IncidentRecoveryTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final MetricsService metricsService = new MetricsService(registry);
+	private final IncidentRepository incidentRepository = mock(IncidentRepository.class);
+	private final AlertCoalescer alertCoalescer = mock(AlertCoalescer.class);
+
+	@Test
+	void journaledResendOfAnOpenIncidentIsDeduplicatedOnReplay() throws Exception {
+		// a slow store load, so a reader started alongside recovery would dispatch first
+		when(incidentRepository.findByStatusIn(any())).thenAnswer(invocation -> {
+			Thread.sleep(300);
+			return List.of(incident("a", Incident.IncidentStatus.PENDING_APPROVAL));
+		});
+		AlertDeduplicator alertDeduplicator = new AlertDeduplicator(metricsService, Duration.ofMinutes(15), 100);
+		IncidentDispatcher dispatcher = spy(
+			new IncidentDispatcher(alertDeduplicator, alertCoalescer, mock(WorkloadResolver.class)));
+		JournalIngestionQueue queue = new JournalIngestionQueue(dispatcher, new ObjectMapper().findAndRegisterModules(),
+			metricsService, directory.toString(), DataSize.ofKilobytes(64), false, 100, 1);
+		queue.offer(List.of(incident(null, Incident.IncidentStatus.NEW)));
+
+		try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+			context.setEnvironment(new MockEnvironment().withProperty("aegisops.ingest.mode", "journal"));
+			// the queue is registered first, so only the listener order puts recovery ahead of it
+			context.registerBean(JournalIngestionQueue.class, () -> queue);
+			context.registerBean(IncidentRecovery.class, () -> new IncidentRecovery(incidentRepository,
+				mock(IncidentService.class), alertDeduplicator));
+			context.refresh();
+			context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context,
+				Duration.ZERO));
+
+			verify(dispatcher, timeout(2000)).dispatch(any(), any());
+			verify(alertCoalescer, after(500).never()).submit(any(), any());
+			assertThat(registry.get("aegisops.ingest.depth").gauge().value()).isZero();
+		}
+	}
+
+	private static Incident incident(String id, Incident.IncidentStatus status) {
+		return Incident.builder()
+			.id(id)
+			.alertName("PodCrashLooping")
+			.namespace("shop")
+			.podName("cart-7d8f9c5b4-aaaaa")
+			.fingerprint("fp-1")
+			.status(status)
+			.build();
+	}
+}
@@ -0,0 +1,124 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.incident.Incident.IncidentStatus;
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.pipeline.IncidentPipeline;
+import io.aegisops.agent.store.BlobStore;
+import io.aegisops.agent.store.LocalStore;
+import io.aegisops.agent.store.SegmentedLog.FsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IncidentRetentionTests {
+
+	private static final Instant NOW = Instant.parse("2026-06-01T12:00:00Z");
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private LocalStore store;
+	private LocalIncidentRepository incidents;
+	private LocalIncidentTransitionRepository transitions;
+	private LocalIncidentAggregateRepository aggregates;
+	private IncidentArchive archive;
+	private IncidentRetention retention;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		MetricsService metricsService = new MetricsService(registry);
+		store = new LocalStore(objectMapper, metricsService, directory.resolve("store"), DataSize.ofMegabytes(1),
+			FsyncPolicy.NEVER, 0.5);
+		incidents = new LocalIncidentRepository(store);
+		transitions = new LocalIncidentTransitionRepository(store);
+		aggregates = new LocalIncidentAggregateRepository(store);
+		archive = new IncidentArchive(objectMapper, directory.resolve("cold"));
+		retention = new IncidentRetention(incidents, transitions, aggregates, archive, mock(BlobStore.class),
+			mock(IncidentPipeline.class),
+			mock(ObjectProvider.class), metricsService);
+		ReflectionTestUtils.setField(retention, "coldAfter", Duration.ofDays(7));
+		ReflectionTestUtils.setField(retention, "horizon", Duration.ofDays(90));
+		ReflectionTestUtils.setField(retention, "batchSize", 10);
+	}
+
+	@AfterEach
+	void close() {
+		store.close();
+	}
+
+	@Test
+	void oldFinishedIncidentsLoseTheirBlobsButCanStillBeShown() {
+		Incident old = save(IncidentStatus.RESOLVED, NOW.minus(Duration.ofDays(10)));
+		Incident recent = save(IncidentStatus.RESOLVED, NOW.minus(Duration.ofDays(1)));
+		Incident open = save(IncidentStatus.ANALYZING, NOW.minus(Duration.ofDays(10)));
+
+		retention.archive(NOW);
+
+		Incident stored = incidents.findById(old.getId()).orElseThrow();
+		assertThat(stored.getPodStatus()).isNull();
+		assertThat(stored.getRootCause()).isEqualTo("OOMKilled");
+		assertThat(stored.getArchivedAt()).isEqualTo(NOW);
+		assertThat(archive.restore(stored).getPodStatus()).isEqualTo(old.getPodStatus());
+		assertThat(incidents.findById(recent.getId()).orElseThrow().getPodStatus()).isNotNull();
+		assertThat(incidents.findById(open.getId()).orElseThrow().getPodStatus()).isNotNull();
+
+		retention.archive(NOW);
+		assertThat(registry.get("aegisops.retention.incidents").tag("tier", "cold").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void incidentsBeyondTheHorizonAreRolledIntoDailyAggregates() {
+		Instant expired = NOW.minus(Duration.ofDays(100));
+		Incident first = save(IncidentStatus.RESOLVED, expired);
+		save(IncidentStatus.RESOLVED, expired.plusSeconds(60));
+		Incident kept = save(IncidentStatus.RESOLVED, NOW.minus(Duration.ofDays(30)));
+		transitions.saveAll(List.of(IncidentTransition.builder().incidentId(first.getId()).sequence(1)
+			.toStatus(IncidentStatus.NEW).occurredAt(expired).build()));
+
+		retention.archive(NOW);
+		retention.expire(NOW);
+
+		assertThat(incidents.findById(first.getId())).isEmpty();
+		assertThat(incidents.findById(kept.getId())).isPresent();
+		assertThat(transitions.findByIncidentIdOrderBySequenceAsc(first.getId())).isEmpty();
+		LocalDate day = LocalDate.of(2026, 2, 21);
+		assertThat(aggregates.findByDayBetweenOrderByDayAsc(day, day)).singleElement()
+			.returns(2L, IncidentAggregate::getCount)
+			.returns(2 * 600L, IncidentAggregate::getResolutionSeconds);
+		try (var files = java.nio.file.Files.list(directory.resolve("cold"))) {
+			assertThat(files).hasSize(1);
+		} catch (java.io.IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private Incident save(IncidentStatus status, Instant createdAt) {
+		Incident incident = incidents.save(Incident.builder().alertName("KubePodCrashLooping").namespace("shop")
+			.severity("critical").podStatus("{\"phase\":\"Running\",\"restartCount\":12}").build());
+		incident.setStatus(status);
+		incident.setCreatedAt(createdAt);
+		incident.setResolvedAt(createdAt.plusSeconds(600));
+		incident.setRootCause("OOMKilled");
+		return incidents.save(incident);
+	}
+}
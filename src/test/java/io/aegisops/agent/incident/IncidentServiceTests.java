@@ -0,0 +1,77 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.aegisops.agent.analysis.DiagnosisEngine;
+import io.aegisops.agent.approval.ApprovalService;
+import io.aegisops.agent.audit.AuditService;
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.pipeline.IncidentPipeline;
+import io.aegisops.agent.remediation.ActionExecutor;
+import io.aegisops.agent.store.BlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IncidentServiceTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final MetricsService metricsService = new MetricsService(registry);
+	private final IncidentWriter incidentWriter = mock(IncidentWriter.class);
+	private final IncidentEnricher incidentEnricher = mock(IncidentEnricher.class);
+	private final IncidentPipeline pipeline = new IncidentPipeline(
+			new MockEnvironment().withProperty("aegisops.pipeline.drain-timeout", "100ms"), metricsService);
+	private final IncidentService service = new IncidentService(mock(IncidentRepository.class), incidentWriter,
+			mock(IncidentTransitionRepository.class), mock(IncidentAggregateRepository.class),
+			mock(IncidentArchive.class), mock(BlobStore.class), mock(ApplicationEventPublisher.class),
+			mock(OpenIncidentIndex.class), incidentEnricher, mock(DiagnosisEngine.class),
+			mock(ApprovalService.class), mock(ActionExecutor.class), mock(AuditService.class), metricsService,
+			pipeline);
+
+	@Test
+	void incidentInterruptedByDrainTimeoutStaysNonTerminal() throws InterruptedException {
+		CountDownLatch enriching = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(incidentWriter.create(any())).thenAnswer(invocation -> {
+			Incident incident = invocation.getArgument(0);
+			incident.setId("a");
+			return incident;
+		});
+		doAnswer(invocation -> {
+			enriching.countDown();
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				// the way the Kubernetes and LLM clients surface it
+				Thread.currentThread().interrupt();
+				interrupted.countDown();
+				throw new IllegalStateException("Request interrupted", e);
+			}
+			return null;
+		}).when(incidentEnricher).enrich(any());
+
+		Incident incident = Incident.builder().alertName("PodCrashLooping").namespace("shop").build();
+		service.processIncident(incident);
+		assertThat(enriching.await(5, TimeUnit.SECONDS)).isTrue();
+
+		pipeline.stop();
+
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		verify(incidentWriter, after(500).never()).transition(any(), any());
+		assertThat(incident.getStatus()).isEqualTo(Incident.IncidentStatus.NEW);
+		assertThat(registry.get("aegisops.actions.failed").counter().count()).isZero();
+	}
+
+}
@@ -0,0 +1,178 @@
+package io.aegisops.agent.incident;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.store.LocalStore;
+import io.aegisops.agent.store.SegmentedLog.FsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compares the local store backend with an embedded H2 database holding the
+ * same incidents through plain JDBC: inserts, status updates, point reads
+ * and the time to reopen. Not part of the test suite; run it from the IDE or
+ * with {@code java -cp target/test-classes:target/classes:<deps> io.aegisops.agent.incident.IncidentStoreBenchmark [incidents] [fsync]}.
+ */
+public class IncidentStoreBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		FsyncPolicy fsync = args.length > 1 ? FsyncPolicy.valueOf(args[1].toUpperCase()) : FsyncPolicy.INTERVAL;
+		ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+		System.out.printf("%d incidents, local fsync %s%n", count, fsync);
+		for (int round = 0; round < 3; round++) {
+			Path directory = Files.createTempDirectory("aegisops-bench");
+			try {
+				local(directory.resolve("local"), objectMapper, count, fsync);
+				h2(directory.resolve("h2"), objectMapper, count);
+			} finally {
+				FileSystemUtils.deleteRecursively(directory);
+			}
+		}
+	}
+
+	private static void local(Path directory, ObjectMapper objectMapper, int count, FsyncPolicy fsync) {
+		MetricsService metrics = new MetricsService(new SimpleMeterRegistry());
+		LocalStore store = new LocalStore(objectMapper, metrics, directory, DataSize.ofMegabytes(64), fsync, 0.5);
+		LocalIncidentRepository repository = new LocalIncidentRepository(store);
+		List<Incident> incidents = incidents(count);
+
+		long start = System.nanoTime();
+		incidents.forEach(repository::save);
+		long inserted = System.nanoTime();
+		for (Incident incident : incidents) {
+			incident.setStatus(Incident.IncidentStatus.ANALYZING);
+			repository.save(incident);
+		}
+		long updated = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			consume(repository.findById(randomId(incidents)));
+		}
+		long read = System.nanoTime();
+		store.close();
+
+		long reopenStart = System.nanoTime();
+		LocalStore reopened = new LocalStore(objectMapper, metrics, directory, DataSize.ofMegabytes(64), fsync, 0.5);
+		consume(new LocalIncidentRepository(reopened));
+		long reopen = System.nanoTime() - reopenStart;
+		reopened.close();
+
+		report("local", count, inserted - start, updated - inserted, read - updated, reopen);
+	}
+
+	private static void h2(Path directory, ObjectMapper objectMapper, int count) throws Exception {
+		String url = "jdbc:h2:file:" + directory.resolve("incidents").toAbsolutePath();
+		List<Incident> incidents = incidents(count);
+		long start;
+		long inserted;
+		long updated;
+		long read;
+
+		try (Connection connection = DriverManager.getConnection(url)) {
+			try (Statement ddl = connection.createStatement()) {
+				ddl.execute("create table incidents (id varchar(36) primary key, namespace varchar(255), "
+					+ "status varchar(32), created_at timestamp, body clob)");
+				ddl.execute("create index incidents_created on incidents (created_at, id)");
+			}
+			try (PreparedStatement insert = connection.prepareStatement(
+					"insert into incidents (id, namespace, status, created_at, body) values (?, ?, ?, ?, ?)");
+				 PreparedStatement update = connection.prepareStatement(
+					"update incidents set status = ?, body = ? where id = ?");
+				 PreparedStatement select = connection.prepareStatement("select body from incidents where id = ?")) {
+
+				start = System.nanoTime();
+				for (Incident incident : incidents) {
+					incident.setId(UUID.randomUUID().toString());
+					incident.onCreate();
+					insert.setString(1, incident.getId());
+					insert.setString(2, incident.getNamespace());
+					insert.setString(3, incident.getStatus().name());
+					insert.setTimestamp(4, Timestamp.from(incident.getCreatedAt()));
+					insert.setString(5, objectMapper.writeValueAsString(incident));
+					insert.executeUpdate();
+				}
+				inserted = System.nanoTime();
+				for (Incident incident : incidents) {
+					incident.setStatus(Incident.IncidentStatus.ANALYZING);
+					update.setString(1, incident.getStatus().name());
+					update.setString(2, objectMapper.writeValueAsString(incident));
+					update.setString(3, incident.getId());
+					update.executeUpdate();
+				}
+				updated = System.nanoTime();
+				for (int i = 0; i < count; i++) {
+					select.setString(1, randomId(incidents));
+					try (ResultSet rows = select.executeQuery()) {
+						rows.next();
+						consume(objectMapper.readValue(rows.getString(1), Incident.class));
+					}
+				}
+				read = System.nanoTime();
+			}
+		}
+
+		long reopenStart = System.nanoTime();
+		try (Connection connection = DriverManager.getConnection(url);
+			 Statement query = connection.createStatement();
+			 ResultSet rows = query.executeQuery("select count(*) from incidents")) {
+			rows.next();
+			consume(rows.getLong(1));
+		}
+		long reopen = System.nanoTime() - reopenStart;
+
+		report("h2-jdbc", count, inserted - start, updated - inserted, read - updated, reopen);
+	}
+
+	private static void report(String name, int count, long insert, long update, long read, long reopen) {
+		System.out.printf("%-8s insert %7.1f us/op  update %7.1f us/op  read %7.1f us/op  reopen %6d ms%n",
+			name, insert / 1_000.0 / count, update / 1_000.0 / count, read / 1_000.0 / count, reopen / 1_000_000);
+	}
+
+	private static List<Incident> incidents(int count) {
+		String logs = "level=error msg=\"connection refused\" upstream=payments:8080\n".repeat(100);
+		List<Incident> incidents = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			incidents.add(Incident.builder()
+				.alertName("KubePodCrashLooping")
+				.namespace("shop-" + (i % 20))
+				.podName("cart-7d8f9c5b4-" + i)
+				.workloadKind("Deployment")
+				.workloadName("cart")
+				.severity("critical")
+				.affectedPods(Set.of("cart-7d8f9c5b4-" + i))
+				.metrics(Map.of("restarts", "12"))
+				.podLogs(logs)
+				.build());
+		}
+		return incidents;
+	}
+
+	private static String randomId(List<Incident> incidents) {
+		return incidents.get(ThreadLocalRandom.current().nextInt(incidents.size())).getId();
+	}
+
+	private static volatile Object sink;
+
+	private static void consume(Object value) {
+		sink = value;
+	}
+}
@@ -0,0 +1,49 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.incident.Incident.IncidentStatus;
+
+class IncidentTimelineTests {
+
+	private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+	@Test
+	void dwellTimeIsSummedPerStatus() {
+		List<IncidentTransition> transitions = List.of(
+				transition(1, null, IncidentStatus.NEW, 0),
+				transition(2, IncidentStatus.NEW, IncidentStatus.ANALYZING, 2),
+				transition(3, IncidentStatus.ANALYZING, IncidentStatus.PENDING_APPROVAL, 12),
+				transition(4, IncidentStatus.PENDING_APPROVAL, IncidentStatus.APPROVED, 312));
+
+		IncidentTimeline timeline = IncidentTimeline.of("a", transitions, T0.plusSeconds(315));
+
+		assertThat(timeline.dwell())
+				.containsEntry(IncidentStatus.NEW, Duration.ofSeconds(2))
+				.containsEntry(IncidentStatus.ANALYZING, Duration.ofSeconds(10))
+				.containsEntry(IncidentStatus.PENDING_APPROVAL, Duration.ofMinutes(5))
+				.containsEntry(IncidentStatus.APPROVED, Duration.ofSeconds(3));
+	}
+
+	@Test
+	void lifecycleRejectsIllegalTransitions() {
+		assertThat(IncidentLifecycle.isAllowed(IncidentStatus.ANALYZING, IncidentStatus.REMEDIATING)).isTrue();
+		assertThat(IncidentLifecycle.isAllowed(IncidentStatus.REMEDIATING, IncidentStatus.FAILED)).isTrue();
+		assertThatThrownBy(() -> IncidentLifecycle.requireAllowed(IncidentStatus.RESOLVED, IncidentStatus.ANALYZING))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(IncidentLifecycle.isAllowed(IncidentStatus.NEW, IncidentStatus.APPROVED)).isFalse();
+	}
+
+	private static IncidentTransition transition(long sequence, IncidentStatus from, IncidentStatus to, long atSeconds) {
+		return IncidentTransition.builder().incidentId("a").sequence(sequence).fromStatus(from).toStatus(to)
+				.occurredAt(T0.plusSeconds(atSeconds)).build();
+	}
+
+}
@@ -0,0 +1,111 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IncidentWriterTests {
+
+	private final IncidentRepository repository = mock(IncidentRepository.class);
+	private final IncidentTransitionRepository transitionRepository = mock(IncidentTransitionRepository.class);
+	private final IncidentWriter writer = new IncidentWriter(repository, transitionRepository,
+			new MetricsService(new SimpleMeterRegistry()), 200);
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void intermediateUpdatesCollapseIntoOneBatchedWrite() {
+		Incident incident = Incident.builder().id("a").status(Incident.IncidentStatus.ANALYZING).build();
+		writer.update(incident);
+		incident.setRootCause("oom");
+		writer.update(incident);
+		incident.setRecommendedAction("RESTART_POD");
+		writer.update(incident);
+
+		verify(repository, never()).save(incident);
+		assertThat(writer.pending("a")).contains(incident);
+
+		writer.flush();
+
+		ArgumentCaptor<List<Incident>> batch = ArgumentCaptor.forClass(List.class);
+		verify(repository, times(1)).saveAll(batch.capture());
+		assertThat(batch.getValue()).containsExactly(incident);
+		assertThat(writer.pending("a")).isEmpty();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void queuedUpdateIsNotAffectedByLaterChanges() {
+		Incident incident = Incident.builder().id("b").status(Incident.IncidentStatus.ANALYZING).build();
+		writer.update(incident);
+		incident.setRootCause("set after the update");
+
+		writer.flush();
+
+		ArgumentCaptor<List<Incident>> batch = ArgumentCaptor.forClass(List.class);
+		verify(repository).saveAll(batch.capture());
+		assertThat(batch.getValue()).singleElement().satisfies(written -> {
+			assertThat(written).isNotSameAs(incident);
+			assertThat(written.getRootCause()).isNull();
+		});
+	}
+
+	@Test
+	void synchronousWriteDropsTheQueuedSnapshotItSupersedes() {
+		Incident incident = Incident.builder().id("d").status(Incident.IncidentStatus.ANALYZING).transitionSeq(2)
+				.build();
+		writer.update(incident);
+		incident.setStatus(Incident.IncidentStatus.FAILED);
+		incident.setTransitionSeq(3);
+		writer.update(incident);
+
+		writer.flush();
+
+		verify(repository).save(incident);
+		verify(repository, never()).saveAll(anyList());
+		assertThat(writer.pending("d")).isEmpty();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void transitionsAreWrittenBeforeTheSnapshot() {
+		Incident incident = Incident.builder().id("c").status(Incident.IncidentStatus.FAILED).build();
+		IncidentTransition transition = IncidentTransition.builder().incidentId("c").sequence(2)
+				.fromStatus(Incident.IncidentStatus.NEW).toStatus(Incident.IncidentStatus.FAILED).build();
+
+		writer.transition(incident, transition);
+
+		InOrder order = inOrder(transitionRepository, repository);
+		ArgumentCaptor<List<IncidentTransition>> appended = ArgumentCaptor.forClass(List.class);
+		order.verify(transitionRepository).saveAll(appended.capture());
+		order.verify(repository).save(incident);
+		assertThat(appended.getValue()).containsExactly(transition);
+		assertThat(writer.pendingTransitions("c")).isEmpty();
+	}
+
+	@Test
+	void terminalStatusIsWrittenImmediately() {
+		Incident incident = Incident.builder().id("b").status(Incident.IncidentStatus.ANALYZING).build();
+		writer.update(incident);
+		incident.setStatus(Incident.IncidentStatus.RESOLVED);
+		writer.update(incident);
+
+		verify(repository).save(incident);
+		assertThat(writer.pending("b")).isEmpty();
+		writer.flush();
+		verify(repository, never()).saveAll(anyList());
+	}
+
+}
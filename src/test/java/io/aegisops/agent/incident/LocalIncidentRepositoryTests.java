@@ -0,0 +1,136 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.incident.Incident.IncidentStatus;
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.store.LocalStore;
+import io.aegisops.agent.store.SegmentedLog.FsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LocalIncidentRepositoryTests {
+
+	@TempDir
+	Path directory;
+
+	private LocalStore store;
+
+	@AfterEach
+	void close() {
+		store.close();
+	}
+
+	@Test
+	void latestVersionAndIndexesSurviveRestart() {
+		LocalIncidentRepository repository = open();
+		Incident incident = repository.save(incident("prod"));
+		incident.setStatus(IncidentStatus.ANALYZING);
+		incident.setRootCause("OOMKilled");
+		repository.save(incident);
+		repository.save(incident("staging"));
+		store.close();
+
+		repository = open();
+		assertThat(repository.findById(incident.getId())).get()
+			.returns(IncidentStatus.ANALYZING, Incident::getStatus)
+			.returns("OOMKilled", Incident::getRootCause)
+			.returns(incident.getCreatedAt(), Incident::getCreatedAt);
+		assertThat(repository.findByStatusIn(EnumSet.of(IncidentStatus.ANALYZING)))
+			.extracting(Incident::getId).containsExactly(incident.getId());
+	}
+
+	@Test
+	void summaryPagesFollowTheKeyset() {
+		LocalIncidentRepository repository = open();
+		Instant base = Instant.parse("2026-01-01T00:00:00Z");
+		for (int i = 0; i < 5; i++) {
+			Incident incident = repository.save(incident(i % 2 == 0 ? "prod" : "staging"));
+			incident.setCreatedAt(base.plusSeconds(i));
+			repository.save(incident);
+		}
+
+		List<IncidentSummary> first = repository.findSummariesAscending(null, null, null, null, null, null, 
+			null, null, Limit.of(2));
+		IncidentSummary last = first.get(1);
+		List<IncidentSummary> second = repository.findSummariesAscending(null, null, null, null, null, null, 
+			last.createdAt(), last.id(), Limit.of(2));
+		List<IncidentSummary> prod = repository.findSummariesDescending("prod", null, null, null, null, null, 
+			null, null, Limit.unlimited());
+
+		assertThat(first).extracting(IncidentSummary::createdAt).containsExactly(base, base.plusSeconds(1));
+		assertThat(second).extracting(IncidentSummary::createdAt)
+			.containsExactly(base.plusSeconds(2), base.plusSeconds(3));
+		assertThat(prod).extracting(IncidentSummary::createdAt)
+			.containsExactly(base.plusSeconds(4), base.plusSeconds(2), base);
+	}
+
+	@Test
+	void summaryIndexesFollowUpdatesAndCombineWithOtherFilters() {
+		LocalIncidentRepository repository = open();
+		Instant base = Instant.parse("2026-01-01T00:00:00Z");
+		for (int i = 0; i < 6; i++) {
+			Incident incident = repository.save(incident("prod"));
+			incident.setCreatedAt(base.plusSeconds(i));
+			incident.setStatus(i < 4 ? IncidentStatus.RESOLVED : IncidentStatus.ANALYZING);
+			incident.setSeverity(i % 2 == 0 ? "critical" : "warning");
+			repository.save(incident);
+		}
+
+		List<IncidentSummary> resolvedCritical = repository.findSummariesAscending("prod", IncidentStatus.RESOLVED, 
+			"critical", null, base.plusSeconds(1), base.plusSeconds(5), null, null, Limit.unlimited());
+		List<IncidentSummary> analyzing = repository.findSummariesDescending(null, IncidentStatus.ANALYZING, null, 
+			null, null, null, null, null, Limit.of(1));
+		List<IncidentSummary> nextAnalyzing = repository.findSummariesDescending(null, IncidentStatus.ANALYZING, 
+			null, null, null, null, analyzing.get(0).createdAt(), analyzing.get(0).id(), Limit.of(5));
+
+		assertThat(resolvedCritical).extracting(IncidentSummary::createdAt).containsExactly(base.plusSeconds(2));
+		assertThat(analyzing).extracting(IncidentSummary::createdAt).containsExactly(base.plusSeconds(5));
+		assertThat(nextAnalyzing).extracting(IncidentSummary::createdAt).containsExactly(base.plusSeconds(4));
+		assertThat(repository.findSummariesAscending(null, IncidentStatus.NEW, null, null, null, null, null, null, 
+			Limit.unlimited())).isEmpty();
+	}
+
+	@Test
+	void transitionSequenceIsUniquePerIncident() {
+		open();
+		LocalIncidentTransitionRepository transitions = new LocalIncidentTransitionRepository(store);
+		IncidentTransition approved = transition("a", 4, IncidentStatus.APPROVED);
+		transitions.saveAll(List.of(approved, transition("b", 4, IncidentStatus.FAILED)));
+		transitions.saveAll(List.of(approved));
+
+		assertThatThrownBy(() -> transitions.saveAll(List.of(transition("a", 4, IncidentStatus.FAILED))))
+			.isInstanceOf(DuplicateKeyException.class);
+		assertThat(transitions.findByIncidentIdOrderBySequenceAsc("a"))
+			.extracting(IncidentTransition::getToStatus).containsExactly(IncidentStatus.APPROVED);
+	}
+
+	private LocalIncidentRepository open() {
+		store = new LocalStore(new ObjectMapper().findAndRegisterModules(), new MetricsService(new SimpleMeterRegistry()), 
+			directory, DataSize.ofKilobytes(64), FsyncPolicy.NEVER, 0.5);
+		return new LocalIncidentRepository(store);
+	}
+
+	private static IncidentTransition transition(String incidentId, long sequence, IncidentStatus to) {
+		return IncidentTransition.builder().incidentId(incidentId).sequence(sequence).toStatus(to)
+			.occurredAt(Instant.now()).build();
+	}
+
+	private static Incident incident(String namespace) {
+		return Incident.builder().alertName("PodCrashLooping").namespace(namespace).severity("critical").build();
+	}
+}
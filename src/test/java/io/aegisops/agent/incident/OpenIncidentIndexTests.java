@@ -0,0 +1,74 @@
+package io.aegisops.agent.incident;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.incident.Incident.IncidentStatus;
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OpenIncidentIndexTests {
+
+	private final IncidentRepository repository = mock(IncidentRepository.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final OpenIncidentIndex index = new OpenIncidentIndex(repository, new MetricsService(registry));
+
+	@Test
+	void queriesFollowTransitionsAndTerminalIncidentsLeave() {
+		Incident api = incident("a", "prod", "api", "critical", IncidentStatus.NEW);
+		Incident worker = incident("b", "prod", "worker", "warning", IncidentStatus.NEW);
+		Incident staging = incident("c", "staging", "api", "critical", IncidentStatus.NEW);
+		List.of(api, worker, staging).forEach(this::publish);
+
+		api.setStatus(IncidentStatus.PENDING_APPROVAL);
+		publish(api);
+
+		assertThat(ids(index.find("prod", null, null, null))).containsExactlyInAnyOrder("a", "b");
+		assertThat(ids(index.find(null, IncidentStatus.PENDING_APPROVAL, null, null))).containsExactly("a");
+		assertThat(ids(index.find("prod", null, "api", "critical"))).containsExactly("a");
+		assertThat(ids(index.find(null, IncidentStatus.NEW, null, "critical"))).containsExactly("c");
+		assertThat(index.find(null, IncidentStatus.RESOLVED, null, null)).isEmpty();
+
+		worker.setStatus(IncidentStatus.FAILED);
+		publish(worker);
+
+		assertThat(ids(index.find("prod", null, null, null))).containsExactly("a");
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(registry.get("aegisops.index.memory").tag("index", "open-incidents").gauge().value()).isPositive();
+	}
+
+	@Test
+	void driftIsRepairedOnlyAfterTwoConsecutiveChecks() {
+		Incident missed = incident("d", "prod", "api", "critical", IncidentStatus.ANALYZING);
+		when(repository.findByStatusIn(any())).thenReturn(List.of(missed));
+
+		index.verify();
+		assertThat(index.size()).isZero();
+
+		index.verify();
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(registry.get("aegisops.index.drift").counter().count()).isEqualTo(1);
+	}
+
+	private void publish(Incident incident) {
+		index.onTransition(new IncidentTransitionedEvent(incident, null));
+	}
+
+	private static List<String> ids(List<IncidentSummary> summaries) {
+		return summaries.stream().map(IncidentSummary::id).toList();
+	}
+
+	private static Incident incident(String id, String namespace, String workload, String severity,
+			IncidentStatus status) {
+		return Incident.builder().id(id).alertName("PodCrashLooping").namespace(namespace).workloadName(workload)
+				.severity(severity).status(status).statusSince(Instant.now()).createdAt(Instant.now()).build();
+	}
+
+}
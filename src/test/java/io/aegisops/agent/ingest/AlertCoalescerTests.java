@@ -0,0 +1,111 @@
+package io.aegisops.agent.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.aegisops.agent.alert.AlertDeduplicator;
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.IncidentService;
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AlertCoalescerTests {
+
+	private final IncidentService incidentService = mock(IncidentService.class);
+	private final MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+	private final AlertDeduplicator deduplicator = new AlertDeduplicator(metricsService, Duration.ofMinutes(5), 100);
+	private final AlertCoalescer coalescer =
+		new AlertCoalescer(incidentService, deduplicator, metricsService, Duration.ofMillis(100));
+
+	@AfterEach
+	void shutdown() {
+		coalescer.shutdown();
+	}
+
+	@Test
+	void foldsAlertsForSameWorkloadIntoOneIncident() {
+		Incident first = incident("cart", "cart-7d8f9c5b4-aaaaa");
+		Incident second = incident("cart", "cart-7d8f9c5b4-bbbbb");
+		deduplicator.findOrRegister(first);
+		deduplicator.findOrRegister(second);
+
+		coalescer.submit(first);
+		coalescer.submit(second);
+		coalescer.submit(incident("checkout", "checkout-5f6d7c8b9-ccccc"));
+
+		ArgumentCaptor<Incident> dispatched = ArgumentCaptor.forClass(Incident.class);
+		verify(incidentService, timeout(2000).times(2)).processIncident(dispatched.capture(), any());
+
+		List<Incident> incidents = dispatched.getAllValues();
+		Incident parent = incidents.stream().filter(i -> i.getDeploymentName().equals("cart")).findFirst().orElseThrow();
+		assertThat(parent).isSameAs(first);
+		assertThat(parent.getAffectedPods()).containsExactly("cart-7d8f9c5b4-aaaaa", "cart-7d8f9c5b4-bbbbb");
+		assertThat(deduplicator.findOrRegister(incident("cart", "cart-7d8f9c5b4-bbbbb"))).isSameAs(first);
+	}
+
+	@Test
+	void membersCompleteOnlyWhenTheParentIsPersisted() {
+		Incident first = incident("cart", "cart-7d8f9c5b4-aaaaa");
+		AtomicInteger completed = new AtomicInteger();
+
+		coalescer.submit(first, completed::incrementAndGet);
+		coalescer.submit(incident("cart", "cart-7d8f9c5b4-bbbbb"), completed::incrementAndGet);
+		assertThat(completed).hasValue(0);
+
+		ArgumentCaptor<Runnable> persisted = ArgumentCaptor.forClass(Runnable.class);
+		verify(incidentService, timeout(2000)).processIncident(eq(first), persisted.capture());
+		assertThat(completed).hasValue(0);
+
+		persisted.getValue().run();
+		assertThat(completed).hasValue(2);
+	}
+
+	@Test
+	void windowWaitingOnAFullIngestStageDoesNotHoldUpTheOthers() throws Exception {
+		Incident cart = incident("cart", "cart-7d8f9c5b4-aaaaa");
+		Incident checkout = incident("checkout", "checkout-5f6d7c8b9-ccccc");
+		CountDownLatch stageFull = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			// blocks like the ingest stage does until it has room
+			stageFull.await();
+			return null;
+		}).when(incidentService).processIncident(eq(cart), any());
+
+		try {
+			coalescer.submit(cart);
+			verify(incidentService, timeout(2000)).processIncident(eq(cart), any());
+			coalescer.submit(checkout);
+
+			verify(incidentService, timeout(2000)).processIncident(eq(checkout), any());
+		} finally {
+			stageFull.countDown();
+		}
+	}
+
+	private static Incident incident(String deployment, String pod) {
+		return Incident.builder()
+			.alertName("PodCrashLooping")
+			.namespace("shop")
+			.deploymentName(deployment)
+			.workloadKind("Deployment")
+			.workloadName(deployment)
+			.podName(pod)
+			.fingerprint(pod)
+			.status(Incident.IncidentStatus.NEW)
+			.build();
+	}
+}
@@ -0,0 +1,89 @@
+package io.aegisops.agent.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.aegisops.agent.store.SegmentedLog;
+
+class AlertJournalTests {
+
+	private static final int SEGMENT_SIZE = 256;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsAppendedRecordsAcrossSegments() throws Exception {
+		try (AlertJournal journal = AlertJournal.open(directory, SEGMENT_SIZE, false)) {
+			for (int i = 0; i < 20; i++) {
+				journal.append(("alert-" + i).getBytes(StandardCharsets.UTF_8));
+			}
+
+			assertThat(readAll(journal, journal.checkpoint())).hasSize(20).first().isEqualTo("alert-0");
+			assertThat(segmentCount()).isGreaterThan(1);
+		}
+	}
+
+	@Test
+	void replaysUnconsumedRecordsAfterReopen() throws Exception {
+		try (AlertJournal journal = AlertJournal.open(directory, SEGMENT_SIZE, false)) {
+			long checkpoint = 0;
+			for (int i = 0; i < 20; i++) {
+				long position = journal.append(("alert-" + i).getBytes(StandardCharsets.UTF_8));
+				if (i == 17) {
+					checkpoint = position;
+				}
+			}
+			journal.checkpoint(checkpoint);
+		}
+
+		try (AlertJournal journal = AlertJournal.open(directory, SEGMENT_SIZE, false)) {
+			assertThat(readAll(journal, journal.checkpoint()))
+				.containsExactly("alert-17", "alert-18", "alert-19");
+			assertThat(segmentCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void truncatesTornTailOnRecovery() throws Exception {
+		long tornPosition;
+		try (AlertJournal journal = AlertJournal.open(directory, SEGMENT_SIZE, false)) {
+			journal.append("complete".getBytes(StandardCharsets.UTF_8));
+			tornPosition = journal.append("torn-record".getBytes(StandardCharsets.UTF_8));
+		}
+		try (RandomAccessFile segment = new RandomAccessFile(directory.resolve("0000000000.log").toFile(), "rw")) {
+			segment.seek(tornPosition + SegmentedLog.HEADER_BYTES);
+			segment.write('X');
+		}
+
+		try (AlertJournal journal = AlertJournal.open(directory, SEGMENT_SIZE, false)) {
+			assertThat(readAll(journal, 0)).containsExactly("complete");
+			journal.append("after-recovery".getBytes(StandardCharsets.UTF_8));
+			assertThat(readAll(journal, 0)).containsExactly("complete", "after-recovery");
+		}
+	}
+
+	private static List<String> readAll(AlertJournal journal, long from) {
+		List<String> records = new ArrayList<>();
+		for (SegmentedLog.Record entry = journal.read(from); entry != null; entry = journal.read(entry.nextPosition())) {
+			records.add(new String(entry.payload(), StandardCharsets.UTF_8));
+		}
+		return records;
+	}
+
+	private long segmentCount() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(f -> f.toString().endsWith(".log")).count();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package io.aegisops.agent.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JournalIngestionQueueTests {
+
+	private static final DataSize SEGMENT_SIZE = DataSize.ofKilobytes(64);
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final IncidentDispatcher dispatcher = mock(IncidentDispatcher.class);
+
+	@Test
+	void checkpointWaitsUntilTheIncidentIsPersisted() throws Exception {
+		JournalIngestionQueue queue = open();
+		queue.offer(List.of(incident()));
+		queue.start();
+
+		ArgumentCaptor<Runnable> persisted = ArgumentCaptor.forClass(Runnable.class);
+		verify(dispatcher, timeout(2000)).dispatch(any(), persisted.capture());
+		queue.checkpoint();
+
+		assertThat(depth()).isEqualTo(1);
+		assertThat(unconsumedAfterReopen(queue)).isTrue();
+	}
+
+	@Test
+	void checkpointAdvancesOncePersisted() throws Exception {
+		JournalIngestionQueue queue = open();
+		queue.offer(List.of(incident()));
+		queue.start();
+
+		ArgumentCaptor<Runnable> persisted = ArgumentCaptor.forClass(Runnable.class);
+		verify(dispatcher, timeout(2000)).dispatch(any(), persisted.capture());
+		persisted.getValue().run();
+		queue.checkpoint();
+
+		assertThat(depth()).isZero();
+		assertThat(unconsumedAfterReopen(queue)).isFalse();
+	}
+
+	private JournalIngestionQueue open() {
+		return new JournalIngestionQueue(dispatcher, new ObjectMapper().findAndRegisterModules(),
+			new MetricsService(registry), directory.toString(), SEGMENT_SIZE, false, 100, 1);
+	}
+
+	private boolean unconsumedAfterReopen(JournalIngestionQueue queue) throws Exception {
+		queue.stop();
+		try (AlertJournal journal = AlertJournal.open(directory, Math.toIntExact(SEGMENT_SIZE.toBytes()), false)) {
+			return journal.read(journal.checkpoint()) != null;
+		}
+	}
+
+	private double depth() {
+		return registry.get("aegisops.ingest.depth").gauge().value();
+	}
+
+	private static Incident incident() {
+		return Incident.builder()
+			.alertName("PodCrashLooping")
+			.namespace("shop")
+			.podName("cart-7d8f9c5b4-aaaaa")
+			.fingerprint("fp-1")
+			.status(Incident.IncidentStatus.NEW)
+			.build();
+	}
+}
@@ -0,0 +1,96 @@
+package io.aegisops.agent.kubernetes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.kubernetes.ApiRateLimiter.Bucket;
+import io.aegisops.agent.kubernetes.ApiRateLimiter.Lane;
+import io.aegisops.agent.metrics.MetricsService;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ApiRateLimiterTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void bucketAllowsABurstThenRefillsAtTheRate() {
+		Bucket bucket = new Bucket(2, 3, 0);
+
+		assertThat(bucket.take(0)).isZero();
+		assertThat(bucket.take(0)).isZero();
+		assertThat(bucket.take(0)).isZero();
+		assertThat(bucket.take(0)).isEqualTo(SECOND / 2);
+		assertThat(bucket.take(SECOND / 2)).isZero();
+	}
+
+	@Test
+	void throttlingHalvesTheRateDownToAFloorAndRecoversGradually() {
+		Bucket bucket = new Bucket(10, 1, 0);
+
+		bucket.slowDown();
+		assertThat(bucket.rate()).isEqualTo(5);
+		for (int i = 0; i < 10; i++) {
+			bucket.slowDown();
+		}
+		assertThat(bucket.rate()).isEqualTo(1);
+
+		bucket.speedUp();
+		assertThat(bucket.rate()).isEqualTo(1.2);
+		for (int i = 0; i < 100; i++) {
+			bucket.speedUp();
+		}
+		assertThat(bucket.rate()).isEqualTo(10);
+	}
+
+	@Test
+	void requestInterruptedWaitingForATokenIsNotSent() {
+		ApiRateLimiter limiter = new ApiRateLimiter(new MetricsService(new SimpleMeterRegistry()), true, 0.001, 1,
+			20, 40);
+		AtomicInteger sent = new AtomicInteger();
+		limiter.mutate(sent::incrementAndGet);
+
+		Thread.currentThread().interrupt();
+		try {
+			assertThatThrownBy(() -> limiter.mutate(sent::incrementAndGet))
+				.isInstanceOf(KubernetesClientException.class);
+			assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		} finally {
+			Thread.interrupted();
+		}
+		assertThat(sent).hasValue(1);
+	}
+
+	@Test
+	void onlyGetsAreReads() {
+		assertThat(ApiRateLimiter.lane(request("GET"))).isEqualTo(Lane.READ);
+		assertThat(ApiRateLimiter.lane(request("PATCH"))).isEqualTo(Lane.MUTATION);
+		assertThat(ApiRateLimiter.lane(request("DELETE"))).isEqualTo(Lane.MUTATION);
+	}
+
+	@Test
+	void retryAfterAcceptsSecondsAndDates() {
+		Instant now = Instant.parse("2025-06-01T12:00:00Z");
+
+		assertThat(ApiRateLimiter.retryAfter("7", now)).isEqualTo(Duration.ofSeconds(7));
+		assertThat(ApiRateLimiter.retryAfter("Sun, 1 Jun 2025 12:00:30 GMT", now)).isEqualTo(Duration.ofSeconds(30));
+		assertThat(ApiRateLimiter.retryAfter(null, now)).isEqualTo(ApiRateLimiter.DEFAULT_RETRY_AFTER);
+		assertThat(ApiRateLimiter.retryAfter("soon", now)).isEqualTo(ApiRateLimiter.DEFAULT_RETRY_AFTER);
+	}
+
+	private static HttpRequest request(String method) {
+		HttpRequest request = mock(HttpRequest.class);
+		when(request.method()).thenReturn(method);
+		return request;
+	}
+}
@@ -0,0 +1,58 @@
+package io.aegisops.agent.kubernetes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+
+class EventIndexTests {
+
+	private final EventIndex index = new EventIndex(3);
+
+	@Test
+	void eventsAreFoundByUidAndByNameNewestFirst() {
+		index.onAdd(event("e1", "api-1", "uid-1", "Scheduled", "2026-06-01T10:00:00Z"));
+		index.onAdd(event("e2", "api-1", "uid-1", "BackOff", "2026-06-01T10:05:00Z"));
+		index.onAdd(event("e3", "api-2", "uid-2", "Pulled", "2026-06-01T10:01:00Z"));
+
+		assertThat(index.find("shop/api-1")).extracting(Event::getReason).containsExactly("BackOff", "Scheduled");
+		assertThat(index.find("uid-1")).extracting(Event::getReason).containsExactly("BackOff", "Scheduled");
+		assertThat(index.find("shop/api-3")).isEmpty();
+	}
+
+	@Test
+	void updatesReplaceTheEventAndOnlyTheNewestAreKept() {
+		for (int i = 0; i < 5; i++) {
+			index.onAdd(event("e" + i, "api-1", "uid-1", "Reason" + i, "2026-06-01T10:0" + i + ":00Z"));
+		}
+		Event backOff = event("e4", "api-1", "uid-1", "BackOff", "2026-06-01T10:09:00Z");
+		index.onUpdate(event("e4", "api-1", "uid-1", "Reason4", "2026-06-01T10:04:00Z"), backOff);
+
+		assertThat(index.find("shop/api-1")).extracting(Event::getReason)
+			.containsExactly("BackOff", "Reason3", "Reason2");
+
+		index.onDelete(backOff, false);
+		assertThat(index.find("uid-1")).extracting(Event::getReason).containsExactly("Reason3", "Reason2");
+	}
+
+	@Test
+	void objectsWithoutEventsAreDropped() {
+		Event event = event("e1", "api-1", "uid-1", "Killing", "2026-06-01T10:00:00Z");
+		index.onAdd(event);
+		index.onDelete(event, true);
+
+		assertThat(index.objectCount()).isZero();
+	}
+
+	private static Event event(String name, String pod, String uid, String reason, String lastTimestamp) {
+		return new EventBuilder()
+			.withNewMetadata().withName(name).withNamespace("shop").endMetadata()
+			.withNewInvolvedObject().withKind("Pod").withName(pod).withUid(uid).endInvolvedObject()
+			.withType("Warning")
+			.withReason(reason)
+			.withLastTimestamp(lastTimestamp)
+			.build();
+	}
+}
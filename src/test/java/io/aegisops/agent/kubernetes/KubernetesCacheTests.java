@@ -0,0 +1,83 @@
+package io.aegisops.agent.kubernetes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntryBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class KubernetesCacheTests {
+
+	@Test
+	void podsAreIndexedByNamespacedLabelAndOwnerUid() {
+		Pod pod = pod();
+
+		assertThat(KubernetesCache.labelKeys(pod)).containsExactlyInAnyOrder("shop/app=api", "shop/tier=web");
+		assertThat(KubernetesCache.ownerKeys(pod)).containsExactly("rs-uid");
+		assertThat(KubernetesCache.labelKeys(new PodBuilder().withNewMetadata().endMetadata().build())).isEmpty();
+	}
+
+	@Test
+	void lagIsMeasuredFromTheLatestManagedFieldsWrite() {
+		Pod pod = new PodBuilder(pod()).editMetadata()
+			.withManagedFields(
+				new ManagedFieldsEntryBuilder().withManager("kubelet").withTime("2026-06-01T10:00:00Z").build(),
+				new ManagedFieldsEntryBuilder().withManager("kube-controller-manager").withTime("2026-06-01T10:00:05Z").build())
+			.endMetadata().build();
+
+		assertThat(KubernetesCache.lag(pod, Instant.parse("2026-06-01T10:00:07Z"))).isEqualTo(Duration.ofSeconds(2));
+		assertThat(KubernetesCache.lag(pod, Instant.parse("2026-06-01T09:00:00Z"))).isNull();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void readsGoToTheApiServerUntilTheInformersHaveSynced() {
+		KubernetesClient client = mock(KubernetesClient.class, RETURNS_DEEP_STUBS);
+		MixedOperation<Pod, PodList, PodResource> pods = mock(MixedOperation.class);
+		NonNamespaceOperation<Pod, PodList, PodResource> inNamespace = mock(NonNamespaceOperation.class);
+		PodResource resource = mock(PodResource.class);
+		Pod pod = pod();
+		when(client.pods()).thenReturn(pods);
+		when(pods.inNamespace("shop")).thenReturn(inNamespace);
+		when(inNamespace.withName("api-1")).thenReturn(resource);
+		when(resource.get()).thenReturn(pod);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		MetricsService metricsService = new MetricsService(registry);
+		KubernetesCache cache = new KubernetesCache(client, new ApiRateLimiter(metricsService, false, 5, 10, 20, 40),
+			metricsService);
+
+		assertThat(cache.getPod("shop", "api-1")).isSameAs(pod);
+		assertThat(registry.get("aegisops.kubernetes.cache.reads").tag("kind", "pods").tag("result", "miss")
+			.counter().count()).isEqualTo(1);
+		assertThat(registry.get("aegisops.kubernetes.cache.hit.ratio").gauge().value()).isZero();
+	}
+
+	private static Pod pod() {
+		return new PodBuilder()
+			.withNewMetadata()
+				.withName("api-1")
+				.withNamespace("shop")
+				.addToLabels("app", "api")
+				.addToLabels("tier", "web")
+				.addNewOwnerReference().withKind("ReplicaSet").withName("api-7d9").withUid("rs-uid")
+					.withController(true).endOwnerReference()
+				.withCreationTimestamp("2026-06-01T09:59:00Z")
+			.endMetadata()
+			.build();
+	}
+}
@@ -0,0 +1,97 @@
+package io.aegisops.agent.kubernetes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.ContainerStatusBuilder;
+
+class LogFollowerTests {
+
+	private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+	private static final Duration WINDOW = Duration.ofHours(1);
+
+	@Test
+	void followsContainersThatRestartedRecently() {
+		assertThat(LogFollower.unhealthy(restarted("2025-06-01T11:30:00Z"), NOW, WINDOW)).isTrue();
+		assertThat(LogFollower.unhealthy(restarted("2025-06-01T09:00:00Z"), NOW, WINDOW)).isFalse();
+	}
+
+	@Test
+	void followsCrashLoopingContainers() {
+		ContainerStatus status = new ContainerStatusBuilder()
+			.withName("app")
+			.withRestartCount(7)
+			.withNewState().withNewWaiting().withReason("CrashLoopBackOff").endWaiting().endState()
+			.build();
+
+		assertThat(LogFollower.unhealthy(status, NOW, WINDOW)).isTrue();
+	}
+
+	@Test
+	void followsRunningContainersThatStayUnready() {
+		assertThat(LogFollower.unhealthy(running("2025-06-01T11:00:00Z", false), NOW, WINDOW)).isTrue();
+		assertThat(LogFollower.unhealthy(running("2025-06-01T11:59:50Z", false), NOW, WINDOW)).isFalse();
+		assertThat(LogFollower.unhealthy(running("2025-06-01T11:00:00Z", true), NOW, WINDOW)).isFalse();
+	}
+
+	@Test
+	void ignoresContainersWaitingForAnImage() {
+		ContainerStatus status = new ContainerStatusBuilder()
+			.withName("app")
+			.withRestartCount(0)
+			.withNewState().withNewWaiting().withReason("ImagePullBackOff").endWaiting().endState()
+			.build();
+
+		assertThat(LogFollower.unhealthy(status, NOW, WINDOW)).isFalse();
+	}
+
+	@Test
+	void servesABufferOnlyWhileItIsCurrent() {
+		LogRingBuffer buffer = new LogRingBuffer(64);
+		assertThat(LogFollower.current(buffer, true, System.nanoTime())).isFalse();
+
+		byte[] line = "started\n".getBytes(StandardCharsets.UTF_8);
+		buffer.write(line, 0, line.length);
+		long written = buffer.lastWrite();
+
+		assertThat(LogFollower.current(buffer, true, written + Duration.ofHours(1).toNanos())).isTrue();
+		assertThat(LogFollower.current(buffer, false, written + Duration.ofSeconds(5).toNanos())).isTrue();
+		assertThat(LogFollower.current(buffer, false, written + Duration.ofMinutes(5).toNanos())).isFalse();
+	}
+
+	@Test
+	void backsOffWhileStreamsKeepEndingAtOnce() {
+		Duration retry = LogFollower.nextRetry(null, Duration.ofMillis(50));
+		assertThat(retry).isEqualTo(Duration.ofSeconds(5));
+
+		for (int i = 0; i < 10; i++) {
+			retry = LogFollower.nextRetry(retry, Duration.ofMillis(50));
+		}
+		assertThat(retry).isEqualTo(Duration.ofMinutes(5));
+		assertThat(LogFollower.nextRetry(Duration.ofSeconds(5), Duration.ofSeconds(1))).isEqualTo(Duration.ofSeconds(10));
+		assertThat(LogFollower.nextRetry(retry, Duration.ofMinutes(10))).isEqualTo(Duration.ofSeconds(5));
+	}
+
+	private static ContainerStatus restarted(String finishedAt) {
+		return new ContainerStatusBuilder(running("2025-06-01T08:00:00Z", true))
+			.withRestartCount(1)
+			.withNewLastState().withNewTerminated().withExitCode(137).withFinishedAt(finishedAt).endTerminated()
+			.endLastState()
+			.build();
+	}
+
+	private static ContainerStatus running(String startedAt, boolean ready) {
+		return new ContainerStatusBuilder()
+			.withName("app")
+			.withReady(ready)
+			.withRestartCount(0)
+			.withNewState().withNewRunning().withStartedAt(startedAt).endRunning().endState()
+			.build();
+	}
+}
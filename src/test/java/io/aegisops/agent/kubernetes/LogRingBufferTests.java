@@ -0,0 +1,57 @@
+package io.aegisops.agent.kubernetes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class LogRingBufferTests {
+
+	@Test
+	void keepsEverythingUntilFull() {
+		LogRingBuffer buffer = new LogRingBuffer(32);
+		write(buffer, "one\ntwo\n");
+
+		assertThat(text(buffer)).isEqualTo("one\ntwo\n");
+		assertThat(buffer.wrapped()).isFalse();
+	}
+
+	@Test
+	void wrapsAndDropsThePartialFirstLine() {
+		LogRingBuffer buffer = new LogRingBuffer(12);
+		write(buffer, "first\nsecond\n");
+		write(buffer, "third\n");
+
+		// the ring holds "econd\nthird\n"; the cut line is dropped
+		assertThat(text(buffer)).isEqualTo("third\n");
+		assertThat(buffer.wrapped()).isTrue();
+	}
+
+	@Test
+	void writesLargerThanTheRingKeepTheirTail() {
+		LogRingBuffer buffer = new LogRingBuffer(8);
+		write(buffer, "aaaaaaaaaaaa\nbbb\n");
+
+		assertThat(text(buffer)).isEqualTo("bbb\n");
+	}
+
+	@Test
+	void manySmallWritesAcrossTheBoundary() {
+		LogRingBuffer buffer = new LogRingBuffer(10);
+		for (int i = 0; i < 100; i++) {
+			write(buffer, i + "\n");
+		}
+
+		assertThat(text(buffer)).isEqualTo("97\n98\n99\n");
+	}
+
+	private static void write(LogRingBuffer buffer, String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		buffer.write(bytes, 0, bytes.length);
+	}
+
+	private static String text(LogRingBuffer buffer) {
+		return new String(buffer.snapshot(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,81 @@
+package io.aegisops.agent.kubernetes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.kubernetes.PodLogs.ContainerLog;
+
+class LogTailTests {
+
+	@Test
+	void keepsTheLastLinesWithinTheByteBudget() throws IOException {
+		LogTail tail = new LogTail(100, 19, 19).read(stream("one\ntwo\nthree\nfour\nfive\n"));
+
+		assertThat(tail.text()).isEqualTo("three\nfour\nfive");
+		assertThat(tail.lines()).isEqualTo(3);
+		assertThat(tail.truncated()).isTrue();
+	}
+
+	@Test
+	void longLinesAreCutWithoutBufferingThem() throws IOException {
+		InputStream huge = new InputStream() {
+			private long remaining = 50_000_000;
+
+			@Override
+			public int read() {
+				return remaining-- > 0 ? '{' : remaining == -1 ? '\n' : -1;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) {
+				int read = 0;
+				while (read < length) {
+					int b = read();
+					if (b == -1) {
+						break;
+					}
+					buffer[offset + read++] = (byte) b;
+				}
+				return read == 0 && length > 0 ? -1 : read;
+			}
+		};
+
+		LogTail tail = new LogTail(100, 64 * 1024, 16).read(huge);
+
+		assertThat(tail.text()).isEqualTo("{".repeat(16) + " ... [49999984 bytes cut]");
+		assertThat(tail.truncated()).isTrue();
+	}
+
+	@Test
+	void lineLimitAppliesWithoutTrailingNewline() throws IOException {
+		LogTail tail = new LogTail(2, 1024, 1024).read(stream("a\nb\nc"));
+
+		assertThat(tail.text()).isEqualTo("b\nc");
+	}
+
+	@Test
+	void formattedLogsNameContainersOnlyWhenThereAreSeveral() {
+		PodLogs single = new PodLogs(List.of(
+			new ContainerLog("api", false, "", 0, false, null),
+			new ContainerLog("api", true, "panic: nil map", 1, false, null)));
+		PodLogs several = new PodLogs(List.of(
+			new ContainerLog("api", false, "listening", 1, false, null),
+			new ContainerLog("proxy", false, "", 0, false, "container not found")));
+
+		assertThat(single.format()).isEqualTo("panic: nil map");
+		assertThat(several.format()).isEqualTo("--- api, current container ---\nlistening\n"
+			+ "--- proxy, current container ---\nError fetching logs: container not found");
+		assertThat(new PodLogs(List.of()).format()).isEqualTo("No logs available");
+	}
+
+	private static InputStream stream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,36 @@
+package io.aegisops.agent.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IncidentPipelineTests {
+
+	@Test
+	void stopDrainsQueuedWorkAcrossStagesThenRefusesMore() {
+		MockEnvironment environment = new MockEnvironment().withProperty("aegisops.pipeline.drain-timeout", "5s");
+		IncidentPipeline pipeline = new IncidentPipeline(environment, new MetricsService(new SimpleMeterRegistry()));
+		AtomicInteger verified = new AtomicInteger();
+
+		for (int i = 0; i < 20; i++) {
+			pipeline.getIngest().submit(() -> pipeline.getEnrich().submit(() -> 
+					pipeline.getVerify().submit(verified::incrementAndGet)));
+		}
+		pipeline.stop();
+
+		assertThat(verified).hasValue(20);
+		assertThat(pipeline.isAccepting()).isFalse();
+		assertThat(pipeline.isRunning()).isFalse();
+		assertThatThrownBy(() -> pipeline.getIngest().submit(() -> { }))
+				.isInstanceOf(RejectedExecutionException.class);
+	}
+
+}
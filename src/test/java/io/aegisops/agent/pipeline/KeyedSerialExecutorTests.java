@@ -0,0 +1,145 @@
+package io.aegisops.agent.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class KeyedSerialExecutorTests {
+
+	private final MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+
+	@Test
+	void tasksForOneKeyRunInOrderWithoutOverlap() throws Exception {
+		PipelineStage stage = new PipelineStage("keyed", 8, 100, true, metricsService);
+		KeyedSerialExecutor executor = new KeyedSerialExecutor(stage, metricsService);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<Integer> order = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(50);
+
+		for (int i = 0; i < 50; i++) {
+			int n = i;
+			executor.submit("prod/api", () -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				sleep(1);
+				order.add(n);
+				running.decrementAndGet();
+				done.countDown();
+			});
+		}
+
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxRunning.get()).isEqualTo(1);
+		assertThat(order).isSorted().hasSize(50);
+		assertThat(executor.pending("prod/api")).isZero();
+		stage.shutdown(Duration.ofSeconds(1));
+	}
+
+	@Test
+	void differentKeysRunInParallel() throws Exception {
+		PipelineStage stage = new PipelineStage("keyed", 2, 100, true, metricsService);
+		KeyedSerialExecutor executor = new KeyedSerialExecutor(stage, metricsService);
+		CountDownLatch bothStarted = new CountDownLatch(2);
+
+		executor.submit("prod/api", () -> await(bothStarted));
+		executor.submit("prod/worker", () -> await(bothStarted));
+
+		assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		stage.shutdown(Duration.ofSeconds(1));
+	}
+
+	@Test
+	void keyIsReleasedWhenTheStageRejectsItsTask() throws Exception {
+		PipelineStage stage = new PipelineStage("keyed", 1, 1, false, metricsService);
+		KeyedSerialExecutor executor = new KeyedSerialExecutor(stage, metricsService);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch ran = new CountDownLatch(1);
+		executor.submit("prod/api", () -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.submit("prod/worker", () -> { });
+
+		// the stage queue is full, so an interrupted submitter is turned away
+		Thread.currentThread().interrupt();
+		assertThatThrownBy(() -> executor.submit("prod/db", ran::countDown))
+				.isInstanceOf(RejectedExecutionException.class);
+		Thread.interrupted();
+		release.countDown();
+
+		executor.submit("prod/db", ran::countDown);
+		assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+		stage.shutdown(Duration.ofSeconds(1));
+	}
+
+	@Test
+	void tasksQueuedBehindARejectedTaskAreHandedToTheirRejectionHandlers() throws Exception {
+		PipelineStage stage = new PipelineStage("keyed", 1, 1, false, metricsService);
+		KeyedSerialExecutor executor = new KeyedSerialExecutor(stage, metricsService);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit("prod/api", () -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.submit("prod/worker", () -> { });
+
+		// the first db task waits for room in the full stage queue
+		Thread submitter = new Thread(() -> assertThatThrownBy(() -> executor.submit("prod/db", () -> { }))
+				.isInstanceOf(RejectedExecutionException.class));
+		submitter.start();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (submitter.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+			sleep(1);
+		}
+		List<RuntimeException> rejected = new CopyOnWriteArrayList<>();
+		AtomicInteger ran = new AtomicInteger();
+		executor.submit("prod/db", ran::incrementAndGet, rejected::add);
+		executor.submit("prod/db", ran::incrementAndGet, rejected::add);
+		assertThat(executor.pending("prod/db")).isEqualTo(2);
+
+		submitter.interrupt();
+		submitter.join(5000);
+		release.countDown();
+		stage.shutdown(Duration.ofSeconds(1));
+
+		assertThat(rejected).hasSize(2).allMatch(e -> e instanceof RejectedExecutionException);
+		assertThat(ran).hasValue(0);
+		assertThat(executor.pending("prod/db")).isZero();
+	}
+
+	private static void await(CountDownLatch latch) {
+		latch.countDown();
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+package io.aegisops.agent.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PipelineStageTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void submitBlocksWhileQueueIsFull() throws Exception {
+		PipelineStage stage = new PipelineStage("test", 1, 1, true, new MetricsService(registry));
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+
+		stage.submit(() -> {
+			started.countDown();
+			await(release);
+		});
+		started.await(5, TimeUnit.SECONDS);
+		stage.submit(() -> { });
+
+		AtomicBoolean thirdQueued = new AtomicBoolean();
+		Thread producer = Thread.ofPlatform().start(() -> {
+			stage.submit(() -> { });
+			thirdQueued.set(true);
+		});
+		producer.join(200);
+		assertThat(thirdQueued).isFalse();
+		assertThat(registry.get("aegisops.pipeline.depth").tag("stage", "test").gauge().value()).isEqualTo(1);
+
+		release.countDown();
+		producer.join(5000);
+		assertThat(thirdQueued).isTrue();
+		assertThat(stage.shutdown(Duration.ofSeconds(5))).isTrue();
+		assertThat(registry.get("aegisops.pipeline.service").tag("stage", "test").timer().count()).isEqualTo(3);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package io.aegisops.agent.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.store.SegmentedLog.FsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BlobStoreTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final MetricsService metricsService = new MetricsService(registry);
+	private LocalStore store;
+	private LocalBlobRepository repository;
+
+	@BeforeEach
+	void open() {
+		store = new LocalStore(new ObjectMapper().findAndRegisterModules(), metricsService, directory,
+			DataSize.ofMegabytes(1), FsyncPolicy.NEVER, 0.5);
+		repository = new LocalBlobRepository(store);
+	}
+
+	@AfterEach
+	void close() {
+		store.close();
+	}
+
+	@Test
+	void identicalContentIsStoredOnce() {
+		BlobStore blobs = new BlobStore(repository, metricsService, 0, Duration.ofDays(1));
+
+		String first = blobs.put("Back-off restarting failed container\n".repeat(20));
+		String second = blobs.put("Back-off restarting failed container\n".repeat(20));
+		String other = blobs.put("Liveness probe failed");
+
+		assertThat(second).isEqualTo(first);
+		assertThat(other).isNotEqualTo(first);
+		assertThat(blobs.get(first)).contains("Back-off restarting failed container\n".repeat(20));
+		assertThat(blobs.put(null)).isNull();
+		assertThat(registry.get("aegisops.blobs.dedup.hit.rate").gauge().value()).isEqualTo(1.0 / 3);
+		assertThat(registry.get("aegisops.blobs.compression.ratio").gauge().value()).isGreaterThan(1);
+	}
+
+	@Test
+	void aTrainedDictionaryShrinksLaterBlobsAndOutlivesARestart() {
+		BlobStore blobs = new BlobStore(repository, metricsService, 20, Duration.ofDays(1));
+		for (int pod = 0; pod < 20; pod++) {
+			blobs.put(logs(pod));
+		}
+		String trained = blobs.put(logs(99));
+
+		StoredBlob stored = repository.findById(trained).orElseThrow();
+		byte[] raw = logs(99).getBytes(StandardCharsets.UTF_8);
+		assertThat(stored.getDictionary()).isEqualTo(1);
+		assertThat(stored.getData().length).isLessThan(BlobStore.deflate(raw, null).length / 2);
+		store.close();
+
+		open();
+		BlobStore reopened = new BlobStore(repository, metricsService, 20, Duration.ofDays(1));
+		assertThat(reopened.get(trained)).contains(logs(99));
+	}
+
+	@Test
+	void blobsStreamInChunks() throws IOException {
+		BlobStore blobs = new BlobStore(repository, metricsService, 2, Duration.ofDays(1));
+		blobs.put(logs(1));
+		blobs.put(logs(2));
+		String large = blobs.put(logs(3).repeat(200));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertThat(blobs.transferTo(large, out)).isTrue();
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(logs(3).repeat(200));
+		assertThat(blobs.transferTo("missing", out)).isFalse();
+	}
+
+	@Test
+	void blobsNotStoredAgainBeforeTheHorizonExpire() {
+		BlobStore blobs = new BlobStore(repository, metricsService, 0, Duration.ZERO);
+		String stale = blobs.put("OOMKilled");
+		Instant horizon = Instant.now().plusSeconds(1);
+
+		assertThat(blobs.expire(horizon)).isEqualTo(1);
+		assertThat(blobs.get(stale)).isEmpty();
+		assertThat(blobs.put("OOMKilled")).isEqualTo(stale);
+		assertThat(blobs.get(stale)).contains("OOMKilled");
+	}
+
+	@Test
+	void blobExpiredWhileBeingStoredAgainIsRewritten() {
+		BlobRepository expiring = new LocalBlobRepository(store) {
+			@Override
+			public int touch(String id, Instant usedAt) {
+				// retention runs between the lookup and the touch
+				deleteUnusedSince(StoredBlob.Kind.CONTENT, usedAt.plusSeconds(1));
+				return super.touch(id, usedAt);
+			}
+		};
+		BlobStore blobs = new BlobStore(expiring, metricsService, 0, Duration.ZERO);
+		String id = blobs.put("OOMKilled");
+
+		assertThat(blobs.put("OOMKilled")).isEqualTo(id);
+		assertThat(blobs.get(id)).contains("OOMKilled");
+	}
+
+	private static String logs(int pod) {
+		List<String> lines = new ArrayList<>();
+		lines.add("Starting checkout-api pod checkout-api-" + pod);
+		lines.add("INFO  o.s.b.w.embedded.tomcat.TomcatWebServer - Tomcat initialized with port 8080 (http)");
+		lines.add("INFO  com.zaxxer.hikari.HikariDataSource - HikariPool-1 - Starting...");
+		lines.add("WARN  c.s.checkout.PaymentClient - upstream payments.shop.svc:8443 refused connection");
+		lines.add("ERROR o.h.engine.jdbc.spi.SqlExceptionHelper - HikariPool-1 - Connection is not available, request timed out");
+		lines.add("ERROR o.a.c.c.C.[.[localhost].[/].[dispatcherServlet] - Servlet.service() threw exception");
+		lines.add("java.lang.OutOfMemoryError: Java heap space");
+		lines.add("\tat java.base/java.util.Arrays.copyOf(Arrays.java:3537)");
+		lines.add("\tat com.fasterxml.jackson.databind.ObjectMapper.writeValueAsBytes(ObjectMapper.java:3964)");
+		lines.add("\tat com.shop.checkout.CartSerializer.serialize(CartSerializer.java:41)");
+		lines.add("Request id " + Integer.toHexString(pod * 7919));
+		return String.join("\n", lines);
+	}
+}
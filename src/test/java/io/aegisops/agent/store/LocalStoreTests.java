@@ -0,0 +1,76 @@
+package io.aegisops.agent.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.metrics.MetricsService;
+import io.aegisops.agent.store.SegmentedLog.FsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LocalStoreTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private LocalStore store;
+
+	@AfterEach
+	void close() {
+		store.close();
+	}
+
+	@Test
+	void compactionDropsDeadVersionsAndKeepsDeletesDeleted() {
+		store = open();
+		for (int version = 0; version < 50; version++) {
+			for (String id : new String[] {"a", "b", "c"}) {
+				store.put("things", id, Map.of("version", version));
+			}
+		}
+		store.delete("things", "c");
+		int segmentsBefore = store.segmentCount();
+
+		while (store.compact(10) > 0) {
+			// compact everything that qualifies
+		}
+
+		assertThat(store.segmentCount()).isLessThan(segmentsBefore);
+		assertThat(registry.get("aegisops.store.reclaimed").counter().count()).isPositive();
+		store.close();
+
+		store = open();
+		assertThat(store.find("things", "a", Map.class)).get().isEqualTo(Map.of("version", 49));
+		assertThat(store.find("things", "b", Map.class)).get().isEqualTo(Map.of("version", 49));
+		assertThat(store.find("things", "c", Map.class)).isEmpty();
+	}
+
+	@Test
+	void fieldsJpaWouldNotStoreAreLeftOut() {
+		store = open(DataSize.ofKilobytes(64));
+		store.put("incidents", "a", Incident.builder().id("a").podLogs("OOMKilled").podLogsRef("3f2a").build());
+
+		Incident stored = store.find("incidents", "a", Incident.class).orElseThrow();
+		assertThat(stored.getPodLogs()).isNull();
+		assertThat(stored.getPodLogsRef()).isEqualTo("3f2a");
+	}
+
+	private LocalStore open() {
+		return open(DataSize.ofBytes(512));
+	}
+
+	private LocalStore open(DataSize segmentSize) {
+		return new LocalStore(new ObjectMapper(), new MetricsService(registry), directory, segmentSize,
+			FsyncPolicy.NEVER, 0.5);
+	}
+}
@@ -0,0 +1,110 @@
+package io.aegisops.agent.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.aegisops.agent.store.SegmentedLog.FsyncPolicy;
+
+class SegmentedLogTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordsSurviveReopenAcrossSegments() {
+		List<Long> positions = new ArrayList<>();
+		try (SegmentedLog log = new SegmentedLog(directory, 64, FsyncPolicy.NEVER)) {
+			for (int i = 0; i < 10; i++) {
+				positions.add(log.append(bytes("record-" + i)));
+			}
+			assertThat(log.segmentCount()).isGreaterThan(1);
+		}
+
+		try (SegmentedLog log = new SegmentedLog(directory, 64, FsyncPolicy.NEVER)) {
+			assertThat(contents(log)).hasSize(10).first().isEqualTo("record-0");
+			assertThat(new String(log.read(positions.get(7)), StandardCharsets.UTF_8)).isEqualTo("record-7");
+			assertThat(log.truncatedBytes()).isZero();
+		}
+	}
+
+	@Test
+	void nextFollowsTheLogAcrossSegmentsAndDroppedOnes() throws IOException {
+		try (SegmentedLog log = new SegmentedLog(directory, 64, FsyncPolicy.NEVER)) {
+			assertThat(log.next(log.firstPosition())).isNull();
+			for (int i = 0; i < 10; i++) {
+				log.append(bytes("record-" + i));
+			}
+			SegmentedLog.Record first = log.next(log.firstPosition());
+			log.drop(log.sealedSegments().get(0));
+
+			List<String> followed = new ArrayList<>();
+			for (SegmentedLog.Record record = log.next(first.position()); record != null;
+					record = log.next(record.nextPosition())) {
+				followed.add(new String(record.payload(), StandardCharsets.UTF_8));
+			}
+
+			assertThat(followed).isNotEmpty().doesNotContain("record-0").endsWith("record-9");
+			assertThat(followed).containsExactlyElementsOf(contents(log));
+		}
+	}
+
+	@Test
+	void tornTailIsDiscardedAndOverwritten() throws IOException {
+		long torn;
+		try (SegmentedLog log = new SegmentedLog(directory, 4096, FsyncPolicy.ALWAYS)) {
+			log.append(bytes("first"));
+			log.append(bytes("second"));
+			torn = log.append(bytes("third"));
+		}
+		// a crash mid-write: the length made it to disk, part of the payload did not
+		try (FileChannel segment = FileChannel.open(directory.resolve("0000000000.log"), StandardOpenOption.WRITE)) {
+			segment.write(ByteBuffer.wrap(new byte[] {0, 0}), (int) torn + SegmentedLog.HEADER_BYTES + 2);
+		}
+
+		try (SegmentedLog log = new SegmentedLog(directory, 4096, FsyncPolicy.ALWAYS)) {
+			assertThat(contents(log)).containsExactly("first", "second");
+			assertThat(log.truncatedBytes()).isPositive();
+			log.append(bytes("fourth"));
+		}
+		try (SegmentedLog log = new SegmentedLog(directory, 4096, FsyncPolicy.ALWAYS)) {
+			assertThat(contents(log)).containsExactly("first", "second", "fourth");
+		}
+	}
+
+	@Test
+	void corruptionBeforeTheLastSegmentIsNotSilentlyDropped() throws IOException {
+		try (SegmentedLog log = new SegmentedLog(directory, 64, FsyncPolicy.NEVER)) {
+			for (int i = 0; i < 10; i++) {
+				log.append(bytes("record-" + i));
+			}
+		}
+		try (FileChannel segment = FileChannel.open(directory.resolve("0000000000.log"), StandardOpenOption.WRITE)) {
+			segment.write(ByteBuffer.wrap(new byte[] {'X'}), SegmentedLog.HEADER_BYTES);
+		}
+
+		assertThatThrownBy(() -> new SegmentedLog(directory, 64, FsyncPolicy.NEVER))
+			.isInstanceOf(IllegalStateException.class);
+	}
+
+	private static List<String> contents(SegmentedLog log) {
+		List<String> records = new ArrayList<>();
+		log.forEach((position, payload) -> records.add(new String(payload, StandardCharsets.UTF_8)));
+		return records;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,142 @@
+package io.aegisops.agent.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.aegisops.agent.incident.Incident;
+import io.aegisops.agent.incident.Incident.IncidentStatus;
+import io.aegisops.agent.incident.IncidentTransition;
+import io.aegisops.agent.incident.IncidentTransitionedEvent;
+import io.aegisops.agent.metrics.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChangeStreamTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ChangeStream stream = new ChangeStream(new MetricsService(registry), 4, 2, 10, Duration.ofMinutes(1));
+
+	@Test
+	void reconnectingSubscriberReplaysOnlyWhatItMissedAndMatches() {
+		RecordingEmitter first = new RecordingEmitter(null);
+		stream.subscribe(first, "prod", null, null);
+		publish("a", "prod", 1);
+		publish("b", "staging", 1);
+		until(() -> first.events.size() == 1);
+
+		String lastId = id(first.events.get(0));
+		publish("c", "prod", 1);
+		publish("d", "prod", 1);
+
+		RecordingEmitter second = new RecordingEmitter(null);
+		stream.subscribe(second, "prod", null, lastId);
+		until(() -> second.events.size() == 2);
+		assertThat(second.events).allMatch(event -> event.contains("event:incident"));
+		assertThat(second.events.get(0)).contains("incidentId=c,");
+		assertThat(second.events.get(1)).contains("incidentId=d,");
+	}
+
+	@Test
+	void idsFromAnotherInstanceOrOutsideTheRingGetReset() {
+		for (int i = 0; i < 6; i++) {
+			publish("a" + i, "prod", i + 1);
+		}
+
+		RecordingEmitter evicted = new RecordingEmitter(null);
+		stream.subscribe(evicted, null, null, id(stream, 1));
+		RecordingEmitter foreign = new RecordingEmitter(null);
+		stream.subscribe(foreign, null, null, "zzz-5");
+
+		until(() -> evicted.completed && foreign.completed);
+		assertThat(evicted.events).singleElement().asString().contains("event:reset");
+		assertThat(foreign.events).singleElement().asString().contains("event:reset");
+	}
+
+	@Test
+	void slowSubscriberIsResetWithoutHoldingUpOthers() {
+		CountDownLatch gate = new CountDownLatch(1);
+		RecordingEmitter slow = new RecordingEmitter(gate);
+		RecordingEmitter fast = new RecordingEmitter(null);
+		stream.subscribe(slow, null, null, null);
+		stream.subscribe(fast, null, null, null);
+
+		for (int i = 0; i < 5; i++) {
+			publish("a" + i, "prod", i + 1);
+			int sent = i + 1;
+			until(() -> fast.events.size() == sent);
+		}
+		gate.countDown();
+
+		until(() -> slow.completed && registry.get("aegisops.stream.subscribers").gauge().value() == 1);
+		assertThat(slow.events.get(slow.events.size() - 1)).contains("event:reset");
+		assertThat(registry.get("aegisops.stream.overflows").counter().count()).isEqualTo(1);
+	}
+
+	private void publish(String id, String namespace, int sequence) {
+		Incident incident = Incident.builder().id(id).namespace(namespace).workloadName("api")
+			.severity("critical").status(IncidentStatus.ANALYZING).build();
+		IncidentTransition transition = IncidentTransition.builder().incidentId(id).sequence(sequence)
+			.fromStatus(IncidentStatus.NEW).toStatus(IncidentStatus.ANALYZING).occurredAt(Instant.now()).build();
+		stream.onTransition(new IncidentTransitionedEvent(incident, transition));
+	}
+
+	private static void until(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+			Thread.onSpinWait();
+		}
+	}
+
+	private static String id(String event) {
+		return event.lines().filter(line -> line.startsWith("id:")).findFirst().orElseThrow().substring(3);
+	}
+
+	private static String id(ChangeStream stream, long sequence) {
+		return stream.eventId(new ChangeEvent(sequence, null, null, null, null, null, null, null, null, null, null, null));
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final CountDownLatch gate;
+		private final List<String> events = new CopyOnWriteArrayList<>();
+		private volatile boolean completed;
+
+		RecordingEmitter(CountDownLatch gate) {
+			this.gate = gate;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			String text = builder.build().stream()
+				.map(part -> String.valueOf(part.getData()))
+				.collect(Collectors.joining());
+			if (text.startsWith(":")) {
+				return;
+			}
+			if (gate != null) {
+				try {
+					gate.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			events.add(text);
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+	}
+}